@@ -0,0 +1,121 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import mdlg.RandomMazeGenerator;
+
+/**
+ * Writes the MDL files read by the benchmarks. The mazes are generated with a fixed seed per size,
+ * so every run of a benchmark reads the same input
+ */
+class BenchmarkInputs
+{
+	/**
+	 * Writes a maze described entirely by row statements, as MDLG generates them
+	 * 
+	 * @param dir				The directory to write the file to
+	 * @param size				The width and height of the maze in number of cells
+	 * @param settings			Additional settings, one per line
+	 * @return					The path of the file
+	 * @exception IOException	On output error
+	 */
+	static String writeRowHeavy(File dir, int size, String settings) throws IOException
+	{
+		boolean maze[][] = RandomMazeGenerator.generateMaze(size, size, new Random(size));
+		File file = new File(dir, "rows-" + size + ".maze");
+		BufferedWriter bw = new BufferedWriter(new FileWriter(file), 1 << 16);
+		bw.write(header(size, settings));
+
+		char line[] = new char[size];
+		for(int i=0; i<size; i++)
+		{
+			for(int j=0; j<size; j++) line[j] = (maze[i][j] ? 'p' : 'w');
+			bw.write("r" + i + ":");
+			bw.write(line);
+			bw.write(";\n");
+		}
+		bw.close();
+		return file.getPath();
+	}
+
+	/**
+	 * Writes a serpentine maze described entirely by path statements: one path along every odd row,
+	 * joined to the next by a short path at alternating ends
+	 * 
+	 * @param dir				The directory to write the file to
+	 * @param size				The width and height of the maze in number of cells
+	 * @param settings			Additional settings, one per line
+	 * @return					The path of the file
+	 * @exception IOException	On output error
+	 */
+	static String writePathHeavy(File dir, int size, String settings) throws IOException
+	{
+		File file = new File(dir, "paths-" + size + ".maze");
+		BufferedWriter bw = new BufferedWriter(new FileWriter(file), 1 << 16);
+		bw.write(header(size, settings));
+
+		char moves[] = new char[size - 3];
+		Arrays.fill(moves, 'r');
+		int k = 1;
+		for(int r=1; r<size-1; r+=2)
+		{
+			bw.write("p" + (k++) + ":c(" + r + ",1)");
+			bw.write(moves);
+			bw.write(";\n");
+			if(r + 2 < size-1) bw.write("p" + (k++) + ":c(" + r + "," + ((r / 2) % 2 == 0 ? size-2 : 1) + ")dd;\n");
+		}
+		bw.close();
+		return file.getPath();
+	}
+
+	/**
+	 * Returns the settings common to all benchmark inputs
+	 * 
+	 * @param size		The width and height of the maze in number of cells
+	 * @param settings	Additional settings, one per line
+	 * @return			The settings section of the file
+	 */
+	private static String header(int size, String settings)
+	{
+		return "[version:" + MDLC.VERSION + "]\n[size:" + size + "," + size + "]\n" + settings;
+	}
+
+	/**
+	 * Creates an empty temporary directory for the inputs and outputs of a benchmark
+	 * 
+	 * @return					The directory
+	 * @exception IOException	On error creating the directory
+	 */
+	static File createDirectory() throws IOException
+	{
+		return Files.createTempDirectory("mdl-bench").toFile();
+	}
+
+	/**
+	 * Deletes a temporary directory and the files in it
+	 * 
+	 * @param dir	The directory
+	 * @return		Nothing
+	 */
+	static void deleteDirectory(File dir)
+	{
+		File files[] = dir.listFiles();
+		if(files != null) for(File f : files) f.delete();
+		dir.delete();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Description.readFile on a maze given by row statements (as written by MDLG)
+ * and on one given by path statements
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParserBenchmark
+{
+	/**
+	 * The width and height of the maze in number of cells
+	 */
+	@Param({ "20", "256", "2048", "8192" })
+	public int size;
+
+	/**
+	 * The kind of input: rows or paths
+	 */
+	@Param({ "rows", "paths" })
+	public String input;
+
+	/**
+	 * The directory holding the input file
+	 */
+	private File dir;
+
+	/**
+	 * The path of the input file
+	 */
+	private String file;
+
+	/**
+	 * Writes the input file
+	 * 
+	 * @return				Nothing
+	 * @exception Exception	On output error
+	 */
+	@Setup
+	public void setup() throws Exception
+	{
+		dir = BenchmarkInputs.createDirectory();
+		file = (input.equals("rows") ? BenchmarkInputs.writeRowHeavy(dir, size, "") : BenchmarkInputs.writePathHeavy(dir, size, ""));
+	}
+
+	/**
+	 * Deletes the input file
+	 * 
+	 * @return	Nothing
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		BenchmarkInputs.deleteDirectory(dir);
+	}
+
+	/**
+	 * Reads the input file
+	 * 
+	 * @return				The description read
+	 * @exception Exception	On input error
+	 */
+	@Benchmark
+	public Description readFile() throws Exception
+	{
+		return Description.readFile(file);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Generator.processGraphics, i.e. drawing a maze and writing it in one image format.
+ * The unit (cell size in pixels) shrinks as the maze grows, so that the image stays within 8192 pixels a side:
+ * 25 pixels at 20x20, 16 at 256x256, 2 at 2048x2048 and 1 at 8192x8192
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = { "-Xmx4g", "-Djava.awt.headless=true" })
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RendererBenchmark
+{
+	/**
+	 * The width and height of the maze in number of cells
+	 */
+	@Param({ "20", "256", "2048", "8192" })
+	public int size;
+
+	/**
+	 * The image format
+	 */
+	@Param({ "PNG", "JPG", "TIF", "BMP" })
+	public String format;
+
+	/**
+	 * The directory holding the input and output files
+	 */
+	private File dir;
+
+	/**
+	 * The description of the maze
+	 */
+	private Description desc;
+
+	/**
+	 * The output mode
+	 */
+	private List<Mode> modes;
+
+	/**
+	 * The path of the output file
+	 */
+	private List<String> outputFiles;
+
+	/**
+	 * Reads the maze to be drawn
+	 * 
+	 * @return				Nothing
+	 * @exception Exception	On input/output error
+	 */
+	@Setup
+	public void setup() throws Exception
+	{
+		int unit = Math.max(1, Math.min(25, 4096 / size));
+		dir = BenchmarkInputs.createDirectory();
+		desc = Description.readFile(BenchmarkInputs.writeRowHeavy(dir, size, "[unit:" + unit + "]\n"));
+
+		Mode mode = Mode.valueOf(format);
+		modes = Collections.singletonList(mode);
+		outputFiles = Collections.singletonList(new File(dir, "out" + mode.extension).getPath());
+	}
+
+	/**
+	 * Deletes the input and output files
+	 * 
+	 * @return	Nothing
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		BenchmarkInputs.deleteDirectory(dir);
+	}
+
+	/**
+	 * Draws the maze and writes the image
+	 * 
+	 * @exception Exception	On output error
+	 */
+	@Benchmark
+	public void processGraphics() throws Exception
+	{
+		Generator.processGraphics(desc, null, modes, outputFiles);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,478 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the suite end to end over a matrix of maze sizes, unit sizes, output modes and overlay densities,
+ * and reports the cost of every stage: generating a maze with MDLG, parsing it, and rendering or emitting it.
+ * 
+ * Every stage runs in a JVM of its own, so that its peak resident set size, peak heap and GC time are not mixed
+ * with those of other stages, and a stage that runs out of memory is recorded as such instead of ending the run.
+ * The render stage parses the maze before it starts measuring, so its memory figures include the parsed maze.
+ * The report is a CSV file with one line per stage, in a fixed order, and two reports can be compared with --compare.
+ */
+public class ScalingBenchmark
+{
+	/**
+	 * The usage string that will be displayed if the program is invoked
+	 * without parameters or with incorrect parameters
+	 */
+	private static final String INFO = "Usage:" +
+										"\n\t java mdlc.ScalingBenchmark [options] <output-csv-file>" +
+										"\n\t java mdlc.ScalingBenchmark --compare <base-csv-file> <new-csv-file>" +
+										"\nOptions:" +
+										"\n\t--sizes=<n,...>\t\twidth and height of the mazes in number of cells (default: 20,256,1024,4096)" +
+										"\n\t--units=<n,...>\t\tcell sizes in pixels for image modes (default: 5,25)" +
+										"\n\t--modes=<mode,...>\toutput modes (default: png,bmp,java_int,npy_uint8)" +
+										"\n\t--densities=<d,...>\tfraction of path cells covered by visited-path overlays (default: 0,0.5)" +
+										"\n\t--repeat=<n>\t\truns of every stage; the fastest is reported (default: 1)" +
+										"\n\t--xmx=<size>\t\tmaximum heap of every stage (default: 2g)" +
+										"\n\t--timeout=<seconds>\ttime after which a stage is stopped (default: 600)";
+
+	/**
+	 * The header line of the CSV report
+	 */
+	private static final String CSV_HEADER = "stage,size,unit,mode,density,status,wall_ms,peak_rss_bytes,peak_heap_bytes,gc_ms,gc_count,output_bytes";
+
+	/**
+	 * The number of columns identifying a stage (from stage to density)
+	 */
+	private static final int KEY_COLUMNS = 5;
+
+	/**
+	 * The prefix of the line a stage prints its measurements on
+	 */
+	private static final String RESULT = "RESULT ";
+
+	/**
+	 * The ratio of wall time or memory above which a stage is flagged by --compare
+	 */
+	private static final double THRESHOLD = 1.10;
+
+	/**
+	 * This is the main method, and it processes the command-line arguments
+	 * 
+	 * @param args			The options and the name of the CSV report, or --compare and two reports
+	 * @return				Nothing
+	 * @exception Exception	On input/output error
+	 */
+	public static void main(String args[]) throws Exception
+	{
+		if(args.length > 0 && args[0].equals("--stage"))
+		{
+			runStage(args);
+			return;
+		}
+		if(args.length == 3 && args[0].equals("--compare"))
+		{
+			compare(args[1], args[2]);
+			return;
+		}
+
+		String sizes = "20,256,1024,4096", units = "5,25", modes = "png,bmp,java_int,npy_uint8", densities = "0,0.5", xmx = "2g";
+		int repeat = 1, timeout = 600, k = 0;
+		for(; k < args.length && args[k].startsWith("--"); k++)
+		{
+			String value = args[k].substring(args[k].indexOf('=') + 1);
+			if(args[k].startsWith("--sizes=")) sizes = value;
+			else if(args[k].startsWith("--units=")) units = value;
+			else if(args[k].startsWith("--modes=")) modes = value;
+			else if(args[k].startsWith("--densities=")) densities = value;
+			else if(args[k].startsWith("--repeat=")) repeat = Integer.parseInt(value);
+			else if(args[k].startsWith("--xmx=")) xmx = value;
+			else if(args[k].startsWith("--timeout=")) timeout = Integer.parseInt(value);
+			else break;
+		}
+		if(args.length - k != 1 || repeat < 1)
+		{
+			System.out.println(INFO);
+			return;
+		}
+
+		File dir = Files.createTempDirectory("mdl-scaling").toFile();
+		BufferedWriter report = new BufferedWriter(new FileWriter(args[k]));
+		try {
+			report.write(CSV_HEADER + "\n");
+			for(String size : sizes.split(","))
+			{
+				int n = Integer.parseInt(size.trim());
+				String maze = new File(dir, "maze-" + n + ".maze").getPath();
+				String config = new File(dir, "maze-" + n + ".config").getPath();
+				writeFile(config, "[version:" + MDLC.VERSION + "]\n[size:" + n + "," + n + "]\n");
+
+				record(report, run(dir, xmx, timeout, repeat, "generate", config, maze), "generate", n, "", "", "");
+
+				for(String density : densities.split(","))
+				{
+					double d = Double.parseDouble(density.trim());
+					String input = new File(dir, "maze-" + n + "-" + density.trim() + ".maze").getPath();
+					addOverlays(maze, input, d, n);
+
+					record(report, run(dir, xmx, timeout, repeat, "parse", input), "parse", n, "", "", density.trim());
+
+					for(String m : modes.split(","))
+					{
+						Mode mode = Mode.valueOf(m.trim().toUpperCase());
+						for(String unit : (mode.isImage() ? units.split(",") : new String[] { "" }))
+						{
+							String output = new File(dir, "out").getPath();
+							String result = run(dir, xmx, timeout, repeat, "render", input, mode.name(), unit.trim().length() == 0 ? "0" : unit.trim(), output);
+							record(report, result, "render", n, unit.trim(), mode.name().toLowerCase(), density.trim());
+						}
+					}
+					new File(input).delete();
+				}
+				new File(maze).delete();
+				new File(config).delete();
+			}
+		} finally {
+			report.close();
+			File files[] = dir.listFiles();
+			if(files != null) for(File f : files) f.delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Runs a stage in a new JVM as many times as requested, and keeps the fastest successful run
+	 * 
+	 * @param dir			The working directory of the stage
+	 * @param xmx			The maximum heap of the JVM
+	 * @param timeout		The time in seconds after which the stage is stopped
+	 * @param repeat		The number of runs
+	 * @param stage			The stage and its arguments
+	 * @return				The measurements of the fastest run, as comma-separated values from status onwards
+	 * @exception Exception	On error starting the JVM
+	 */
+	private static String run(File dir, String xmx, int timeout, int repeat, String... stage) throws Exception
+	{
+		String best = null;
+		double bestTime = Double.MAX_VALUE;
+		for(int i=0; i<repeat; i++)
+		{
+			String result = runOnce(dir, xmx, timeout, stage);
+			if(!result.startsWith("ok,"))
+			{
+				if(best == null) best = result;
+				break;
+			}
+
+			double time = Double.parseDouble(result.split(",")[1]);
+			if(time < bestTime)
+			{
+				bestTime = time;
+				best = result;
+			}
+		}
+		System.out.println(String.join(" ", stage) + " -> " + best);
+		return best;
+	}
+
+	/**
+	 * Runs a stage once in a new JVM
+	 * 
+	 * @param dir			The working directory of the stage
+	 * @param xmx			The maximum heap of the JVM
+	 * @param timeout		The time in seconds after which the stage is stopped
+	 * @param stage			The stage and its arguments
+	 * @return				The measurements, as comma-separated values from status onwards
+	 * @exception Exception	On error starting the JVM
+	 */
+	private static String runOnce(File dir, String xmx, int timeout, String stage[]) throws Exception
+	{
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-Xmx" + xmx);
+		command.add("-Djava.awt.headless=true");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ScalingBenchmark.class.getName());
+		command.add("--stage");
+		for(String s : stage) command.add(s);
+
+		ProcessBuilder pb = new ProcessBuilder(command).directory(dir).redirectErrorStream(true);
+		final Process process = pb.start();
+
+		// read the output on another thread, so that a stage printing a lot does not block
+		final String result[] = { null };
+		Thread reader = new Thread(() -> {
+			try(BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				String line;
+				while((line = br.readLine()) != null) if(line.startsWith(RESULT)) result[0] = line.substring(RESULT.length());
+			} catch(Exception e) {
+				// the process was stopped
+			}
+		});
+		reader.start();
+
+		if(!process.waitFor(timeout, TimeUnit.SECONDS))
+		{
+			process.destroyForcibly();
+			reader.join();
+			return "timeout,,,,,,";
+		}
+		reader.join();
+		if(result[0] == null) return "failed(exit " + process.exitValue() + "),,,,,,";
+		return result[0];
+	}
+
+	/**
+	 * Runs one stage in this JVM and prints its measurements. This is the entry point of the JVMs started by runOnce
+	 * 
+	 * @param args			--stage, followed by the stage and its arguments
+	 * @return				Nothing
+	 * @exception Exception	On input/output error
+	 */
+	private static void runStage(String args[]) throws Exception
+	{
+		String stage = args[1];
+		Description desc = null;
+		if(stage.equals("render"))
+		{
+			desc = Description.readFile(args[2]);
+			desc.outputModes = new Mode[] { Mode.valueOf(args[3]) };
+			int unit = Integer.parseInt(args[4]);
+			if(unit > 0) desc.squareSize = unit;
+		}
+
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+		for(MemoryPoolMXBean pool : pools) pool.resetPeakUsage();
+		long gcTime = 0, gcCount = 0;
+		for(GarbageCollectorMXBean gc : collectors)
+		{
+			gcTime -= gc.getCollectionTime();
+			gcCount -= gc.getCollectionCount();
+		}
+
+		String status = "ok";
+		long outputBytes = 0;
+		long time = System.nanoTime();
+		try {
+			if(stage.equals("generate")) {
+				mdlg.MDLG.main(new String[] { args[2], args[3] });
+				File output = new File(args[3]);
+				if(!output.exists()) status = "failed";
+				outputBytes = output.length();
+			} else if(stage.equals("parse")) {
+				Description.readFile(args[2]);
+			} else {
+				Generator.generateMaze(desc, args[5]);
+				File output = new File(args[5] + desc.outputModes[0].extension);
+				outputBytes = output.length();
+				output.delete();
+			}
+		} catch(OutOfMemoryError e) {
+			status = "oom";
+		} catch(Exception e) {
+			status = "failed(" + e.getClass().getSimpleName() + ")";
+		}
+		time = System.nanoTime() - time;
+
+		for(GarbageCollectorMXBean gc : collectors)
+		{
+			gcTime += gc.getCollectionTime();
+			gcCount += gc.getCollectionCount();
+		}
+		long peakHeap = 0;
+		for(MemoryPoolMXBean pool : pools) if(pool.getType() == MemoryType.HEAP) peakHeap += pool.getPeakUsage().getUsed();
+
+		System.out.println(RESULT + status + "," + String.format(Locale.ROOT, "%.3f", time / 1e6) + "," + peakResidentSetSize() + "," +
+							peakHeap + "," + gcTime + "," + gcCount + "," + outputBytes);
+	}
+
+	/**
+	 * Returns the peak resident set size of this process, as reported by Linux
+	 * 
+	 * @return	The number of bytes, or -1 if it cannot be determined
+	 */
+	private static long peakResidentSetSize()
+	{
+		try(BufferedReader br = new BufferedReader(new FileReader("/proc/self/status"))) {
+			String line;
+			while((line = br.readLine()) != null)
+			{
+				if(line.startsWith("VmHWM:")) return 1024 * Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+			}
+		} catch(Exception e) {
+			// not running on Linux
+		}
+		return -1;
+	}
+
+	/**
+	 * Copies a maze file and appends visited-path overlays along horizontal runs of path cells,
+	 * choosing each run with the given probability
+	 * 
+	 * @param input			The maze file written by MDLG
+	 * @param output		The maze file to write
+	 * @param density		The probability of a run of path cells being covered by an overlay
+	 * @param size			The width and height of the maze in number of cells
+	 * @return				Nothing
+	 * @exception Exception	On input/output error
+	 */
+	private static void addOverlays(String input, String output, double density, int size) throws Exception
+	{
+		Random random = new Random(size);
+		BufferedReader br = new BufferedReader(new FileReader(input));
+		BufferedWriter bw = new BufferedWriter(new FileWriter(output), 1 << 16);
+		StringBuilder overlays = new StringBuilder();
+		try {
+			String line;
+			while((line = br.readLine()) != null)
+			{
+				bw.write(line);
+				bw.write('\n');
+				if(density <= 0 || !line.startsWith("r")) continue;
+
+				int row = Integer.parseInt(line.substring(1, line.indexOf(':')));
+				String cells = line.substring(line.indexOf(':') + 1);
+				for(int c=0; c<cells.length(); c++)
+				{
+					int end = c;
+					while(end < cells.length() && cells.charAt(end) == 'p') end++;
+					if(end - c >= 2 && random.nextDouble() < density)
+					{
+						overlays.append("vc:rgb(0:0:255)");
+						for(int j=c; j<end; j++) overlays.append(j == c ? "," : ">").append("c(").append(row).append(',').append(j).append(')');
+						overlays.append(";\n");
+					}
+					c = end;
+				}
+			}
+			bw.write(overlays.toString());
+		} finally {
+			br.close();
+			bw.close();
+		}
+	}
+
+	/**
+	 * Writes a line of the report
+	 * 
+	 * @param report		The report
+	 * @param result		The measurements, as comma-separated values from status onwards
+	 * @param stage			The name of the stage
+	 * @param size			The width and height of the maze in number of cells
+	 * @param unit			The cell size in pixels, or an empty string
+	 * @param mode			The output mode, or an empty string
+	 * @param density		The overlay density, or an empty string
+	 * @exception Exception	On output error
+	 * @return				Nothing
+	 */
+	private static void record(BufferedWriter report, String result, String stage, int size, String unit, String mode, String density) throws Exception
+	{
+		report.write(stage + "," + size + "," + unit + "," + mode + "," + density + "," + result + "\n");
+		report.flush();
+	}
+
+	/**
+	 * Compares two reports line by line, printing the ratio of the wall time, peak resident set size and peak heap
+	 * of every stage found in both, and flagging those that grew by more than 10% or changed status
+	 * 
+	 * @param base			The report of the base version
+	 * @param current		The report of the new version
+	 * @exception Exception	On input error
+	 * @return				Nothing
+	 */
+	private static void compare(String base, String current) throws Exception
+	{
+		Map<String, String[]> before = readReport(base), after = readReport(current);
+		System.out.println(String.format("%-40s %10s %10s %10s %12s", "stage", "wall", "rss", "heap", "status"));
+		for(Map.Entry<String, String[]> e : after.entrySet())
+		{
+			String b[] = before.get(e.getKey()), a[] = e.getValue();
+			if(b == null) continue;
+
+			double wall = ratio(b[KEY_COLUMNS+1], a[KEY_COLUMNS+1]);
+			double rss = ratio(b[KEY_COLUMNS+2], a[KEY_COLUMNS+2]);
+			double heap = ratio(b[KEY_COLUMNS+3], a[KEY_COLUMNS+3]);
+			String status = (b[KEY_COLUMNS].equals(a[KEY_COLUMNS]) ? a[KEY_COLUMNS] : b[KEY_COLUMNS] + "->" + a[KEY_COLUMNS]);
+			boolean flag = (wall > THRESHOLD || rss > THRESHOLD || heap > THRESHOLD || !b[KEY_COLUMNS].equals(a[KEY_COLUMNS]));
+
+			System.out.println(String.format(Locale.ROOT, "%-40s %10.2f %10.2f %10.2f %12s%s", e.getKey(), wall, rss, heap, status, flag ? " *" : ""));
+		}
+	}
+
+	/**
+	 * Reads a report into a map from the key columns of every line (joined by commas) to all of its columns
+	 * 
+	 * @param filename		The report
+	 * @return				The lines of the report, in order
+	 * @exception Exception	On input error
+	 */
+	private static Map<String, String[]> readReport(String filename) throws Exception
+	{
+		Map<String, String[]> lines = new LinkedHashMap<String, String[]>();
+		BufferedReader br = new BufferedReader(new FileReader(filename));
+		try {
+			String line = br.readLine();
+			while((line = br.readLine()) != null)
+			{
+				String x[] = line.split(",", -1);
+				StringBuilder key = new StringBuilder(x[0]);
+				for(int i=1; i<KEY_COLUMNS; i++) key.append(',').append(x[i]);
+				lines.put(key.toString(), x);
+			}
+		} finally {
+			br.close();
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the ratio of two measurements
+	 * 
+	 * @param before	The measurement of the base version
+	 * @param after		The measurement of the new version
+	 * @return			The ratio, or NaN if either measurement is missing
+	 */
+	private static double ratio(String before, String after)
+	{
+		if(before.length() == 0 || after.length() == 0) return Double.NaN;
+		double b = Double.parseDouble(before), a = Double.parseDouble(after);
+		return(b > 0 ? a / b : Double.NaN);
+	}
+
+	/**
+	 * Writes a string to a file
+	 * 
+	 * @param filename		The file
+	 * @param content		The string
+	 * @exception Exception	On output error
+	 * @return				Nothing
+	 */
+	private static void writeFile(String filename, String content) throws Exception
+	{
+		BufferedWriter bw = new BufferedWriter(new FileWriter(filename));
+		bw.write(content);
+		bw.close();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Generator.processText, i.e. writing a maze as Java, Python or C code, for each text output mode
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TextEmitterBenchmark
+{
+	/**
+	 * The width and height of the maze in number of cells
+	 */
+	@Param({ "20", "256", "2048", "8192" })
+	public int size;
+
+	/**
+	 * The output mode
+	 */
+	@Param({ "JAVA_INT", "JAVA_CHAR", "JAVA_BOOLEAN", "PYTHON_INT", "PYTHON_CHAR", "PYTHON_BOOLEAN", "C_HEADER" })
+	public String mode;
+
+	/**
+	 * The directory holding the input and output files
+	 */
+	private File dir;
+
+	/**
+	 * The description of the maze
+	 */
+	private Description desc;
+
+	/**
+	 * The output mode being measured
+	 */
+	private Mode m;
+
+	/**
+	 * The path of the output file
+	 */
+	private String outputFile;
+
+	/**
+	 * Reads the maze to be written
+	 * 
+	 * @return				Nothing
+	 * @exception Exception	On input/output error
+	 */
+	@Setup
+	public void setup() throws Exception
+	{
+		dir = BenchmarkInputs.createDirectory();
+		desc = Description.readFile(BenchmarkInputs.writeRowHeavy(dir, size, ""));
+		m = Mode.valueOf(mode);
+		outputFile = new File(dir, "out" + m.extension).getPath();
+	}
+
+	/**
+	 * Deletes the input and output files
+	 * 
+	 * @return	Nothing
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		BenchmarkInputs.deleteDirectory(dir);
+	}
+
+	/**
+	 * Writes the maze in the output mode
+	 * 
+	 * @exception Exception	On output error
+	 */
+	@Benchmark
+	public void processText() throws Exception
+	{
+		Generator.processText(desc, m, outputFile);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the generation of square mazes by each algorithm, recursive division (RandomMazeGenerator.generateMaze)
+ * being the default. Mazes generated by Eller's algorithm are streamed to a writer that consumes every row.
+ * generateMaze gives the time per maze, and generateCells the throughput in cells per second (the cells counter), so
+ * that the algorithms can be compared across sizes; run with -prof gc, gc.alloc.rate.norm gives the bytes allocated
+ * per maze
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MazeGenerationBenchmark
+{
+	/**
+	 * The width and height of the maze in number of cells
+	 */
+	@Param({ "20", "256", "1024", "2048", "4096", "8192", "16384" })
+	public int size;
+
+	/**
+	 * The name of the algorithm, as used in configuration files
+	 */
+	@Param({ "recursive-division", "eller", "wilson", "kruskal", "growing-tree" })
+	public String algorithm;
+
+	/**
+	 * The algorithm being measured
+	 */
+	private Algorithm a;
+
+	/**
+	 * The source of randomness, seeded so that every run generates the same mazes
+	 */
+	private Random random;
+
+	/**
+	 * Looks up the algorithm
+	 * 
+	 * @return				Nothing
+	 * @exception Exception	On an unknown algorithm
+	 */
+	@Setup
+	public void setup() throws Exception
+	{
+		a = Algorithm.fromName(algorithm);
+		random = new Random(size);
+	}
+
+	/**
+	 * The number of cells generated, reported per second
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Cells
+	{
+		/**
+		 * The number of cells generated in the current iteration
+		 */
+		public long cells;
+
+		/**
+		 * Resets the count at the start of every iteration
+		 * 
+		 * @return	Nothing
+		 */
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			cells = 0;
+		}
+	}
+
+	/**
+	 * Generates one maze
+	 * 
+	 * @param bh			The sink for the generated rows
+	 * @exception Exception	On error during generation
+	 */
+	@Benchmark
+	public void generateMaze(Blackhole bh) throws Exception
+	{
+		generate(bh);
+	}
+
+	/**
+	 * Generates one maze, counting its cells
+	 * 
+	 * @param bh			The sink for the generated rows
+	 * @param counter		The count of cells generated
+	 * @exception Exception	On error during generation
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void generateCells(Blackhole bh, Cells counter) throws Exception
+	{
+		generate(bh);
+		counter.cells += (long)size * size;
+	}
+
+	/**
+	 * Generates a maze with the algorithm being measured
+	 * 
+	 * @param bh			The sink for the generated rows
+	 * @return				Nothing
+	 * @exception Exception	On error during generation
+	 */
+	private void generate(final Blackhole bh) throws Exception
+	{
+		if(a == Algorithm.ELLER)
+			EllerMazeGenerator.generateMaze(size, size, random, row -> bh.consume(row));
+		else if(a == Algorithm.RECURSIVE_DIVISION)
+			bh.consume(RandomMazeGenerator.generateMaze(size, size, random));
+		else
+			bh.consume(a.generate(size, size, random, GrowingTreeMazeGenerator.CellChoice.NEWEST));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import mdlg.Stats;
+
+/**
+ * Writes the gif output mode: an animation of the visited paths being added to the maze one after another, in the
+ * order they are given in the file (followed by the shortest path, if solve is set).
+ * 
+ * The maze is drawn once without any visited path, as the first frame. Every later frame adds the next frame-step
+ * visited paths: only the cells they cover are redrawn, and only that rectangle of the image is written, as a GIF
+ * frame placed over the previous ones. The animation is therefore drawn in one pass over the paths, and the memory
+ * used is that of a single image of the maze
+ */
+class Animator
+{
+	/**
+	 * The name of the metadata format of GIF frames
+	 */
+	private static final String FORMAT = "javax_imageio_gif_image_1.0";
+
+	/**
+	 * Writes the animation of a maze
+	 * 
+	 * @param desc			A description object describing the maze, with its visited paths recorded in order
+	 * @param outputFile	The path to the output file
+	 * @exception Exception	On output/processing error
+	 * @return				Nothing
+	 */
+	static void write(Description desc, String outputFile) throws Exception
+	{
+		File file = new File(outputFile);
+		file.delete();
+		ImageOutputStream out = ImageIO.createImageOutputStream(file);
+		try {
+			write(desc, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the animation of a maze into a stream, without going through a cache file
+	 * 
+	 * @param desc			A description object describing the maze, with its visited paths recorded in order
+	 * @param stream		The stream to write to; it is not closed
+	 * @exception Exception	On output/processing error
+	 * @return				Nothing
+	 */
+	static void write(Description desc, OutputStream stream) throws Exception
+	{
+		ImageOutputStream out = new MemoryCacheImageOutputStream(stream);
+		try {
+			write(desc, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the animation of a maze into an image stream
+	 * 
+	 * @param desc			A description object describing the maze, with its visited paths recorded in order
+	 * @param out			The stream to write to; it is not closed
+	 * @exception Exception	On output/processing error
+	 * @return				Nothing
+	 */
+	private static void write(Description desc, ImageOutputStream out) throws Exception
+	{
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+		if(!writers.hasNext()) throw(new Exception("No image writer available for format: gif"));
+		ImageWriter writer = writers.next();
+
+		Description work = desc.withoutVisitedPaths();
+		BufferedImage image = Generator.render(work);
+		int delay = Math.max(desc.frameDelay / 10, 1);		// in hundredths of a second
+		int frames = 1;
+
+		try {
+			writer.setOutput(out);
+			writer.prepareWriteSequence(null);
+			writeFrame(writer, image, new Rectangle(0, 0, image.getWidth(), image.getHeight()), delay, true);
+
+			int n = (desc.tracePaths == null ? 0 : desc.tracePaths.size());
+			int r0 = Integer.MAX_VALUE, c0 = Integer.MAX_VALUE, r1 = -1, c1 = -1;
+			for(int i=0; i<n; i++)
+			{
+				Coordinate coords[] = desc.tracePaths.get(i);
+				Description.addVisitedPath(work, coords, desc.traceColors.get(i));
+				for(Coordinate p : coords)
+				{
+					r0 = Math.min(r0, p.row);
+					c0 = Math.min(c0, p.col);
+					r1 = Math.max(r1, p.row + 1);
+					c1 = Math.max(c1, p.col + 1);
+				}
+
+				if((i+1) % desc.frameStep == 0 || i == n-1)
+				{
+					Rectangle area = Generator.redraw(image, work, r0, c0, r1, c1);
+					writeFrame(writer, image, area, delay, false);
+					frames++;
+					r0 = c0 = Integer.MAX_VALUE;
+					r1 = c1 = -1;
+				}
+			}
+
+			writer.endWriteSequence();
+		} finally {
+			writer.dispose();
+		}
+		Stats.count("frames", frames);
+	}
+
+	/**
+	 * Writes one frame of an animation: a rectangle of the image, placed at the same position in the animation
+	 * 
+	 * @param writer		The GIF writer, with a sequence prepared
+	 * @param image			The image of the maze
+	 * @param area			The rectangle of the image to write
+	 * @param delay			The time for which the frame is shown, in hundredths of a second
+	 * @param first			Whether this is the first frame, which also sets the animation to loop forever
+	 * @exception Exception	On output error
+	 * @return				Nothing
+	 */
+	private static void writeFrame(ImageWriter writer, BufferedImage image, Rectangle area, int delay, boolean first) throws Exception
+	{
+		// GIF frames have no alpha channel, so the rectangle is copied into an opaque image
+		BufferedImage frame = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+		frame.getGraphics().drawImage(image.getSubimage(area.x, area.y, area.width, area.height), 0, 0, null);
+
+		IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+		IIOMetadataNode root = (IIOMetadataNode)metadata.getAsTree(FORMAT);
+
+		IIOMetadataNode descriptor = child(root, "ImageDescriptor");
+		descriptor.setAttribute("imageLeftPosition", String.valueOf(area.x));
+		descriptor.setAttribute("imageTopPosition", String.valueOf(area.y));
+
+		IIOMetadataNode control = child(root, "GraphicControlExtension");
+		control.setAttribute("disposalMethod", "doNotDispose");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", String.valueOf(delay));
+		control.setAttribute("transparentColorIndex", "0");
+
+		if(first)
+		{
+			IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+			loop.setAttribute("applicationID", "NETSCAPE");
+			loop.setAttribute("authenticationCode", "2.0");
+			loop.setUserObject(new byte[] { 1, 0, 0 });		// loop forever
+			child(root, "ApplicationExtensions").appendChild(loop);
+		}
+
+		metadata.setFromTree(FORMAT, root);
+		writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+	}
+
+	/**
+	 * Finds a child of a metadata node by name, adding it if there is none
+	 * 
+	 * @param node	The metadata node
+	 * @param name	The name of the child
+	 * @return		The child
+	 */
+	private static IIOMetadataNode child(IIOMetadataNode node, String name)
+	{
+		for(int i=0; i<node.getLength(); i++)
+		{
+			if(node.item(i).getNodeName().equals(name)) return (IIOMetadataNode)node.item(i);
+		}
+		IIOMetadataNode child = new IIOMetadataNode(name);
+		node.appendChild(child);
+		return child;
+	}
+}
\ No newline at end of file
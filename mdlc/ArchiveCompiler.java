@@ -0,0 +1,134 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import mdlg.ShardWriter;
+import mdlg.Stats;
+
+/**
+ * Compiles the mazes of a shard of an archive (a ZIP file, as written by MDLG --archive) into a matching shard of
+ * outputs, named after the shard with -compiled appended, holding the outputs of each maze under the name of the
+ * maze with the extension of the output mode (e.g. maze-000000042.png for maze-000000042.maze).
+ * 
+ * The mazes are read straight from the shard and compiled into memory by a pool of threads, so no file is created
+ * for any of them. The outputs are written into the output shard in the order of the mazes, as soon as the outputs
+ * of all the mazes before them are done; at most two mazes per thread are compiled ahead, which bounds the memory
+ * held by outputs waiting to be written
+ */
+class ArchiveCompiler
+{
+	/**
+	 * Determines the name of the shard the outputs of a shard of mazes are written into
+	 * 
+	 * @param source	The name of the shard of mazes
+	 * @return			The name of the shard of outputs
+	 */
+	static String outputName(String source)
+	{
+		return source.substring(0, source.lastIndexOf(".")) + "-compiled.zip";
+	}
+
+	/**
+	 * Compiles the mazes of a shard
+	 * 
+	 * @param source		The name of the shard
+	 * @exception Exception	On input/output error, or if a maze is invalid
+	 * @return				The number of mazes compiled
+	 */
+	static int compile(String source) throws Exception
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<LinkedHashMap<String, byte[]>>> pending = new ArrayDeque<Future<LinkedHashMap<String, byte[]>>>();
+		ZipFile zip = new ZipFile(source);
+		ShardWriter out = null;
+		int mazes = 0;
+
+		try {
+			out = new ShardWriter(outputName(source));
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while(entries.hasMoreElements())
+			{
+				final ZipEntry entry = entries.nextElement();
+				if(entry.isDirectory() || !entry.getName().endsWith(".maze")) continue;
+
+				if(pending.size() >= 2 * threads) write(out, pending.poll());
+				pending.add(pool.submit(() -> compileEntry(source, zip, entry)));
+				mazes++;
+			}
+			while(!pending.isEmpty()) write(out, pending.poll());
+		} finally {
+			pool.shutdownNow();
+			if(out != null) out.close();
+			zip.close();
+		}
+		Stats.count("shards", 1);
+		return mazes;
+	}
+
+	/**
+	 * Reads a maze from a shard and compiles it into memory
+	 * 
+	 * @param source		The name of the shard
+	 * @param zip			The shard
+	 * @param entry			The entry of the maze
+	 * @exception Exception	On input error, or if the maze is invalid
+	 * @return				The contents of each output by its name
+	 */
+	private static LinkedHashMap<String, byte[]> compileEntry(String source, ZipFile zip, ZipEntry entry) throws Exception
+	{
+		String name = entry.getName();
+		Description desc;
+		try {
+			desc = Description.readFile(name, new BufferedReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)));
+		} catch(Exception e) {
+			throw(new Exception(source + ": " + name + ": " + e.getMessage(), e));
+		}
+		return Generator.generateOutputs(desc, name.substring(0, name.lastIndexOf(".")));
+	}
+
+	/**
+	 * Waits for the outputs of a maze and writes them into the output shard
+	 * 
+	 * @param out			The output shard
+	 * @param result		The outputs of the maze, being compiled
+	 * @exception Exception	On output error, or on error compiling the maze
+	 * @return				Nothing
+	 */
+	private static void write(ShardWriter out, Future<LinkedHashMap<String, byte[]>> result) throws Exception
+	{
+		LinkedHashMap<String, byte[]> outputs;
+		try {
+			outputs = result.get();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof Exception) throw (Exception)cause;
+			throw (Error)cause;
+		}
+
+		Stats.Phase phase = Stats.begin("write-shard");
+		for(Map.Entry<String, byte[]> output : outputs.entrySet()) out.add(output.getKey(), output.getValue());
+		phase.end();
+	}
+}
\ No newline at end of file
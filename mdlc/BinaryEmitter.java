@@ -0,0 +1,154 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a maze as a binary array of unsigned bytes, one byte per cell in row-major order,
+ * holding the integer placeholder of each cell. The array is either written raw or
+ * preceded by a NumPy (.npy) header
+ */
+class BinaryEmitter
+{
+	/**
+	 * The magic string and format version (1.0) that begin every NumPy file
+	 */
+	private static final byte NPY_MAGIC[] = { (byte)0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0 };
+
+	/**
+	 * Defines whether the array is preceded by a NumPy header
+	 */
+	private final boolean npyHeader;
+
+	/**
+	 * The byte written for each cell-state, indexed by the cell-state constants of the description
+	 */
+	private final byte codes[];
+
+	/**
+	 * Constructor to initialize an emitter
+	 * 
+	 * @param npyHeader	Whether the array is preceded by a NumPy header
+	 * @param desc		A description object supplying the integer placeholders
+	 */
+	private BinaryEmitter(boolean npyHeader, Description desc)
+	{
+		this.npyHeader = npyHeader;
+		this.codes = new byte[] { (byte)desc.pathInt, (byte)desc.wallInt, (byte)desc.visitedInt, (byte)desc.positionInt };
+	}
+
+	/**
+	 * Creates the emitter for a given binary output mode
+	 * 
+	 * @param mode			The output mode
+	 * @param desc			A description object supplying the integer placeholders
+	 * @return				The emitter for that mode, or null if the mode does not produce a binary array
+	 * @exception Exception	If the integer placeholders do not fit in an unsigned byte
+	 */
+	protected static BinaryEmitter forMode(Mode mode, Description desc) throws Exception
+	{
+		switch(mode)
+		{
+			case NPY_UINT8:
+				checkByteRange(desc);
+				return new BinaryEmitter(true, desc);
+
+			case RAW_UINT8:
+				checkByteRange(desc);
+				return new BinaryEmitter(false, desc);
+
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Ensures that every integer placeholder can be stored in an unsigned byte
+	 * 
+	 * @param desc			A description object supplying the integer placeholders
+	 * @exception Exception	If a placeholder lies outside the range 0 to 255
+	 * @return				Nothing
+	 */
+	protected static void checkByteRange(Description desc) throws Exception
+	{
+		int x[] = { desc.pathInt, desc.wallInt, desc.visitedInt, desc.positionInt };
+		for(int i=0; i<x.length; i++)
+		{
+			if(x[i] < 0 || x[i] > 255) throw(new Exception("placeholder-int value " + x[i] + " does not fit in an unsigned byte"));
+		}
+	}
+
+	/**
+	 * Writes the maze as a binary array into a file
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param outputFile	The path to the output file
+	 * @exception IOException	On output error
+	 * @return 				Nothing
+	 */
+	protected void emit(Description desc, String outputFile) throws IOException
+	{
+		OutputStream out = new FileOutputStream(outputFile);
+		try {
+			emit(desc, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the maze as a binary array into a stream, one row at a time
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param out			The stream to write to; it is not closed
+	 * @exception IOException	On output error
+	 * @return 				Nothing
+	 */
+	protected void emit(Description desc, OutputStream out) throws IOException
+	{
+		if(npyHeader) out.write(npyHeader(desc.height, desc.width));
+
+		byte row[] = new byte[desc.width];
+		for(int r=0; r<desc.height; r++)
+		{
+			desc.rowStates(r, row);
+			for(int c=0; c<desc.width; c++) row[c] = codes[row[c]];
+			out.write(row);
+		}
+	}
+
+	/**
+	 * Builds a version 1.0 NumPy header describing a C-ordered two-dimensional array of unsigned bytes
+	 * 
+	 * @param height	The number of rows in the array
+	 * @param width		The number of columns in the array
+	 * @return			The header, padded so that the array data begins on a 64-byte boundary
+	 */
+	private static byte[] npyHeader(int height, int width)
+	{
+		StringBuffer dict = new StringBuffer("{'descr': '|u1', 'fortran_order': False, 'shape': (" + height + ", " + width + "), }");
+		int prefix = NPY_MAGIC.length + 2;
+		while((prefix + dict.length() + 1) % 64 != 0) dict.append(' ');
+		dict.append('\n');
+
+		byte text[] = dict.toString().getBytes(StandardCharsets.US_ASCII);
+		byte header[] = new byte[prefix + text.length];
+		System.arraycopy(NPY_MAGIC, 0, header, 0, NPY_MAGIC.length);
+		header[NPY_MAGIC.length] = (byte)(text.length & 0xff);				// header length, little-endian
+		header[NPY_MAGIC.length+1] = (byte)((text.length >> 8) & 0xff);
+		System.arraycopy(text, 0, header, prefix, text.length);
+		return header;
+	}
+}
\ No newline at end of file
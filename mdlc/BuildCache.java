@@ -0,0 +1,249 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The index used by incremental compiles (--incremental) to skip maze files whose outputs are still valid.
+ * 
+ * Every compiled file is recorded with a key, the SHA-256 hash of the compiler version, the contents of the file and
+ * the contents of the sprite images it refers to, together with the outputs written and their sizes. A file is up to
+ * date if its key is unchanged and all of its outputs still exist with the recorded sizes, so checking it costs one
+ * pass over the file (hashing it and picking out the sprite settings) and each sprite is hashed once per run.
+ * The index is a text file with one tab-separated line per maze file: path, key, then each output and its size
+ */
+class BuildCache
+{
+	/**
+	 * The first line of the index, identifying its format
+	 */
+	private static final String HEADER = "mdlc-cache 1";
+
+	/**
+	 * The index file
+	 */
+	private final File indexFile;
+
+	/**
+	 * The entries of the index: the key, outputs and sizes of every maze file, by absolute path
+	 */
+	private final HashMap<String, String[]> entries;
+
+	/**
+	 * The hashes of the sprite images already read during this run, by path
+	 */
+	private final HashMap<String, byte[]> spriteHashes;
+
+	/**
+	 * Constructor to load the index from a file, or to start an empty index if the file does not exist or is not an index
+	 * 
+	 * @param indexFile			The path to the index file
+	 * @exception IOException	On input error
+	 */
+	BuildCache(String indexFile) throws IOException
+	{
+		this.indexFile = new File(indexFile);
+		this.entries = new HashMap<String, String[]>();
+		this.spriteHashes = new HashMap<String, byte[]>();
+		if(!this.indexFile.exists()) return;
+
+		BufferedReader br = new BufferedReader(new FileReader(this.indexFile));
+		try {
+			if(!HEADER.equals(br.readLine())) return;
+			String line;
+			while((line = br.readLine()) != null)
+			{
+				String x[] = line.split("\t");
+				if(x.length >= 2 && x.length % 2 == 0) entries.put(x[0], x);
+			}
+		} finally {
+			br.close();
+		}
+	}
+
+	/**
+	 * Computes the key of a maze file
+	 * 
+	 * @param source		The path to the maze file
+	 * @return				The key, as a hexadecimal string
+	 * @exception Exception	On input error
+	 */
+	String key(String source) throws Exception
+	{
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		digest.update(MDLC.VERSION.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)0);
+
+		// hash the file, collecting the settings lines (those starting with '[') on the way
+		List<String> settings = new ArrayList<String>();
+		StringBuilder setting = null;
+		boolean lineStart = true;
+		byte buffer[] = new byte[1 << 16];
+		InputStream in = new FileInputStream(source);
+		try {
+			int n;
+			while((n = in.read(buffer)) > 0)
+			{
+				digest.update(buffer, 0, n);
+				for(int i=0; i<n; i++)
+				{
+					byte b = buffer[i];
+					if(b == '\n' || b == '\r') {
+						if(setting != null) settings.add(setting.toString());
+						setting = null;
+						lineStart = true;
+					} else if(setting != null) {
+						setting.append((char)(b & 0xff));
+					} else if(lineStart && b == '[') {
+						setting = new StringBuilder("[");
+						lineStart = false;
+					} else if(b != ' ' && b != '\t') {
+						lineStart = false;
+					}
+				}
+			}
+			if(setting != null) settings.add(setting.toString());
+		} finally {
+			in.close();
+		}
+
+		// add the sprites, read the same way as Description does
+		for(String s : settings)
+		{
+			String line = s.trim().replace(" ", "").toLowerCase();
+			if(!line.endsWith("]") || !(line.startsWith("[visited-sprite:") || line.startsWith("[position-sprite:"))) continue;
+
+			String path = Description.imagePath(line.substring(line.indexOf(':') + 1, line.length() - 1).trim());
+			if(path == null) continue;
+			digest.update((byte)0);
+			digest.update(path.getBytes(StandardCharsets.UTF_8));
+			digest.update(spriteHash(path));
+		}
+
+		byte hash[] = digest.digest();
+		char hex[] = new char[2 * hash.length];
+		for(int i=0; i<hash.length; i++)
+		{
+			hex[2*i] = Character.forDigit((hash[i] >> 4) & 0xf, 16);
+			hex[2*i + 1] = Character.forDigit(hash[i] & 0xf, 16);
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Determines whether the outputs of a maze file are still valid
+	 * 
+	 * @param source	The path to the maze file
+	 * @param key		The current key of the file
+	 * @return			A boolean indicating whether the file was compiled with the same key and its outputs are unchanged
+	 */
+	boolean isUpToDate(String source, String key)
+	{
+		String entry[] = entries.get(absolutePath(source));
+		if(entry == null || !entry[1].equals(key)) return false;
+
+		for(int i=2; i<entry.length; i+=2)
+		{
+			File output = new File(entry[i]);
+			if(!output.isFile() || output.length() != Long.parseLong(entry[i+1])) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Records a maze file that has just been compiled
+	 * 
+	 * @param source	The path to the maze file
+	 * @param key		The key of the file
+	 * @param outputs	The paths to the output files written
+	 * @return			Nothing
+	 */
+	void update(String source, String key, List<String> outputs)
+	{
+		String entry[] = new String[2 + 2 * outputs.size()];
+		entry[0] = absolutePath(source);
+		entry[1] = key;
+		for(int i=0; i<outputs.size(); i++)
+		{
+			entry[2 + 2*i] = absolutePath(outputs.get(i));
+			entry[3 + 2*i] = String.valueOf(new File(outputs.get(i)).length());
+		}
+		entries.put(entry[0], entry);
+	}
+
+	/**
+	 * Writes the index to its file, replacing the old index only once the new one is complete
+	 * 
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	void save() throws IOException
+	{
+		File temp = new File(indexFile.getPath() + ".tmp");
+		BufferedWriter bw = new BufferedWriter(new FileWriter(temp), 1 << 16);
+		try {
+			bw.write(HEADER + "\n");
+			for(String entry[] : entries.values())
+			{
+				bw.write(String.join("\t", entry));
+				bw.write('\n');
+			}
+		} finally {
+			bw.close();
+		}
+		Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Returns the hash of the contents of a sprite image, reading it only the first time it is needed during a run
+	 * 
+	 * @param path			The path to the image file
+	 * @return				The SHA-256 hash of the file, or an empty array if it cannot be read
+	 * @exception Exception	On error computing the hash
+	 */
+	private byte[] spriteHash(String path) throws Exception
+	{
+		byte hash[] = spriteHashes.get(path);
+		if(hash == null)
+		{
+			File file = new File(path);
+			hash = (file.isFile() ? MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath())) : new byte[0]);
+			spriteHashes.put(path, hash);
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the absolute form of a path, under which a maze file is recorded in the index
+	 * 
+	 * @param path	The path
+	 * @return		The absolute, normalised path
+	 */
+	private static String absolutePath(String path)
+	{
+		return new File(path).toPath().toAbsolutePath().normalize().toString();
+	}
+}
\ No newline at end of file
@@ -11,21 +11,46 @@
 package mdlc;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.ArrayList;
+import mdlg.Stats;
 
 /**
  * This class encapsulates the maze description, read from the MDL file
  */
-class Description
+class Description implements Cloneable
 {
 	/**
-	 * Defines the output mode of the compiler: to generate code or image
+	 * Cell-state of a vacant cell, also used as an index into the path/wall/visited/current-position placeholders
 	 */
-	protected Mode outputMode;
+	protected static final int CELL_PATH = 0;
+
+	/**
+	 * Cell-state of a blocked cell
+	 */
+	protected static final int CELL_WALL = 1;
+
+	/**
+	 * Cell-state of a vacant cell lying on a visited path
+	 */
+	protected static final int CELL_VISITED = 2;
+
+	/**
+	 * Cell-state of the cell at the current position
+	 */
+	protected static final int CELL_POSITION = 3;
+
+	/**
+	 * Defines the output modes of the compiler: to generate code, binary arrays or images.
+	 * One output is generated for each mode in the list
+	 */
+	protected Mode outputModes[];
 
 	/**
 	 * Defines whether a thin grid will be visible to separate individual cells in the maze
@@ -115,6 +140,11 @@ class Description
 	 */
 	protected BufferedImage visitedSprite;
 
+	/**
+	 * The paths to the image files of the position and visited sprites, read once the unit is known
+	 */
+	private String positionSpriteFile, visitedSpriteFile;
+
 	/**
 	 * Defines the width of the maze (in number of cells)
 	 */
@@ -140,38 +170,78 @@ class Description
 	 */
 	protected Coordinate currentPosition;
 
+	/**
+	 * Defines whether the shortest path from the entrance to the exit will be found and marked as visited
+	 */
+	protected boolean solveShortest;
+
+	/**
+	 * Defines the color of the visited-path marking the shortest path from the entrance to the exit
+	 */
+	protected Color solutionColor;
+
 	/**
 	 * Defines the size of each cell (in pixels)
 	 */
 	protected int squareSize;
 
 	/**
-	 * Stores the actual maze
+	 * Defines the number of visited paths added in each frame of an animation (gif output mode)
+	 */
+	protected int frameStep;
+
+	/**
+	 * Defines the time (in milliseconds) for which each frame of an animation is shown
+	 */
+	protected int frameDelay;
+
+	/**
+	 * Stores the visited paths in the order they are marked, together with their colors, from which an animation is
+	 * drawn; null unless the gif output mode is requested before the visited paths are defined
 	 */
-	protected SquareType maze[][];
+	protected ArrayList<Coordinate[]> tracePaths;
 
 	/**
-	 * Stores the status of each cell as 
-	 * an ArrayList of directions representing the visited-path line shape
+	 * Stores the color of each visited path in tracePaths
 	 */
-	protected Object visitStatus[][];
+	protected ArrayList<Color> traceColors;
 
 	/**
-	 * Stores the status of each cell as an ArrayList of colors 
-	 * representing the visited path in case of multiple visited 
-	 * paths of different colors
+	 * Stores the actual maze, together with the visited paths of each cell
+	 * (as ArrayLists of the directions and colors of the visited-path lines)
 	 */
-	protected Object visitedPathColor[][];
+	protected Grid maze;
 
 	/**
-	 * Stores the strings representing the specified paths indexed by a path ID
+	 * Defines whether row statements are parsed in parallel (--parallel-parse)
 	 */
-	private static HashMap<Integer, String> allLines;
+	static boolean parallelRows = false;
 
 	/**
-	 * Stores the initial coordinates of each path indexed by a path ID
+	 * Defines whether files are read through memory-mapping (--mmap) rather than through a reader
 	 */
-	private static HashMap<Integer, Coordinate> lineCoords;
+	static boolean mappedInput = false;
+
+	/**
+	 * Defines the number of cells from which the cells of a maze are stored outside the Java heap (--off-heap),
+	 * or -1 to always store them on the heap
+	 */
+	static long offHeapCells = -1;
+
+	/**
+	 * Defines the directory of the memory-mapped files holding the cells stored outside the heap, or null to use direct memory
+	 */
+	static File offHeapDirectory = null;
+
+	/**
+	 * Stores the strings representing the specified paths indexed by a path ID, while the file is read
+	 */
+	private HashMap<Integer, String> allLines;
+
+	/**
+	 * Stores the initial coordinates of each path indexed by a path ID, while the file is read
+	 */
+	private HashMap<Integer, Coordinate> lineCoords;
 
 	/**
 	 * Default constructor to initialize all maze settings to their default values
@@ -187,14 +257,19 @@ class Description
 		this.showIndices = true;
 
 		this.maze = null;
-		this.visitStatus = null;
-		this.visitedPathColor = null;
 		
 		this.entrance = null;
 		this.exit = null;
 		this.currentPosition = null;
 
+		this.solveShortest = false;
+		this.solutionColor = Color.LIGHT_GRAY;
+
 		this.squareSize = 25;
+		this.frameStep = 1;
+		this.frameDelay = 100;
+		this.tracePaths = null;
+		this.traceColors = null;
 		this.positionSprite = null;
 		this.visitedSprite = null;
 
@@ -208,7 +283,65 @@ class Description
 		this.visitedInt = 2;
 		this.positionInt = 3;
 
-		this.outputMode = Mode.PNG;
+		this.outputModes = new Mode[] { Mode.PNG };
+	}
+
+	/**
+	 * Creates a copy of this description in which no cell has been visited, sharing everything but the visited paths
+	 * 
+	 * @return				The copy
+	 * @exception Exception	If the description cannot be copied
+	 */
+	protected Description withoutVisitedPaths() throws Exception
+	{
+		Description copy = (Description)super.clone();
+		copy.maze = this.maze.withoutVisitedPaths();
+		copy.tracePaths = null;
+		copy.traceColors = null;
+		return copy;
+	}
+
+	/**
+	 * Determines the state of a cell, as written by the text output modes
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	One of the cell-state constants: CELL_PATH, CELL_WALL, CELL_VISITED or CELL_POSITION
+	 */
+	protected int cellState(int r, int c)
+	{
+		if(!this.maze.isPath(r, c)) return CELL_WALL;
+		if(this.currentPosition != null && this.currentPosition.row == r && this.currentPosition.col == c) return CELL_POSITION;
+		if(this.maze.visits(r, c) != null) return CELL_VISITED;
+		return CELL_PATH;
+	}
+
+	/**
+	 * Determines the state of every cell of a row, as cellState() does, one tile at a time: the cells of a tile
+	 * without visited paths are read from the bits of the tile
+	 * 
+	 * @param r			The row-index
+	 * @param states	The array to store the state of each cell into, at least as long as the width of the maze
+	 * @return			Nothing
+	 */
+	protected void rowStates(int r, byte states[])
+	{
+		for(int c=0; c<this.width; )
+		{
+			int end = this.maze.tileEnd(c);
+			if(this.maze.hasNoVisits(r, c)) {
+				long bits = this.maze.pathBits(r, c);
+				for(int i=c; i<end; i++) states[i] = (byte)((bits & (1L << i)) != 0 ? CELL_PATH : CELL_WALL);
+				if(this.currentPosition != null && this.currentPosition.row == r && this.currentPosition.col >= c &&
+					this.currentPosition.col < end && states[this.currentPosition.col] == CELL_PATH)
+				{
+					states[this.currentPosition.col] = CELL_POSITION;
+				}
+			} else {
+				for(int i=c; i<end; i++) states[i] = (byte)cellState(r, i);
+			}
+			c = end;
+		}
 	}
 
 	/**
@@ -220,102 +353,219 @@ class Description
 	 */
 	protected static Description readFile(String filename) throws Exception
 	{
-		allLines = new HashMap<Integer, String>();
-		lineCoords = new HashMap<Integer, Coordinate>();
+		return readFile(filename, null);
+	}
+
+	/**
+	 * Reads a maze-description from a MDL file, or from a reader already opened on its contents (such as an entry of
+	 * an archive), which is never memory-mapped
+	 * 
+	 * @param filename		The MDL-file to read from, if no reader is given
+	 * @param in			The reader to read from, which is closed once read, or null to open the file
+	 * @return 				A description-object describing the maze
+	 * @exception Exception	On input error or on encountering invalid settings
+	 */
+	protected static Description readFile(String filename, BufferedReader in) throws Exception
+	{
+		Stats.Phase phase = Stats.begin("read-file");
+		Stats.Timer reading = Stats.timer("read-lines"), settings = Stats.timer("parse-settings"), rows = Stats.timer("parse-rows");
+		Stats.Timer paths = Stats.timer("carve-paths"), overlays = Stats.timer("build-overlays");
+		Stats.Timer generated = Stats.timer("expand-generated");
+		long rowCount = 0;
 
 		Description desc = new Description();
-		BufferedReader br = new BufferedReader(new FileReader(filename));
+		desc.allLines = new HashMap<Integer, String>();
+		desc.lineCoords = new HashMap<Integer, Coordinate>();
+		MappedLineReader mapped = (mappedInput && in == null ? new MappedLineReader(filename) : null);
+		BufferedReader br = (mapped != null ? null : in != null ? in : new BufferedReader(new FileReader(filename)));
+		RowParser rowParser = null;
 
 		String line = null;
 		int lc = 1;
 
-		line = br.readLine();
-		if(!line.startsWith("[version:")) 
-		{
-			br.close();
-			throw(new Exception("Line " + lc + ": expected version information"));
-		} else {
-			String ver = extract(line.trim(), "[version:", "]").trim();
-			if(!ver.equalsIgnoreCase(MDLC.VERSION))
-			{
-				br.close();
-				throw(new Exception("Line " + lc + ": cannot read files of version '" + ver + "', expected: '" + MDLC.VERSION + "'"));
+		try {
+			if(mapped == null) {
+				line = br.readLine();
+			} else {
+				ByteBuffer bytes = mapped.next();
+				line = (bytes == null ? null : MappedLineReader.decode(bytes));
 			}
-		}
 
-		while((line = br.readLine()) != null)
-		{
-			lc++;
-			line = line.trim().replace("\n","").replace(" ","").replace("\r","").toLowerCase();
-			if(line.length()==0) continue;
+			if(!line.startsWith("[version:")) 
+			{
+				throw(new Exception("Line " + lc + ": expected version information"));
+			} else {
+				String ver = extract(line.trim(), "[version:", "]").trim();
+				if(!ver.equalsIgnoreCase(MDLC.VERSION))
+					throw(new Exception("Line " + lc + ": cannot read files of version '" + ver + "', expected: '" + MDLC.VERSION + "'"));
+			}
 
-			if(line.startsWith("["))							// settings definition
+			if(parallelRows) rowParser = new RowParser(desc);
+			while(true)
 			{
-				if(!processSettings(desc, line))
-				{
-					br.close();
-					throw(new Exception("Line " + lc + ": invalid syntax"));
-				}
-			} else if(line.startsWith("p") && Character.isDigit(line.charAt(1))) {		// path definition
-				if(desc.maze == null) {
-					br.close();
-					throw(new Exception("Line " + lc + ": maze size must be defined prior to defining paths"));
+				if(mapped == null) {
+					reading.start();
+					line = br.readLine();
+					reading.stop();
+					if(line == null) break;
+					lc++;
 				} else {
-					if(!processPath(desc, line.substring(1)))
-					{
-						br.close();
-						throw(new Exception("Line " + lc + ": invalid syntax"));
+					reading.start();
+					ByteBuffer bytes = mapped.next();
+					reading.stop();
+					if(bytes == null) break;
+					lc++;
+
+					// row statements are parsed straight from the bytes of the file
+					int row = (desc.maze == null ? -1 : rowIndex(bytes, desc.height));
+					if(row >= 0 && rowParser != null) {
+						rowParser.add(bytes, row, lc);
+						continue;
+					} else if(row >= 0) {
+						rows.start();
+						boolean valid = processRow(desc, row, bytes);
+						rows.stop();
+						if(!valid) throw(new Exception("Line " + lc + ": invalid syntax"));
+						rowCount++;
+						continue;
 					}
+					line = MappedLineReader.decode(bytes);
 				}
-			} else if(line.startsWith("r") && Character.isDigit(line.charAt(1))) {		// row definition
-				if(desc.maze == null) {
-					br.close();
-					throw(new Exception("Line " + lc + ": maze size must be defined prior to defining rows"));
-				} else {
-					if(!processRow(desc, line.substring(1)))
+
+				if(rowParser != null)
+				{
+					if(rowParser.add(line, lc)) continue;
+					rowParser.barrier();
+				}
+
+				reading.start();
+				line = normalize(line);
+				reading.stop();
+				if(line.length()==0) continue;
+
+				if(line.startsWith("[generated:") && line.endsWith("]")) {		// maze in compact form
+					if(desc.maze == null) {
+						throw(new Exception("Line " + lc + ": maze size must be defined prior to expanding a generated maze"));
+					} else {
+						generated.start();
+						try {
+							processGenerated(desc, line.substring("[generated:".length(), line.length()-1));
+						} catch(Exception e) {
+							throw(new Exception("Line " + lc + ": " + e.getMessage()));
+						}
+						generated.stop();
+					}
+				} else if(line.startsWith("["))							// settings definition
+				{
+					settings.start();
+					if(!processSettings(desc, line))
 					{
-						br.close();
 						throw(new Exception("Line " + lc + ": invalid syntax"));
 					}
-				}
-			} else if(line.startsWith("v:") || line.startsWith("vc:")) {
-				// mark path as visited
-				if(desc.maze == null) {
-					br.close();
-					throw(new Exception("Line " + lc + ": maze size must be defined prior to defining visited paths"));
-				} else {
-					if(line.startsWith("v:"))
-					{
-						if(!processVisitedPath(desc, line))
+					settings.stop();
+				} else if(line.startsWith("p") && Character.isDigit(line.charAt(1))) {		// path definition
+					if(desc.maze == null) {
+						throw(new Exception("Line " + lc + ": maze size must be defined prior to defining paths"));
+					} else {
+						paths.start();
+						if(!processPath(desc, line.substring(1)))
 						{
-							br.close();
 							throw(new Exception("Line " + lc + ": invalid syntax"));
 						}
+						paths.stop();
+					}
+				} else if(line.startsWith("r") && Character.isDigit(line.charAt(1))) {		// row definition
+					if(desc.maze == null) {
+						throw(new Exception("Line " + lc + ": maze size must be defined prior to defining rows"));
 					} else {
-						if(!processVisitedPathInCoordinates(desc, line))
+						rows.start();
+						if(!processRow(desc, line.substring(1)))
 						{
-							br.close();
 							throw(new Exception("Line " + lc + ": invalid syntax"));
 						}
+						rows.stop();
+						rowCount++;
 					}
+				} else if(line.startsWith("v:") || line.startsWith("vc:")) {
+					// mark path as visited
+					if(desc.maze == null) {
+						throw(new Exception("Line " + lc + ": maze size must be defined prior to defining visited paths"));
+					} else {
+						overlays.start();
+						if(line.startsWith("v:"))
+						{
+							if(!processVisitedPath(desc, line))
+							{
+								throw(new Exception("Line " + lc + ": invalid syntax"));
+							}
+						} else {
+							if(!processVisitedPathInCoordinates(desc, line))
+							{
+								throw(new Exception("Line " + lc + ": invalid syntax"));
+							}
+						}
+						overlays.stop();
+					}
+				} else {
+					throw(new Exception("Line " + lc + ": unexpected statement"));
 				}
-			} else {
-				br.close();
-				throw(new Exception("Line " + lc + ": unexpected statement"));
 			}
+
+			if(rowParser != null)
+			{
+				rowParser.barrier();
+				rowCount += rowParser.rows();
+			}
+		} finally {
+			if(rowParser != null) rowParser.close();
+			if(mapped != null) mapped.close();
+			if(br != null) br.close();
 		}
 
-		br.close();
+		reading.close();
+		settings.close();
+		rows.close();
+		paths.close();
+		overlays.close();
+		generated.close();
+		phase.end();
+		Stats.count("rows", rowCount);
+
+		desc.visitedSprite = loadImage(desc.visitedSpriteFile, desc.squareSize);
+		desc.positionSprite = loadImage(desc.positionSpriteFile, desc.squareSize);
 
 		if(desc.maze != null)
 		{
-			if(desc.entrance!=null) desc.maze[desc.entrance.row][desc.entrance.col] = SquareType.PATH;
-			if(desc.exit!=null) desc.maze[desc.exit.row][desc.exit.col] = SquareType.PATH;
+			Stats.count("cells", (long)desc.width * desc.height);
+			Stats.count("grid-tiles", desc.maze.tiles());
+			if(desc.entrance!=null) desc.maze.set(desc.entrance.row, desc.entrance.col, SquareType.PATH);
+			if(desc.exit!=null) desc.maze.set(desc.exit.row, desc.exit.col, SquareType.PATH);
+
+			if(desc.solveShortest)
+			{
+				if(desc.entrance == null || desc.exit == null) throw(new Exception("Entrance and exit must be defined to find the shortest path"));
+				Stats.Phase solve = Stats.begin("solve");
+				Coordinate solution[] = ShortestPath.solve(desc, desc.entrance, desc.exit);
+				solve.end();
+				if(solution == null) throw(new Exception("There is no path from the entrance to the exit"));
+				markVisitedPath(desc, solution, desc.solutionColor);
+			}
 		}
 
 		return desc;
 	}
 
+	/**
+	 * Brings a line of a file to the form in which statements are parsed: without spaces and line breaks, in lower case
+	 * 
+	 * @param line	The line, as read from the file
+	 * @return		The normalised line
+	 */
+	protected static String normalize(String line)
+	{
+		return line.trim().replace("\n","").replace(" ","").replace("\r","").toLowerCase();
+	}
+
 	/**
 	 * An utility function used to extract a portion of a string with the given prefix and suffix
 	 * 
@@ -333,14 +583,50 @@ class Description
 		return res.substring(0, res.length()-suffix.length());
 	}
 
+	/**
+	 * Expands a maze given in compact form by generating it again with MDLG, from the algorithm, seed and size given
+	 * in the generated setting. The rows are written into the maze from its top-left corner, so rows, paths and
+	 * overlays given after the setting apply on top of the generated maze
+	 * 
+	 * @param desc			A description-object to store the maze into
+	 * @param value			The value of the generated setting
+	 * @exception Exception	On an invalid setting, or if the generated maze does not fit the maze size
+	 * @return 				Nothing
+	 */
+	private static void processGenerated(final Description desc, String value) throws Exception
+	{
+		mdlg.MDLG.generateMaze(value, new mdlg.MazeRowWriter() {
+			int r = 0;
+
+			@Override
+			public void writeRow(boolean row[]) throws IOException
+			{
+				if(r >= desc.height || row.length > desc.width) throw(new IOException("generated maze does not fit the maze size"));
+				for(int c=0; c<row.length; c+=Grid.TILE)
+				{
+					int end = Math.min(c + Grid.TILE, row.length);
+					long paths = 0, mask = 0;
+					for(int i=c; i<end; i++)
+					{
+						if(row[i]) paths |= 1L << i;
+						mask |= 1L << i;
+					}
+					desc.maze.setBits(r, c, paths, mask);
+				}
+				r++;
+			}
+		});
+	}
+
 	/**
 	 * Processes configuration settings for the maze
 	 * 
-	 * @param desc	A description-object to store the settings into
-	 * @param line	The setting read from file
-	 * @return 		A boolean value indicating whether or not the setting was a valid setting with proper syntax
+	 * @param desc			A description-object to store the settings into
+	 * @param line			The setting read from file
+	 * @exception Exception	On error allocating the maze
+	 * @return 				A boolean value indicating whether or not the setting was a valid setting with proper syntax
 	 */
-	private static boolean processSettings(Description desc, String line)
+	private static boolean processSettings(Description desc, String line) throws Exception
 	{
 		// Syntax:		[setting:value]
 		if(!line.startsWith("[")) return false;
@@ -361,23 +647,26 @@ class Description
 				desc.height = x[0];
 				desc.width = x[1];
 
-				desc.maze = new SquareType[desc.height][desc.width];
-				desc.visitStatus = new Object[desc.height][desc.width];
-				desc.visitedPathColor = new Object[desc.height][desc.width];
-				
-				for(int r=0; r<desc.height; r++)
-				{
-					for(int c=0; c<desc.width; c++)
-					{
-						desc.maze[r][c] = SquareType.WALL;
-						desc.visitStatus[r][c] = null;
-						desc.visitedPathColor[r][c] = null;
-					}
-				}
+				if(offHeapCells >= 0 && (long)desc.height * desc.width >= offHeapCells)
+					desc.maze = new OffHeapGrid(desc.height, desc.width, offHeapDirectory);
+				else
+					desc.maze = new Grid(desc.height, desc.width);
 				break;
 
 			case "output-mode":
-				desc.outputMode = Mode.valueOf(value.toUpperCase());
+				a = value.split(",");
+				ArrayList<Mode> modes = new ArrayList<Mode>();
+				for(int i=0; i<a.length; i++)
+				{
+					Mode mode = Mode.valueOf(a[i].trim().toUpperCase());
+					if(!modes.contains(mode)) modes.add(mode);
+				}
+				desc.outputModes = modes.toArray(new Mode[modes.size()]);
+				if(modes.contains(Mode.GIF) && desc.tracePaths == null)
+				{
+					desc.tracePaths = new ArrayList<Coordinate[]>();
+					desc.traceColors = new ArrayList<Color>();
+				}
 				break;
 
 			case "unit":
@@ -439,11 +728,11 @@ class Description
 				break;
 
 			case "visited-sprite":
-				desc.visitedSprite = loadImage(value);
+				desc.visitedSpriteFile = imagePath(value);
 				break;
 			
 			case "position-sprite":
-				desc.positionSprite = loadImage(value);
+				desc.positionSpriteFile = imagePath(value);
 				break;
 			
 			case "show-grid":
@@ -454,6 +743,26 @@ class Description
 				desc.showIndices = Boolean.parseBoolean(value);
 				break;
 
+			case "solve":
+				if(!value.equals("shortest")) return false;
+				desc.solveShortest = true;
+				break;
+
+			case "solve-color":
+				a = new String[] { value };
+				desc.solutionColor = processColors(a)[0];
+				break;
+
+			case "frame-step":
+				desc.frameStep = Integer.parseInt(value);
+				if(desc.frameStep < 1) return false;
+				break;
+
+			case "frame-delay":
+				desc.frameDelay = Integer.parseInt(value);
+				if(desc.frameDelay < 0) return false;
+				break;
+
 			default:
 				return false;
 		}
@@ -462,17 +771,31 @@ class Description
 	}
 
 	/**
-	 * Reads an image from a file
+	 * Determines the image file named by the value of a sprite setting
+	 * 
+	 * @param value	The value of the setting: a double-quote enclosed path
+	 * @return 		The path to the image file, or null if the value is not enclosed in double-quotes
+	 */
+	protected static String imagePath(String value)
+	{
+		if(!value.startsWith("\"") || !value.endsWith("\"")) return null;
+		return value.substring(1, value.length()-1).trim();
+	}
+
+	/**
+	 * Reads a sprite image through the sprite cache, scaled to the size of a cell
 	 * 
-	 * @param path	Path to the image file to be read
-	 * @return 		A BufferedImage object reference to the image
+	 * @param path	The path to the image file, or null
+	 * @param unit	The size of each cell (in pixels)
+	 * @return 		The sprite image, or null if there is none or it could not be read
 	 */
-	private static BufferedImage loadImage(String path)
+	private static BufferedImage loadImage(String path, int unit)
 	{
-		if(!path.startsWith("\"") || !path.endsWith("\"")) return null;
-		path = path.substring(1, path.length()-1).trim();
+		if(path == null) return null;
 		try {
-			return javax.imageio.ImageIO.read(new java.io.File(path));
+			BufferedImage image = SpriteCache.get(path, unit);
+			if(image == null) System.out.println("Error reading image: " + path);
+			return image;
 		} catch(Exception e) {
 			System.out.println("Error reading image: " + path);
 			return null;
@@ -547,33 +870,19 @@ class Description
 		int colEnd = Integer.parseInt(indices[2].trim());
 		Color visitedColor = (indices.length > 3 ? processColors(new String[] { indices[3].trim() })[0] : Color.LIGHT_GRAY);
 		
-		if(!lineCoords.containsKey(lineIndex)) return false;
+		if(!desc.lineCoords.containsKey(lineIndex)) return false;
 		if(colStart < 0 || colStart > colEnd) return false;
 
-		Coordinate start = lineCoords.get(lineIndex);
+		Coordinate start = new Coordinate(desc.lineCoords.get(lineIndex));
 
-		String lineMoves = allLines.get(lineIndex);
+		String lineMoves = desc.allLines.get(lineIndex);
 		if(colEnd > lineMoves.length()) return false;
 		lineMoves = lineMoves.substring(0, colEnd);
 		
 		if(colStart > 1) start.moveTo(lineMoves.substring(0,colStart-1));
 		Coordinate coords[] = start.moveTo(lineMoves.substring(colStart > 0 ? colStart-1 : 0));
 		
-		for(int i=0; i<coords.length; i++)
-		{
-			int r = coords[i].row, c = coords[i].col;
-			
-			Object obj1 = desc.visitStatus[r][c];
-			ArrayList<VisitDirection> list1 = (obj1 == null ? new ArrayList<VisitDirection>() : (ArrayList<VisitDirection>)obj1);
-			list1.add(getVisitDirection(i, coords));
-			desc.visitStatus[r][c] = list1;
-
-			Object obj2 = desc.visitedPathColor[r][c];
-			ArrayList<Color> list2 = (obj2 == null ? new ArrayList<Color>() : (ArrayList<Color>)obj2);
-			list2.add(visitedColor);
-			desc.visitedPathColor[r][c] = list2;
-		}
-
+		markVisitedPath(desc, coords, visitedColor);
 		return true;
 	}
 	
@@ -608,22 +917,54 @@ class Description
 			if(i > 0 && !coords[i].isAdjacent(coords[i-1])) return false;
 		}
 
+		markVisitedPath(desc, coords, visitedColor);
+		return true;
+	}
+
+	/**
+	 * Marks a sequence of adjacent cells as a visited path of a given color
+	 * 
+	 * @param desc			A description object to store the path information into
+	 * @param coords		The coordinates of the cells on the path, in order
+	 * @param visitedColor	The color of the visited path
+	 * @return				Nothing
+	 */
+	private static void markVisitedPath(Description desc, Coordinate coords[], Color visitedColor)
+	{
+		if(coords.length < 2) return;		// a single cell has no direction to draw
+		Stats.count("overlay-entries", coords.length);
+		if(desc.tracePaths != null)
+		{
+			desc.tracePaths.add(coords);
+			desc.traceColors.add(visitedColor);
+		}
+		addVisitedPath(desc, coords, visitedColor);
+	}
+
+	/**
+	 * Adds a sequence of adjacent cells to the visited paths of the cells, without recording it for an animation
+	 * 
+	 * @param desc			A description object to store the path information into
+	 * @param coords		The coordinates of the cells on the path, in order (at least two)
+	 * @param visitedColor	The color of the visited path
+	 * @return				Nothing
+	 */
+	protected static void addVisitedPath(Description desc, Coordinate coords[], Color visitedColor)
+	{
+
 		for(int i=0; i<coords.length; i++)
 		{
 			int r = coords[i].row, c = coords[i].col;
 
-			Object obj1 = desc.visitStatus[r][c];
+			Object obj1 = desc.maze.visits(r, c);
 			ArrayList<VisitDirection> list1 = (obj1 == null ? new ArrayList<VisitDirection>() : (ArrayList<VisitDirection>)obj1);
 			list1.add(getVisitDirection(i, coords));
-			desc.visitStatus[r][c] = list1;
 
-			Object obj2 = desc.visitedPathColor[r][c];
+			Object obj2 = desc.maze.colors(r, c);
 			ArrayList<Color> list2 = (obj2 == null ? new ArrayList<Color>() : (ArrayList<Color>)obj2);
 			list2.add(visitedColor);
-			desc.visitedPathColor[r][c] = list2;
+			desc.maze.setVisits(r, c, list1, list2);
 		}
-
-		return true;
 	}
 
 	/** 
@@ -639,7 +980,7 @@ class Description
 		int pos = line.indexOf(":");
 		if(pos < 0) return false;
 		int pathNumber = Integer.parseInt(line.substring(0,pos).trim());
-		if(lineCoords.containsKey(pathNumber)) return false;
+		if(desc.lineCoords.containsKey(pathNumber)) return false;
 
 		char x = line.charAt(pos+1);
 		Coordinate start = null;
@@ -648,12 +989,12 @@ class Description
 		if(x=='e')
 		{
 			if(desc.entrance == null) return false;
-			lineCoords.put(pathNumber, desc.entrance);
+			desc.lineCoords.put(pathNumber, desc.entrance);
 			start = new Coordinate(desc.entrance);
 			mode = 1;
 		} else if(x == 'x') {
 			if(desc.exit == null) return false;
-			lineCoords.put(pathNumber, desc.exit);
+			desc.lineCoords.put(pathNumber, desc.exit);
 			start = new Coordinate(desc.exit);
 			mode = 2;
 		} else if(x == 'p') {
@@ -666,9 +1007,9 @@ class Description
 			int lineIndex = Integer.parseInt(coords[0]);
 			int colIndex = Integer.parseInt(coords[1]);
 
-			if(lineIndex==pathNumber || !lineCoords.containsKey(lineIndex)) return false;		// self/forward reference not allowed
-			start = determineCoordinateFromLine(lineIndex, colIndex);
-			lineCoords.put(pathNumber, start);
+			if(lineIndex==pathNumber || !desc.lineCoords.containsKey(lineIndex)) return false;		// self/forward reference not allowed
+			start = determineCoordinateFromLine(desc, lineIndex, colIndex);
+			desc.lineCoords.put(pathNumber, start);
 		} else if(x == 'c') {
 			// Syntax:	c(row,col)
 			k = line.indexOf(")");
@@ -680,7 +1021,7 @@ class Description
 			int colIndex = Integer.parseInt(coords[1]);
 
 			start = new Coordinate(rowIndex, colIndex);
-			lineCoords.put(pathNumber, start);
+			desc.lineCoords.put(pathNumber, start);
 		}
 
 		if(mode<=2)
@@ -692,13 +1033,14 @@ class Description
 
 		String lineMoves = enumerateMoves(line);
 		if(lineMoves == null) return false;
-		allLines.put(pathNumber, lineMoves);
+		desc.allLines.put(pathNumber, lineMoves);
 		
 		Coordinate coords[] = start.moveTo(lineMoves);
 		for(int i=0; i<coords.length; i++)
 		{
-			desc.maze[coords[i].row][coords[i].col] = SquareType.PATH;
+			desc.maze.set(coords[i].row, coords[i].col, SquareType.PATH);
 		}
+		Stats.count("path-steps", coords.length);
 		
 		return true;
 	}
@@ -711,7 +1053,7 @@ class Description
 	 * @exception Exception On processing error
 	 * @return 				A boolean indicating whether the row was successfully processed 
 	 */
-	private static boolean processRow(Description desc, String line) throws Exception
+	protected static boolean processRow(Description desc, String line) throws Exception
 	{
 		int pos = line.indexOf(":");
 		if(pos < 0) return false;
@@ -721,29 +1063,114 @@ class Description
 		String data = line.substring(pos+1).trim().toLowerCase();
 		if(!data.endsWith(";")) return false;
 		int len = data.length()-1;
+
+		// the cells are set one tile at a time, the cells of a tile being written once a cell of another tile is reached
+		long paths = 0, mask = 0;
+		int tile = 0;
 		for(int i=0; i<len; i++)
 		{
 			char x = data.charAt(i);
-			if(x=='p')
-				desc.maze[rowIndex][i] = SquareType.PATH;
-			else if(x == 'w')
-				desc.maze[rowIndex][i] = SquareType.WALL;
+			if(x != 'p' && x != 'w') continue;
+			if(i >= desc.width) return false;		// the cell is outside the maze
+
+			if(i >> Grid.TILE_SHIFT != tile)
+			{
+				if(mask != 0) desc.maze.setBits(rowIndex, tile << Grid.TILE_SHIFT, paths, mask);
+				paths = mask = 0;
+				tile = i >> Grid.TILE_SHIFT;
+			}
+			mask |= 1L << i;
+			if(x == 'p') paths |= 1L << i;
 		}
-		
+		if(mask != 0) desc.maze.setBits(rowIndex, tile << Grid.TILE_SHIFT, paths, mask);
+
+		return true;
+	}
+
+	/**
+	 * Determines whether a line read as bytes is a row statement that can be parsed from its bytes by
+	 * processRow(Description, int, ByteBuffer), with the same result as parsing it as a string: an ASCII
+	 * line of the form r&lt;index&gt;:...; with only spaces around the digits of the index
+	 * 
+	 * @param line		The bytes of the line
+	 * @param height	The height of the maze
+	 * @return			The row index, or -1 if the line must be parsed as a string
+	 */
+	protected static int rowIndex(ByteBuffer line, int height)
+	{
+		int start = 0, end = line.limit();
+		while(start < end && (line.get(start) & 0xff) <= ' ') start++;
+		if(start == end || (line.get(start) != 'r' && line.get(start) != 'R')) return -1;
+		for(int i=start; i<end; i++) if(line.get(i) < 0) return -1;
+
+		int row = 0, digits = 0, i = start + 1;
+		for(; i < end && line.get(i) != ':'; i++)
+		{
+			byte b = line.get(i);
+			if(b == ' ') continue;
+			if(b < '0' || b > '9' || ++digits > 9) return -1;
+			row = 10 * row + (b - '0');
+		}
+		return(i == end || digits == 0 || row >= height ? -1 : row);
+	}
+
+	/**
+	 * Translates a row statement read as bytes to cells. Bytes are handled as the characters of the
+	 * statement would be by processRow(Description, String) once normalised: spaces are ignored, and
+	 * every other character of the row fills one cell, as a path for p, a wall for w, and is skipped otherwise
+	 * 
+	 * @param desc			A description object to store the row into
+	 * @param row			The row index, as returned by rowIndex()
+	 * @param line			The bytes of the line
+	 * @return 				A boolean indicating whether the row was successfully processed
+	 */
+	protected static boolean processRow(Description desc, int row, ByteBuffer line)
+	{
+		int start = 0, end = line.limit();
+		while(start < end && line.get(start) != ':') start++;
+		start++;
+		while(start < end && (line.get(start) & 0xff) <= ' ') start++;
+		while(end > start && (line.get(end-1) & 0xff) <= ' ') end--;
+		if(end == start || line.get(end-1) != ';') return false;
+
+		// the cells are set one tile at a time, as by processRow(Description, String)
+		long paths = 0, mask = 0;
+		int col = 0, tile = 0;
+		for(int i=start; i<end-1; i++)
+		{
+			byte b = line.get(i);
+			if(b == ' ') continue;
+			if(b == 'p' || b == 'P' || b == 'w' || b == 'W')
+			{
+				if(col >= desc.width) return false;		// the cell is outside the maze
+
+				if(col >> Grid.TILE_SHIFT != tile)
+				{
+					if(mask != 0) desc.maze.setBits(row, tile << Grid.TILE_SHIFT, paths, mask);
+					paths = mask = 0;
+					tile = col >> Grid.TILE_SHIFT;
+				}
+				mask |= 1L << col;
+				if(b == 'p' || b == 'P') paths |= 1L << col;
+			}
+			col++;
+		}
+		if(mask != 0) desc.maze.setBits(row, tile << Grid.TILE_SHIFT, paths, mask);
 		return true;
 	}
 
 	/**
 	 * Determines the coordinate on a position in a given path
 	 * 
+	 * @param desc			A description-object holding the paths
 	 * @param lineIndex		The path ID
 	 * @param colIndex		The position-index on that path
 	 * @return Coordinate	The coordinate of that position on that path
 	 */
-	private static Coordinate determineCoordinateFromLine(int lineIndex, int colIndex)
+	private static Coordinate determineCoordinateFromLine(Description desc, int lineIndex, int colIndex)
 	{
-		Coordinate start = new Coordinate(lineCoords.get(lineIndex));
-		String lineMoves = allLines.get(lineIndex);
+		Coordinate start = new Coordinate(desc.lineCoords.get(lineIndex));
+		String lineMoves = desc.allLines.get(lineIndex);
 		start.moveTo(lineMoves.substring(0,colIndex));
 		return start;
 	}
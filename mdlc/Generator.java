@@ -10,13 +10,23 @@
 
 package mdlc;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import mdlg.Stats;
 
 /**
  * This class is responsible for compiling the maze and generating the output
@@ -25,137 +35,310 @@ class Generator
 {
 	/**
 	 * This is the main function that will call the appropriate functions to compile
-	 * the maze and write the output to a file
+	 * the maze and write one output file for each of its output modes. The outputs
+	 * are generated in parallel from the same description, and all image formats
+	 * share a single rendering of the maze
 	 * 
 	 * @param desc			A description object describing the maze
-	 * @param outputFile	The path to the output file
+	 * @param outputFile	The path to the output file, without the extension
 	 * @exception Exception	On output/processing error
 	 * @return 				Nothing
 	 */
 	public static void generateMaze(Description desc, String outputFile) throws Exception
 	{
-		switch(desc.outputMode)
-		{
-			case JAVA_INT:
-			case JAVA_CHAR:
-			case JAVA_BOOLEAN:
-			case PYTHON_INT:
-			case PYTHON_CHAR:
-			case PYTHON_BOOLEAN:
-				processText(desc, outputFile);
-				break;
-
-			case PNG:
-			case JPG:
-			case TIF:
-			case BMP:
-				processGraphics(desc, outputFile);
-				break;
-		}
+		generateMaze(desc, outputFile, null);
 	}
 
 	/**
-	 * This function handles all output modes related to generating text: Java/Python code
+	 * Compiles the maze and writes one output file for each of its output modes, writing an image
+	 * that has already been drawn (such as one kept up to date by --watch) instead of drawing it again
 	 * 
 	 * @param desc			A description object describing the maze
-	 * @param outputFile	The path to the output file
+	 * @param outputFile	The path to the output file, without the extension
+	 * @param image			The maze drawn by render(), or null to draw it
 	 * @exception Exception	On output/processing error
 	 * @return 				Nothing
 	 */
-	private static void processText(Description desc, String outputFile) throws Exception
+	public static void generateMaze(Description desc, String outputFile, BufferedImage image) throws Exception
 	{
-		StringBuffer s = new StringBuffer();
+		Mode modes[] = desc.outputModes;
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		ArrayList<Mode> imageModes = new ArrayList<Mode>();
+		ArrayList<String> imageFiles = new ArrayList<String>();
 
-		if(desc.outputMode == Mode.JAVA_INT || desc.outputMode == Mode.JAVA_CHAR || desc.outputMode == Mode.JAVA_BOOLEAN)
+		for(int i=0; i<modes.length; i++)
 		{
-			s.append("int maze[][] = {\n");
-		} else if(desc.outputMode == Mode.PYTHON_INT || desc.outputMode == Mode.PYTHON_CHAR || desc.outputMode == Mode.PYTHON_BOOLEAN) {
-			s.append("maze = [\n");
-		}
+			final Mode mode = modes[i];
+			final String file = getOutputFileName(modes, i, outputFile);
 
-		for(int r=0; r<desc.height; r++)
-		{
-			if(desc.outputMode == Mode.JAVA_INT || desc.outputMode == Mode.JAVA_CHAR || desc.outputMode == Mode.JAVA_BOOLEAN)
+			switch(mode)
 			{
-				s.append("\t{ ");
-			}  else if(desc.outputMode == Mode.PYTHON_INT || desc.outputMode == Mode.PYTHON_CHAR || desc.outputMode == Mode.PYTHON_BOOLEAN) {
-				s.append("\t[ ");
-			}
+				case JAVA_INT:
+				case JAVA_CHAR:
+				case JAVA_BOOLEAN:
+				case PYTHON_INT:
+				case PYTHON_CHAR:
+				case PYTHON_BOOLEAN:
+				case C_HEADER:
+					tasks.add(() -> { processText(desc, mode, file); return null; });
+					break;
 
-			for(int c=0; c<desc.width; c++)
-			{
-				if(desc.outputMode == Mode.JAVA_INT || desc.outputMode == Mode.PYTHON_INT)
-				{
-					if(desc.maze[r][c] == SquareType.PATH)
-						s.append(desc.pathInt + ", ");
-					else if(desc.maze[r][c] == SquareType.WALL)
-						s.append(desc.wallInt + ", ");
-					else if(desc.visitStatus[r][c] != null)
-						s.append(desc.visitedInt + ", ");
-					else if(desc.currentPosition.row == r && desc.currentPosition.col == c)
-						s.append(desc.positionInt + ", ");
-				} else if(desc.outputMode == Mode.JAVA_BOOLEAN) {
-					if(desc.maze[r][c] == SquareType.WALL)
-						s.append("false, ");
-					else
-						s.append("true, ");
-				} else if(desc.outputMode == Mode.PYTHON_BOOLEAN) {
-					if(desc.maze[r][c] == SquareType.WALL)
-						s.append("False, ");
-					else
-						s.append("True, ");
-				} else if(desc.outputMode == Mode.JAVA_CHAR) {
-					if(desc.maze[r][c] == SquareType.PATH)
-						s.append("'" + desc.pathChar + "', ");
-					else if(desc.maze[r][c] == SquareType.WALL)
-						s.append("'" + desc.wallChar + "', ");
-					else if(desc.visitStatus[r][c] != null)
-						s.append("'" + desc.visitedChar + "', ");
-					else if(desc.currentPosition.row == r && desc.currentPosition.col == c)
-						s.append("'" + desc.positionChar + "', ");
-				} else if(desc.outputMode == Mode.PYTHON_CHAR) {
-					if(desc.maze[r][c] == SquareType.PATH)
-						s.append("\"" + desc.pathChar + "\", ");
-					else if(desc.maze[r][c] == SquareType.WALL)
-						s.append("\"" + desc.wallChar + "\", ");
-					else if(desc.visitStatus[r][c] != null)
-						s.append("\"" + desc.visitedChar + "\", ");
-					else if(desc.currentPosition.row == r && desc.currentPosition.col == c)
-						s.append("\"" + desc.positionChar + "\", ");
-				}
+				case NPY_UINT8:
+				case RAW_UINT8:
+					tasks.add(() -> { processBinary(desc, mode, file); return null; });
+					break;
+
+				case PNG:
+				case JPG:
+				case TIF:
+				case BMP:
+					imageModes.add(mode);
+					imageFiles.add(file);
+					break;
+
+				case GIF:
+					tasks.add(() -> { processAnimation(desc, file); return null; });
+					break;
 			}
+		}
+
+		if(!imageModes.isEmpty()) tasks.add(() -> { processGraphics(desc, image, imageModes, imageFiles); return null; });
+		runAll(tasks);
+	}
 
-			s.deleteCharAt(s.length()-2);
-			if(desc.outputMode == Mode.JAVA_INT || desc.outputMode == Mode.JAVA_CHAR || desc.outputMode == Mode.JAVA_BOOLEAN)
+	/**
+	 * Determines the names of all the files written for a maze, one for each of its output modes
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param outputFile	The path to the output file, without the extension
+	 * @return				The paths to the output files, in the order of the output modes
+	 */
+	protected static List<String> getOutputFiles(Description desc, String outputFile)
+	{
+		List<String> files = new ArrayList<String>();
+		for(int i=0; i<desc.outputModes.length; i++) files.add(getOutputFileName(desc.outputModes, i, outputFile));
+		return files;
+	}
+
+	/**
+	 * Compiles the maze into memory instead of into files, as for the entries of an archive. The outputs are written
+	 * one after another, since the mazes of an archive are compiled in parallel
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param outputFile	The name of the output file, without the extension
+	 * @exception Exception	On processing error
+	 * @return				The contents of each output file by its name, in the order of the output modes
+	 */
+	protected static LinkedHashMap<String, byte[]> generateOutputs(Description desc, String outputFile) throws Exception
+	{
+		Mode modes[] = desc.outputModes;
+		LinkedHashMap<String, byte[]> outputs = new LinkedHashMap<String, byte[]>();
+		BufferedImage image = null;
+
+		for(int i=0; i<modes.length; i++)
+		{
+			Mode mode = modes[i];
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Stats.Phase phase = null;
+
+			switch(mode)
 			{
-				s.append("},\n");
-			} else if(desc.outputMode == Mode.PYTHON_INT || desc.outputMode == Mode.PYTHON_CHAR || desc.outputMode == Mode.PYTHON_BOOLEAN) {
-				s.append("\t],\n");
+				case JAVA_INT:
+				case JAVA_CHAR:
+				case JAVA_BOOLEAN:
+				case PYTHON_INT:
+				case PYTHON_CHAR:
+				case PYTHON_BOOLEAN:
+				case C_HEADER:
+					phase = Stats.begin("emit-" + mode.toString().toLowerCase());
+					TextEmitter.forMode(mode, desc).emit(desc, out);
+					break;
+
+				case NPY_UINT8:
+				case RAW_UINT8:
+					phase = Stats.begin("emit-" + mode.toString().toLowerCase());
+					BinaryEmitter.forMode(mode, desc).emit(desc, out);
+					break;
+
+				case PNG:
+				case JPG:
+				case TIF:
+				case BMP:
+					if(image == null) image = render(desc);
+					String format = mode.toString().toLowerCase();
+					phase = Stats.begin("encode-" + format);
+					ImageOutputStream stream = new MemoryCacheImageOutputStream(out);		// rather than a cache file
+					if(!ImageIO.write(image, format, stream))
+					{
+						// formats such as jpg and bmp have no writer for images with an alpha channel
+						BufferedImage opaqueImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+						opaqueImage.getGraphics().drawImage(image, 0, 0, null);
+						if(!ImageIO.write(opaqueImage, format, stream)) throw(new Exception("No image writer available for format: " + format));
+					}
+					stream.close();
+					break;
+
+				case GIF:
+					phase = Stats.begin("emit-gif");
+					Animator.write(desc, out);
+					break;
 			}
+			phase.end();
+
+			outputs.put(getOutputFileName(modes, i, outputFile), out.toByteArray());
+			Stats.count("bytes-written", out.size());
 		}
-		
-		s.deleteCharAt(s.length()-2);
-		if(desc.outputMode == Mode.JAVA_INT || desc.outputMode == Mode.JAVA_CHAR || desc.outputMode == Mode.JAVA_BOOLEAN)
+		return outputs;
+	}
+
+	/**
+	 * Determines the name of the file written for one of the output modes. If another requested mode writes
+	 * files with the same extension, the name of the mode is appended to the file name to keep them apart
+	 * 
+	 * @param modes			The list of output modes
+	 * @param index			The index of the mode in the list
+	 * @param outputFile	The path to the output file, without the extension
+	 * @return				The path to the output file for that mode
+	 */
+	private static String getOutputFileName(Mode modes[], int index, String outputFile)
+	{
+		for(int i=0; i<modes.length; i++)
 		{
-			s.append("};");
-		} else if(desc.outputMode == Mode.PYTHON_INT || desc.outputMode == Mode.PYTHON_CHAR || desc.outputMode == Mode.PYTHON_BOOLEAN) {
-			s.append("];");
+			if(i != index && modes[i].extension.equals(modes[index].extension))
+				return outputFile + "_" + modes[index].toString().toLowerCase() + modes[index].extension;
 		}
+		return outputFile + modes[index].extension;
+	}
 
-		BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile + ".txt"));
-		bw.write(s.toString());
-		bw.close();
+	/**
+	 * Runs a list of tasks in parallel and waits for all of them to complete
+	 * 
+	 * @param tasks			The tasks to run
+	 * @exception Exception	The first error raised by any of the tasks
+	 * @return				Nothing
+	 */
+	private static void runAll(ArrayList<Callable<Void>> tasks) throws Exception
+	{
+		if(tasks.size() == 1)
+		{
+			tasks.get(0).call();
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			List<Future<Void>> results = pool.invokeAll(tasks);
+			for(Future<Void> result : results)
+			{
+				try {
+					result.get();
+				} catch(ExecutionException e) {
+					Throwable cause = e.getCause();
+					if(cause instanceof Exception) throw (Exception)cause;
+					throw (Error)cause;
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
 	}
 
 	/**
-	 * This function handles all output modes related to generating images in JPG/TIFF/PNG/BMP format
+	 * This function handles all output modes related to generating text: Java/Python/C code
 	 * 
 	 * @param desc			A description object describing the maze
-	 * @param outputFile	The path to the output image file
+	 * @param mode			The output mode
+	 * @param outputFile	The path to the output file
 	 * @exception Exception	On output/processing error
 	 * @return 				Nothing
 	 */
-	private static void processGraphics(Description desc, String outputFile) throws Exception
+	protected static void processText(Description desc, Mode mode, String outputFile) throws Exception
+	{
+		Stats.Phase phase = Stats.begin("emit-" + mode.toString().toLowerCase());
+		TextEmitter.forMode(mode, desc).emit(desc, outputFile);
+		phase.end();
+		if(Stats.active()) Stats.count("bytes-written", new java.io.File(outputFile).length());
+	}
+
+	/**
+	 * This function handles all output modes related to generating binary arrays: NumPy/raw bytes
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param mode			The output mode
+	 * @param outputFile	The path to the output file
+	 * @exception Exception	On output/processing error
+	 * @return 				Nothing
+	 */
+	protected static void processBinary(Description desc, Mode mode, String outputFile) throws Exception
+	{
+		Stats.Phase phase = Stats.begin("emit-" + mode.toString().toLowerCase());
+		BinaryEmitter.forMode(mode, desc).emit(desc, outputFile);
+		phase.end();
+		if(Stats.active()) Stats.count("bytes-written", new java.io.File(outputFile).length());
+	}
+
+	/**
+	 * This function handles the output mode generating an animated GIF of the visited paths
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param outputFile	The path to the output file
+	 * @exception Exception	On output/processing error
+	 * @return 				Nothing
+	 */
+	protected static void processAnimation(Description desc, String outputFile) throws Exception
+	{
+		Stats.Phase phase = Stats.begin("emit-gif");
+		Animator.write(desc, outputFile);
+		phase.end();
+		if(Stats.active()) Stats.count("bytes-written", new java.io.File(outputFile).length());
+	}
+
+	/**
+	 * This function handles all output modes related to generating images in JPG/TIFF/PNG/BMP format.
+	 * The maze is drawn once and then written in each of the requested formats
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param image			The maze already drawn by render(), or null to draw it now
+	 * @param modes			The image formats to write
+	 * @param outputFiles	The path to the output image file of each format
+	 * @exception Exception	On output/processing error
+	 * @return 				Nothing
+	 */
+	protected static void processGraphics(Description desc, BufferedImage image, List<Mode> modes, List<String> outputFiles) throws Exception
+	{
+		if(image == null) image = render(desc);
+		int w = image.getWidth();
+		int h = image.getHeight();
+
+		// encode and write each format
+		BufferedImage opaqueImage = null;
+		for(int i=0; i<modes.size(); i++)
+		{
+			String format = modes.get(i).toString().toLowerCase();
+			java.io.File file = new java.io.File(outputFiles.get(i));
+			Stats.Phase phase = Stats.begin("encode-" + format);
+			if(!ImageIO.write(image, format, file))
+			{
+				// formats such as jpg and bmp have no writer for images with an alpha channel
+				if(opaqueImage == null)
+				{
+					opaqueImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+					opaqueImage.getGraphics().drawImage(image, 0, 0, null);
+				}
+				if(!ImageIO.write(opaqueImage, format, file)) throw(new Exception("No image writer available for format: " + format));
+			}
+			phase.end();
+			if(Stats.active()) Stats.count("bytes-written", file.length());
+		}
+	}
+
+	/**
+	 * Draws the whole maze as an image, with a margin of one cell on each side holding the indices (if shown)
+	 * 
+	 * @param desc	A description object describing the maze
+	 * @return		The image
+	 */
+	protected static BufferedImage render(Description desc)
 	{
 		int s = desc.squareSize;
 		int w = (desc.width + 2) * s;
@@ -167,28 +350,110 @@ class Generator
 		graphics.setColor(Color.WHITE);
 		graphics.fillRect(0,0,w,h);
 
-		graphics.setColor(Color.BLACK);
 		graphics.setFont(new java.awt.Font("Arial", java.awt.Font.BOLD, 10));
-		
+		drawColumnIndices(graphics, desc);
+		drawCells(graphics, desc, 0, 0, desc.height, desc.width);
+		Stats.count("pixels", (long)w * h);
+		return image;
+	}
+
+	/**
+	 * Redraws a rectangle of cells of an image drawn by render(), after the description has changed only within
+	 * those cells. The rectangle is widened by the cells to its right and below into which the visited paths of its
+	 * cells can spill over (by up to 3 pixels), and the cells around it are drawn again as well, clipped to it, since
+	 * the grid lines, visited paths and row indices of a cell can spill over into its neighbours (the column indices,
+	 * which can spill over into the first rows at small units, are drawn again too)
+	 * 
+	 * @param image	The image, of the same size, unit and settings as the description
+	 * @param desc	A description object describing the maze
+	 * @param r0	The first row of the rectangle
+	 * @param c0	The first column of the rectangle
+	 * @param r1	The row after the last row of the rectangle
+	 * @param c1	The column after the last column of the rectangle
+	 * @return		The area of the image that was redrawn
+	 */
+	protected static Rectangle redraw(BufferedImage image, Description desc, int r0, int c0, int r1, int c1)
+	{
+		int s = desc.squareSize;
+		int spill = (s+2)/s;
+		r1 = Math.min(r1 + spill, desc.height);
+		c1 = Math.min(c1 + spill, desc.width);
+
+		int x0 = (c0+1)*s, y0 = (r0+1)*s;
+		int x1 = (c1 == desc.width ? image.getWidth() : (c1+1)*s);
+		int y1 = (r1 == desc.height ? image.getHeight() : (r1+1)*s);
+
+		Graphics graphics = image.getGraphics();
+		graphics.setClip(x0, y0, x1-x0, y1-y0);
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(x0, y0, x1-x0, y1-y0);
+		graphics.setFont(new java.awt.Font("Arial", java.awt.Font.BOLD, 10));
+		drawColumnIndices(graphics, desc);
+
+		// the overlays spill over by up to 4 pixels and the row indices by up to a line of text
+		int margin = 1 + 16/s;
+		drawCells(graphics, desc, r0-margin, c0-margin, r1+margin, c1+margin);
+		graphics.dispose();
+		return new Rectangle(x0, y0, x1-x0, y1-y0);
+	}
+
+	/**
+	 * Draws the column indices (if shown) in the top margin
+	 * 
+	 * @param graphics	A graphics-object reference that will be used to draw the indices, with its font set
+	 * @param desc		A description object describing the maze
+	 * @return			Nothing
+	 */
+	private static void drawColumnIndices(Graphics graphics, Description desc)
+	{
+		if(!desc.showIndices) return;
+
+		int s = desc.squareSize;
 		java.awt.FontMetrics fontMetrics = graphics.getFontMetrics();
 		int fontWidth = fontMetrics.charWidth('8');
 		int fontDescent = fontMetrics.getDescent();
 		int fontLeading = fontMetrics.getLeading();
 		int fontHeight = fontMetrics.getHeight() - fontMetrics.getAscent() - fontDescent - fontLeading;
 
-		if(desc.showIndices)
+		graphics.setColor(Color.BLACK);
+		for(int c=0; c<desc.width; c++) 
 		{
-			for(int c=0; c<desc.width; c++) 
-			{
-				String text = String.valueOf(c);
-				int textWidth = fontWidth * text.length();
-				int x = ((c+1)*s)+((s-textWidth)/2);
-				int y = fontDescent + fontLeading + (s-fontHeight)/2;
-				graphics.drawString(text, x, y);
-			}
+			String text = String.valueOf(c);
+			int textWidth = fontWidth * text.length();
+			int x = ((c+1)*s)+((s-textWidth)/2);
+			int y = fontDescent + fontLeading + (s-fontHeight)/2;
+			graphics.drawString(text, x, y);
 		}
+	}
+
+	/**
+	 * Draws a rectangle of cells in the same order as render(): the cells (and the row indices), then the grid, then the
+	 * visited paths and the current position
+	 * 
+	 * @param graphics	A graphics-object reference that will be used to draw the cells, with its font set
+	 * @param desc		A description object describing the maze
+	 * @param r0		The first row to draw, clamped to the maze
+	 * @param c0		The first column to draw, clamped to the maze
+	 * @param r1		The row after the last row to draw, clamped to the maze
+	 * @param c1		The column after the last column to draw, clamped to the maze
+	 * @return			Nothing
+	 */
+	private static void drawCells(Graphics graphics, Description desc, int r0, int c0, int r1, int c1)
+	{
+		int s = desc.squareSize;
+		r0 = Math.max(r0, 0);
+		c0 = Math.max(c0, 0);
+		r1 = Math.min(r1, desc.height);
+		c1 = Math.min(c1, desc.width);
+
+		java.awt.FontMetrics fontMetrics = graphics.getFontMetrics();
+		int fontWidth = fontMetrics.charWidth('8');
+		int fontDescent = fontMetrics.getDescent();
+		int fontLeading = fontMetrics.getLeading();
+		int fontHeight = fontMetrics.getHeight() - fontMetrics.getAscent() - fontDescent - fontLeading;
 
-		for(int r=0; r<desc.height; r++)
+		Stats.Phase phase = Stats.begin("rasterise-cells");
+		for(int r=r0; r<r1; r++)
 		{
 			int y = (r+1)*s;
 			
@@ -203,16 +468,27 @@ class Generator
 				graphics.drawString(text, tx, ty);
 			}
 
-			for(int c=0; c<desc.width; c++)
+			for(int c=c0; c<c1; c++)
 			{
 				int x = (c+1)*s;
 
+				// the cells of a blank tile are all walls, so they are filled at once
+				if(desc.maze.isBlank(r, c))
+				{
+					int end = Math.min(desc.maze.tileEnd(c), c1);
+					graphics.setColor(desc.wallColor);
+					graphics.fillRect(x, y, (end-c)*s, s);
+					c = end-1;
+					continue;
+				}
+
 				BufferedImage sprite = null;
-				if(desc.maze[r][c] == SquareType.PATH)
+				SquareType type = desc.maze.get(r, c);
+				if(type == SquareType.PATH)
 					graphics.setColor(desc.pathColor);
-				else if(desc.maze[r][c] == SquareType.WALL)
+				else if(type == SquareType.WALL)
 					graphics.setColor(desc.wallColor);
-				else if(desc.visitStatus[r][c] != null) {
+				else if(desc.maze.visits(r, c) != null) {
 					graphics.setColor(desc.pathColor);
 					sprite = desc.visitedSprite;
 				} else if(desc.currentPosition.row == r && desc.currentPosition.col == c) {
@@ -229,14 +505,17 @@ class Generator
 			}
 		}
 
+		phase.end();
+
 		// draw grid
+		phase = Stats.begin("draw-grid");
 		if(desc.showGrid)
 		{
 			graphics.setColor(desc.gridColor);
-			for(int r=0; r<desc.height; r++)
+			for(int r=r0; r<r1; r++)
 			{
 				int y = (r+1)*s;
-				for(int c=0; c<desc.width; c++)
+				for(int c=c0; c<c1; c++)
 				{
 					int x = (c+1)*s;
 					graphics.drawRect(x,y,s,s);
@@ -244,14 +523,23 @@ class Generator
 			}
 		}
 
+		phase.end();
+
 		// draw visited paths
-		for(int r=0; r<desc.height; r++)
+		phase = Stats.begin("draw-overlays");
+		for(int r=r0; r<r1; r++)
 		{
 			int y = (r+1)*s;
-			for(int c=0; c<desc.width; c++)
+			for(int c=c0; c<c1; c++)
 			{
+				if(desc.maze.hasNoVisits(r, c))
+				{
+					c = Math.min(desc.maze.tileEnd(c), c1)-1;
+					continue;
+				}
+
 				int x = (c+1)*s;
-				if(desc.maze[r][c] == SquareType.PATH && desc.visitStatus[r][c] != null && desc.visitedSprite==null) 
+				if(desc.maze.isPath(r, c) && desc.maze.visits(r, c) != null && desc.visitedSprite==null) 
 				{
 					drawVisitedPath(graphics, desc, r, c, x, y, s);
 				}
@@ -267,8 +555,7 @@ class Generator
 			graphics.fillOval(x+((s-rad)/2), y+((s-rad)/2), rad, rad);
 		}
 
-		String format = desc.outputMode.toString().toLowerCase();		
-		ImageIO.write(image, format, new java.io.File(outputFile + "." + format));
+		phase.end();
 	}
 
 	/**
@@ -285,10 +572,10 @@ class Generator
 	 */
 	private static void drawVisitedPath(Graphics graphics, Description desc, int r, int c, int x, int y, int s)
 	{
-		if(desc.visitStatus[r][c]==null) return;
+		if(desc.maze.visits(r, c)==null) return;
 
-		ArrayList<VisitDirection> dirList = (ArrayList<VisitDirection>)desc.visitStatus[r][c];
-		ArrayList<Color> colorList = (ArrayList<Color>)desc.visitedPathColor[r][c];
+		ArrayList<VisitDirection> dirList = (ArrayList<VisitDirection>)desc.maze.visits(r, c);
+		ArrayList<Color> colorList = (ArrayList<Color>)desc.maze.colors(r, c);
 
 		int n = dirList.size();
 		for(int i=0; i<n; i++)
@@ -0,0 +1,337 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+/**
+ * Stores the cells of a maze and their visited paths in square tiles of TILE x TILE cells.
+ * 
+ * A tile is created only when a cell in it is made a path, so a maze made of a few corridors on a large canvas takes up
+ * memory in proportion to the tiles that the corridors cross; every cell of a tile that was never created is a wall with
+ * no visited path. The type of each cell takes up one bit, and the visited paths of a tile are allocated only when a
+ * path is marked on it. Tiles are created under a lock and each row of a tile is a separate word, so different rows
+ * may be written by different threads, as when parsing in parallel
+ */
+class Grid
+{
+	/**
+	 * The size of the tiles (in cells), as a power of two
+	 */
+	protected static final int TILE_SHIFT = 6;
+	protected static final int TILE = 1 << TILE_SHIFT;
+	private static final int TILE_MASK = TILE - 1;
+
+	/**
+	 * A tile of cells
+	 */
+	private static class Tile
+	{
+		/**
+		 * The type of each cell, one word per row with a bit set for each path
+		 */
+		final long paths[];
+
+		/**
+		 * The directions and colors of the visited paths of each cell (by row * TILE + column), or null if no path has
+		 * been marked on the tile
+		 */
+		Object visits[];
+		Object colors[];
+
+		/**
+		 * Constructor to create a tile of walls, or a tile sharing the cells of another
+		 * 
+		 * @param paths	The type of each cell, or null for a new tile
+		 */
+		Tile(long paths[])
+		{
+			this.paths = (paths == null ? new long[TILE] : paths);
+		}
+	}
+
+	/**
+	 * The size of the maze
+	 */
+	protected final int height, width;
+
+	/**
+	 * The tiles, by row and column of tiles; a row of tiles is null until one of its tiles is created
+	 */
+	private final Tile tiles[][];
+
+	/**
+	 * The number of tiles created
+	 */
+	private int tileCount;
+
+	/**
+	 * Constructor to create a maze in which every cell is a wall
+	 * 
+	 * @param height	The height of the maze
+	 * @param width		The width of the maze
+	 */
+	Grid(int height, int width)
+	{
+		if(height < 0 || width < 0) throw(new NegativeArraySizeException(height < 0 ? String.valueOf(height) : String.valueOf(width)));
+		this.height = height;
+		this.width = width;
+		this.tiles = new Tile[(int)(((long)height + TILE_MASK) >> TILE_SHIFT)][];
+		this.tileCount = 0;
+	}
+
+	/**
+	 * Constructor to create a grid sharing the cells of another, without any visited path
+	 * 
+	 * @param grid	The grid to share the cells of
+	 */
+	protected Grid(Grid grid)
+	{
+		this(grid.height, grid.width);
+		for(int tr=0; tr<tiles.length; tr++)
+		{
+			if(grid.tiles[tr] == null) continue;
+			tiles[tr] = new Tile[grid.tiles[tr].length];
+			for(int tc=0; tc<tiles[tr].length; tc++)
+			{
+				if(grid.tiles[tr][tc] != null) tiles[tr][tc] = new Tile(grid.tiles[tr][tc].paths);
+			}
+		}
+		this.tileCount = grid.tileCount;
+	}
+
+	/**
+	 * Creates a grid with the same cells as this one (which it shares, so neither may change them afterwards) but
+	 * without any visited path
+	 * 
+	 * @return	The copy
+	 */
+	protected Grid withoutVisitedPaths()
+	{
+		return new Grid(this);
+	}
+
+	/**
+	 * Determines the type of a cell
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	The type of the cell
+	 */
+	protected SquareType get(int r, int c)
+	{
+		return(isPath(r, c) ? SquareType.PATH : SquareType.WALL);
+	}
+
+	/**
+	 * Determines whether a cell is a path
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the cell is a path
+	 */
+	protected boolean isPath(int r, int c)
+	{
+		Tile tile = tile(r, c);
+		return(tile != null && (tile.paths[r & TILE_MASK] & (1L << c)) != 0);
+	}
+
+	/**
+	 * Sets the type of a cell
+	 * 
+	 * @param r		The row-index of the cell
+	 * @param c		The column-index of the cell
+	 * @param type	The type of the cell
+	 * @return		Nothing
+	 */
+	protected void set(int r, int c, SquareType type)
+	{
+		if(type == SquareType.PATH) {
+			create(r, c).paths[r & TILE_MASK] |= 1L << c;
+		} else {
+			Tile tile = tile(r, c);
+			if(tile != null) tile.paths[r & TILE_MASK] &= ~(1L << c);
+		}
+	}
+
+	/**
+	 * Returns the types of the cells in the row of a tile
+	 * 
+	 * @param r	The row-index of the cells
+	 * @param c	The column-index of any cell of the tile
+	 * @return	A word with bit (column % TILE) set for each cell that is a path
+	 */
+	protected long pathBits(int r, int c)
+	{
+		Tile tile = tile(r, c);
+		return(tile == null ? 0 : tile.paths[r & TILE_MASK]);
+	}
+
+	/**
+	 * Sets the types of some of the cells in the row of a tile at once
+	 * 
+	 * @param r		The row-index of the cells
+	 * @param c		The column-index of any cell of the tile
+	 * @param paths	A word with bit (column % TILE) set for each cell to make a path
+	 * @param mask	A word with bit (column % TILE) set for each cell to set, as a path or a wall
+	 * @return		Nothing
+	 */
+	protected void setBits(int r, int c, long paths, long mask)
+	{
+		Tile tile = (paths == 0 ? tile(r, c) : create(r, c));
+		if(tile != null) tile.paths[r & TILE_MASK] = (tile.paths[r & TILE_MASK] & ~mask) | (paths & mask);
+	}
+
+	/**
+	 * Returns the directions of the visited paths of a cell
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	An ArrayList of the directions of the visited-path lines in the cell, or null if it has not been visited
+	 */
+	protected Object visits(int r, int c)
+	{
+		Tile tile = tile(r, c);
+		return(tile == null || tile.visits == null ? null : tile.visits[((r & TILE_MASK) << TILE_SHIFT) | (c & TILE_MASK)]);
+	}
+
+	/**
+	 * Returns the colors of the visited paths of a cell
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	An ArrayList of the colors of the visited-path lines in the cell, or null if it has not been visited
+	 */
+	protected Object colors(int r, int c)
+	{
+		Tile tile = tile(r, c);
+		return(tile == null || tile.colors == null ? null : tile.colors[((r & TILE_MASK) << TILE_SHIFT) | (c & TILE_MASK)]);
+	}
+
+	/**
+	 * Sets the visited paths of a cell
+	 * 
+	 * @param r			The row-index of the cell
+	 * @param c			The column-index of the cell
+	 * @param visits	An ArrayList of the directions of the visited-path lines in the cell
+	 * @param colors	An ArrayList of the colors of the visited-path lines in the cell
+	 * @return			Nothing
+	 */
+	protected void setVisits(int r, int c, Object visits, Object colors)
+	{
+		Tile tile = create(r, c);
+		if(tile.visits == null)
+		{
+			tile.visits = new Object[TILE * TILE];
+			tile.colors = new Object[TILE * TILE];
+		}
+		int i = ((r & TILE_MASK) << TILE_SHIFT) | (c & TILE_MASK);
+		tile.visits[i] = visits;
+		tile.colors[i] = colors;
+	}
+
+	/**
+	 * Determines whether the cells of the tile of a cell that lie in its row are all walls without visited paths, as
+	 * when the tile has never been created
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the cells are blank
+	 */
+	protected boolean isBlank(int r, int c)
+	{
+		return(tile(r, c) == null);
+	}
+
+	/**
+	 * Determines whether no visited path has been marked on the tile of a cell
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the tile has no visited paths
+	 */
+	protected boolean hasNoVisits(int r, int c)
+	{
+		Tile tile = tile(r, c);
+		return(tile == null || tile.visits == null);
+	}
+
+	/**
+	 * Returns the column after the last column of the tile of a cell, within the maze
+	 * 
+	 * @param c	The column-index of the cell
+	 * @return	The column-index at which the next tile starts
+	 */
+	protected int tileEnd(int c)
+	{
+		return(int)Math.min(((long)(c >> TILE_SHIFT) + 1) << TILE_SHIFT, width);
+	}
+
+	/**
+	 * Returns the number of tiles created
+	 * 
+	 * @return	The number of tiles
+	 */
+	protected synchronized int tiles()
+	{
+		return tileCount;
+	}
+
+	/**
+	 * Finds the tile of a cell, checking that the cell lies inside the maze
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	The tile, or null if it has not been created
+	 */
+	private Tile tile(int r, int c)
+	{
+		check(r, c);
+		Tile row[] = tiles[r >> TILE_SHIFT];
+		return(row == null ? null : row[c >> TILE_SHIFT]);
+	}
+
+	/**
+	 * Finds the tile of a cell, creating it if needed
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	The tile
+	 */
+	private Tile create(int r, int c)
+	{
+		Tile tile = tile(r, c);
+		if(tile != null) return tile;
+
+		synchronized(this)
+		{
+			int tr = r >> TILE_SHIFT, tc = c >> TILE_SHIFT;
+			if(tiles[tr] == null) tiles[tr] = new Tile[(int)(((long)width + TILE_MASK) >> TILE_SHIFT)];
+			if(tiles[tr][tc] == null)
+			{
+				tiles[tr][tc] = new Tile(null);
+				tileCount++;
+			}
+			return tiles[tr][tc];
+		}
+	}
+
+	/**
+	 * Checks that a cell lies inside the maze, failing as an array access out of bounds would
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	Nothing
+	 */
+	protected void check(int r, int c)
+	{
+		if(r < 0 || r >= height) throw(new ArrayIndexOutOfBoundsException("Index " + r + " out of bounds for length " + height));
+		if(c < 0 || c >= width) throw(new ArrayIndexOutOfBoundsException("Index " + c + " out of bounds for length " + width));
+	}
+}
\ No newline at end of file
@@ -10,6 +10,9 @@
 
 package mdlc;
 
+import java.io.File;
+import mdlg.Stats;
+
 /**
  * This is the main class handling all command-line arguments and calling other appropriate functions
  * to compile the maze
@@ -21,43 +24,122 @@ public class MDLC
 	 */
 	public static final String VERSION = "1.0";
 
+	/**
+	 * The index file used by incremental compiles when none is given
+	 */
+	private static final String DEFAULT_CACHE = ".mdlc-cache";
+
 	/**
 	 * The usage string that will be displayed if the program is invoked
 	 * without parameters or with incorrect parameters
 	 */
 	private static final String INFO = "Maze Description Language Compiler - v" + VERSION +
 										"\nby Akash Nag. This software is open-source and is distributed under Artistic License 2.0" +
-										"\nUsage:\n\t java -jar mdlc.jar <maze-description-files>" +
+										"\nUsage:\n\t java -jar mdlc.jar [options] <maze-description-files>" +
+										"\nOptions:" +
+										"\n\t--stats\t\tprint the time spent in each phase and counters of the work done" +
+										"\n\t--stats=json\tprint the same report as JSON" +
+										"\n\t--incremental[=<index-file>]\tskip files whose outputs are up to date, as recorded in the index file (default: " + DEFAULT_CACHE + ")" +
+										"\n\t--parallel-parse\tparse the row statements of each file on all processors" +
+										"\n\t--mmap\t\tread the files through memory mapping, parsing row statements from the bytes of the file" +
+										"\n\t--off-heap[=<min-cells>]\tstore the cells of mazes (of at least min-cells cells) outside the Java heap" +
+										"\n\t--off-heap-dir=<directory>\tkeep the cells stored outside the heap in memory-mapped files in the directory, instead of in direct memory" +
+										"\n\t--watch\t\tkeep running and recompile each file whenever it changes, redrawing only the changed parts of images" +
 										"\nNote:\n" +
-										"Output file name must not include the file extension as it will be added automatically depending on the settings specified in the source";
+										"Output file name must not include the file extension as it will be added automatically depending on the settings specified in the source\n" +
+										"A .zip file is read as a shard of mazes written by mdlg --archive, and the outputs of its mazes are written into <shard>-compiled.zip";
 
 	/**
      * This is the main method, and it processes the command-line arguments
      * 
-     * @param args 			The names of the maze files in MDL format
+     * @param args 			Any options, followed by the names of the maze files in MDL format
      * @return 				Nothing
      * @exception Exception On input error or error in the syntax of the configuration file.
      * @see 				Exception
      */
 	public static void main(String args[]) throws Exception
 	{
-		if(args.length==0)
+		Stats.setEventPrefix("mdlc");
+		int k = 0;
+		boolean json = false;
+		BuildCache cache = null;
+		boolean watch = false;
+		while(k < args.length && args[k].startsWith("--"))
+		{
+			if(args[k].equals("--stats")) {
+				Stats.enabled = true;
+			} else if(args[k].equals("--stats=json")) {
+				Stats.enabled = true;
+				json = true;
+			} else if(args[k].equals("--incremental")) {
+				cache = new BuildCache(DEFAULT_CACHE);
+			} else if(args[k].startsWith("--incremental=")) {
+				cache = new BuildCache(args[k].substring("--incremental=".length()));
+			} else if(args[k].equals("--parallel-parse")) {
+				Description.parallelRows = true;
+			} else if(args[k].equals("--mmap")) {
+				Description.mappedInput = true;
+			} else if(args[k].equals("--off-heap")) {
+				Description.offHeapCells = 0;
+			} else if(args[k].startsWith("--off-heap=")) {
+				Description.offHeapCells = Long.parseLong(args[k].substring("--off-heap=".length()));
+			} else if(args[k].startsWith("--off-heap-dir=")) {
+				Description.offHeapDirectory = new File(args[k].substring("--off-heap-dir=".length()));
+			} else if(args[k].equals("--watch")) {
+				watch = true;
+			} else {
+				printUsage();
+				return;
+			}
+			k++;
+		}
+
+		if(args.length==k)
 		{
 			printUsage();
+		} else if(watch) {
+			Watcher.watch(java.util.Arrays.copyOfRange(args, k, args.length));
 		} else {
 			try {
-				for(int i=0; i<args.length; i++)
+				int n = args.length - k;
+				for(int i=0; i<n; i++)
 				{
-					String source = args[i];
+					String source = args[k+i];
 					String output = source.substring(0, source.lastIndexOf("."));
+
+					if(source.endsWith(".zip"))
+					{
+						int mazes = ArchiveCompiler.compile(source);
+						System.out.println((i+1) + "/" + n + ": " + mazes + " mazes compiled into " + ArchiveCompiler.outputName(source));
+						continue;
+					}
+
+					String key = null;
+					if(cache != null)
+					{
+						Stats.Phase phase = Stats.begin("check-cache");
+						key = cache.key(source);
+						boolean upToDate = cache.isUpToDate(source, key);
+						phase.end();
+						if(upToDate)
+						{
+							Stats.count("files-up-to-date", 1);
+							System.out.println((i+1) + "/" + n + ": maze is up to date");
+							continue;
+						}
+					}
 				
 					Description desc = Description.readFile(source);
 					Generator.generateMaze(desc, output);
-					System.out.println((i+1) + "/" + args.length + ": maze generated successfully");
+					if(cache != null) cache.update(source, key, Generator.getOutputFiles(desc, output));
+					System.out.println((i+1) + "/" + n + ": maze generated successfully");
 				}
+				Stats.report(json);
 			} catch(Exception e) {
 				System.out.println("An error occurred during maze generation:\n" + e.toString());
 				e.printStackTrace();
+			} finally {
+				if(cache != null) cache.save();
 			}
 		}
 	}
@@ -0,0 +1,208 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a file as bytes from memory-mapped regions of the file, for --mmap.
+ * 
+ * The file is mapped one region (of at most 1 GB, as a mapping cannot exceed 2 GB) at a time, and each line is
+ * returned as a view of the mapped bytes, without decoding or copying it; only a line crossing from one region into
+ * the next is copied. Lines end at "\n", "\r" or "\r\n", as with BufferedReader.readLine
+ */
+class MappedLineReader
+{
+	/**
+	 * The default size of the regions mapped
+	 */
+	private static final int REGION_SIZE = 1 << 30;
+
+	/**
+	 * The file being read
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The size of the regions mapped
+	 */
+	private final int regionSize;
+
+	/**
+	 * The region being read, and the position of its first byte in the file
+	 */
+	private MappedByteBuffer region;
+	private long regionStart;
+
+	/**
+	 * The position of the next byte to read in the region
+	 */
+	private int pos;
+
+	/**
+	 * Defines whether the last line ended with a "\r" at the end of a region, so that a "\n" starting the next region
+	 * belongs to it
+	 */
+	private boolean skipLF;
+
+	/**
+	 * The bytes of a line crossing from one region into the next, and their number (or -1 if there are none)
+	 */
+	private byte spill[];
+	private int spillLength;
+
+	/**
+	 * Constructor to open a file
+	 * 
+	 * @param filename			The path to the file
+	 * @exception IOException	On input error
+	 */
+	MappedLineReader(String filename) throws IOException
+	{
+		this(filename, REGION_SIZE);
+	}
+
+	/**
+	 * Constructor to open a file, mapping regions of a given size
+	 * 
+	 * @param filename			The path to the file
+	 * @param regionSize		The size of the regions mapped
+	 * @exception IOException	On input error
+	 */
+	MappedLineReader(String filename, int regionSize) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		this.channel = file.getChannel();
+		this.regionSize = regionSize;
+		this.region = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(regionSize, channel.size()));
+		this.regionStart = 0;
+		this.pos = 0;
+		this.spill = new byte[256];
+	}
+
+	/**
+	 * Reads the next line
+	 * 
+	 * @return					The bytes of the line (without the line break) from position 0 to the limit of the
+	 * 							buffer, or null at the end of the file
+	 * @exception IOException	On input error
+	 */
+	ByteBuffer next() throws IOException
+	{
+		spillLength = -1;
+		while(true)
+		{
+			if(pos == region.limit() && !nextRegion())
+				return(spillLength > 0 ? ByteBuffer.wrap(Arrays.copyOf(spill, spillLength)) : null);
+
+			if(skipLF)
+			{
+				skipLF = false;
+				if(region.get(pos) == '\n')
+				{
+					pos++;
+					continue;
+				}
+			}
+
+			int start = pos, n = region.limit();
+			while(pos < n)
+			{
+				byte b = region.get(pos);
+				if(b == '\n' || b == '\r') break;
+				pos++;
+			}
+			int end = pos;
+
+			if(end == n) {
+				// the line continues in the next region
+				append(start, end);
+			} else {
+				if(region.get(pos++) == '\r')
+				{
+					if(pos == n) skipLF = true;
+					else if(region.get(pos) == '\n') pos++;
+				}
+				if(spillLength < 0)
+				{
+					ByteBuffer line = region.duplicate();
+					line.limit(end).position(start);
+					return line.slice();
+				}
+				append(start, end);
+				return ByteBuffer.wrap(Arrays.copyOf(spill, spillLength));
+			}
+		}
+	}
+
+	/**
+	 * Decodes a line read as bytes to a string, as BufferedReader does for UTF-8 files
+	 * 
+	 * @param line	The bytes of the line
+	 * @return		The line
+	 */
+	static String decode(ByteBuffer line)
+	{
+		byte bytes[] = new byte[line.limit()];
+		line.duplicate().get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Closes the file
+	 * 
+	 * @exception IOException	On error closing the file
+	 * @return					Nothing
+	 */
+	void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 * Maps the region following the current one
+	 * 
+	 * @return					A boolean indicating whether there is another region, i.e. the end of the file has not been reached
+	 * @exception IOException	On input error
+	 */
+	private boolean nextRegion() throws IOException
+	{
+		long start = regionStart + region.limit();
+		long size = Math.min(regionSize, channel.size() - start);
+		if(size <= 0) return false;
+
+		region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		regionStart = start;
+		pos = 0;
+		return true;
+	}
+
+	/**
+	 * Adds bytes of the region to the line being read across regions
+	 * 
+	 * @param start	The position of the first byte in the region
+	 * @param end	The position after the last byte in the region
+	 * @return		Nothing
+	 */
+	private void append(int start, int end)
+	{
+		if(spillLength < 0) spillLength = 0;
+		int n = spillLength + end - start;
+		if(n > spill.length) spill = Arrays.copyOf(spill, Math.max(n, 2 * spill.length));
+		for(int i=start; i<end; i++) spill[spillLength++] = region.get(i);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+/**
+ * A read-only view of a maze read from a MDL file, for use by other tools of the suite
+ */
+public class MazeFile
+{
+	/**
+	 * The description of the maze
+	 */
+	private final Description desc;
+
+	/**
+	 * Constructor to wrap a description object
+	 * 
+	 * @param desc	The description of the maze
+	 */
+	private MazeFile(Description desc)
+	{
+		this.desc = desc;
+	}
+
+	/**
+	 * Reads a maze from a MDL file
+	 * 
+	 * @param filename		The MDL-file to read from
+	 * @return				The maze described in the file
+	 * @exception Exception	On input error or on encountering invalid settings
+	 */
+	public static MazeFile read(String filename) throws Exception
+	{
+		Description desc = Description.readFile(filename);
+		if(desc.maze == null) throw(new Exception(filename + ": maze size is not defined"));
+		return new MazeFile(desc);
+	}
+
+	/**
+	 * Returns the width of the maze
+	 * 
+	 * @return	The width of the maze (in number of cells)
+	 */
+	public int getWidth()
+	{
+		return desc.width;
+	}
+
+	/**
+	 * Returns the height of the maze
+	 * 
+	 * @return	The height of the maze (in number of cells)
+	 */
+	public int getHeight()
+	{
+		return desc.height;
+	}
+
+	/**
+	 * Determines whether a cell of the maze is vacant
+	 * 
+	 * @param row	The row-index of the cell
+	 * @param col	The column-index of the cell
+	 * @return		A boolean indicating whether the cell is a path (true) or a wall (false)
+	 */
+	public boolean isPath(int row, int col)
+	{
+		return desc.maze.isPath(row, col);
+	}
+
+	/**
+	 * Returns the entrance of the maze, if one is defined in the file
+	 * 
+	 * @return	An array containing the row and column of the entrance, or null
+	 */
+	public int[] getEntrance()
+	{
+		return(desc.entrance == null ? null : new int[] { desc.entrance.row, desc.entrance.col });
+	}
+
+	/**
+	 * Returns the exit of the maze, if one is defined in the file
+	 * 
+	 * @return	An array containing the row and column of the exit, or null
+	 */
+	public int[] getExit()
+	{
+		return(desc.exit == null ? null : new int[] { desc.exit.row, desc.exit.col });
+	}
+}
\ No newline at end of file
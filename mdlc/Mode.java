@@ -15,7 +15,33 @@ package mdlc;
  */
 enum Mode
 {
-	JAVA_INT, JAVA_CHAR, JAVA_BOOLEAN,
-	PYTHON_INT, PYTHON_CHAR, PYTHON_BOOLEAN,
-	PNG, JPG, TIF, BMP;
+	JAVA_INT(".txt"), JAVA_CHAR(".txt"), JAVA_BOOLEAN(".txt"),
+	PYTHON_INT(".txt"), PYTHON_CHAR(".txt"), PYTHON_BOOLEAN(".txt"),
+	C_HEADER(".h"), NPY_UINT8(".npy"), RAW_UINT8(".raw"),
+	PNG(".png"), JPG(".jpg"), TIF(".tif"), BMP(".bmp"), GIF(".gif");
+
+	/**
+	 * The extension (including the dot) of the files written in this mode
+	 */
+	protected final String extension;
+
+	/**
+	 * Constructor to initialize a mode with the extension of its output files
+	 * 
+	 * @param extension	The extension of the output files
+	 */
+	Mode(String extension)
+	{
+		this.extension = extension;
+	}
+
+	/**
+	 * Determines whether this mode generates an image (of the final maze; gif generates an animation)
+	 * 
+	 * @return	A boolean indicating whether the output is an image
+	 */
+	protected boolean isImage()
+	{
+		return(this == PNG || this == JPG || this == TIF || this == BMP);
+	}
 }
\ No newline at end of file
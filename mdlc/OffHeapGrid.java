@@ -0,0 +1,138 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.File;
+import java.io.IOException;
+import mdlg.OffHeapCells;
+import mdlg.Stats;
+
+/**
+ * A grid whose cells are stored outside the Java heap, one bit per cell, for --off-heap: the cells of a maze of
+ * billions of cells then neither count against the heap nor are scanned by the garbage collector.
+ * 
+ * The cells are kept by the off-heap storage of MDLG (see OffHeapCells), in direct buffers or in buffers mapped from
+ * a temporary file when a directory is given. Every row starts on a word of its own, whose bits are laid out as those
+ * of a row of a tile. Unlike the cells, the visited paths are still kept on the heap, in the tiles on which a path is
+ * marked
+ */
+class OffHeapGrid extends Grid
+{
+	/**
+	 * The cells
+	 */
+	private final OffHeapCells cells;
+
+	/**
+	 * Constructor to create a maze in which every cell is a wall
+	 * 
+	 * @param height			The height of the maze
+	 * @param width				The width of the maze
+	 * @param directory			The directory in which to create the file the cells are mapped from, or null to keep them in direct memory
+	 * @exception IOException	On error creating or mapping the file
+	 */
+	OffHeapGrid(int height, int width, File directory) throws IOException
+	{
+		super(height, width);
+		this.cells = new OffHeapCells(height, width, directory);
+		Stats.count("off-heap-bytes", cells.bytes());
+	}
+
+	/**
+	 * Constructor to create a grid sharing the cells of another, without any visited path
+	 * 
+	 * @param grid	The grid to share the cells of
+	 */
+	private OffHeapGrid(OffHeapGrid grid)
+	{
+		super(grid);
+		this.cells = grid.cells;
+	}
+
+	/**
+	 * Creates a grid sharing the cells of this one, without any visited path
+	 * 
+	 * @return	The copy
+	 */
+	@Override
+	protected Grid withoutVisitedPaths()
+	{
+		return new OffHeapGrid(this);
+	}
+
+	/**
+	 * Determines whether a cell is a path
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the cell is a path
+	 */
+	@Override
+	protected boolean isPath(int r, int c)
+	{
+		return cells.get(r, c);
+	}
+
+	/**
+	 * Sets the type of a cell
+	 * 
+	 * @param r		The row-index of the cell
+	 * @param c		The column-index of the cell
+	 * @param type	The type of the cell
+	 * @return		Nothing
+	 */
+	@Override
+	protected void set(int r, int c, SquareType type)
+	{
+		cells.set(r, c, type == SquareType.PATH);
+	}
+
+	/**
+	 * Returns the types of the cells in the word of a row holding a cell
+	 * 
+	 * @param r	The row-index of the cells
+	 * @param c	The column-index of any cell of the word
+	 * @return	A word with bit (column % TILE) set for each cell that is a path
+	 */
+	@Override
+	protected long pathBits(int r, int c)
+	{
+		return cells.getBits(r, c);
+	}
+
+	/**
+	 * Sets the types of some of the cells in the word of a row holding a cell
+	 * 
+	 * @param r		The row-index of the cells
+	 * @param c		The column-index of any cell of the word
+	 * @param paths	A word with bit (column % TILE) set for each cell to make a path
+	 * @param mask	A word with bit (column % TILE) set for each cell to set, as a path or a wall
+	 * @return		Nothing
+	 */
+	@Override
+	protected void setBits(int r, int c, long paths, long mask)
+	{
+		cells.setBits(r, c, paths, mask);
+	}
+
+	/**
+	 * Determines whether the cells in the word of a row holding a cell are all walls without visited paths
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the cells are blank
+	 */
+	@Override
+	protected boolean isBlank(int r, int c)
+	{
+		return(cells.getBits(r, c) == 0 && hasNoVisits(r, c));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,270 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import mdlg.Stats;
+
+/**
+ * Parses the row statements of a maze file in parallel, for --parallel-parse.
+ * 
+ * The lines of the file are still read in order by one thread, which hands each row statement to this class and
+ * processes every other statement itself. Row statements are collected into chunks that are parsed by a pool of
+ * threads straight into the maze, each row being written by one thread only. Since rows, paths and settings may
+ * overwrite each other's cells (and a later size setting replaces the maze), the file is processed in the same order
+ * as by a sequential parse: the pending rows are completed (a barrier) before any other statement, and before a row
+ * that is already pending is given again
+ */
+class RowParser
+{
+	/**
+	 * The number of characters of row statements collected in a chunk before it is parsed
+	 */
+	private static final int CHUNK_CHARS = 1 << 20;
+
+	/**
+	 * The description that the rows are parsed into
+	 */
+	private final Description desc;
+
+	/**
+	 * The threads parsing the chunks
+	 */
+	private final ExecutorService pool;
+
+	/**
+	 * The maximum number of chunks being parsed at a time, which bounds the memory used by the lines waiting to be parsed
+	 */
+	private final int maxPending;
+
+	/**
+	 * The chunks being parsed, in the order of the file; each results in the number of the first line that is not a
+	 * valid row statement, or 0
+	 */
+	private final ArrayDeque<Future<Integer>> pending;
+
+	/**
+	 * The rows of the chunks being parsed and of the chunk being collected
+	 */
+	private final BitSet pendingRows;
+
+	/**
+	 * The lines of the chunk being collected (as strings, or as bytes from the memory-mapped input path), and their
+	 * line numbers
+	 */
+	private ArrayList<Object> lines;
+	private ArrayList<Integer> lineNumbers;
+
+	/**
+	 * The number of characters in the chunk being collected
+	 */
+	private int chars;
+
+	/**
+	 * The number of row statements given
+	 */
+	private long rows;
+
+	/**
+	 * Constructor to start the threads parsing the rows of a description
+	 * 
+	 * @param desc	The description that the rows are parsed into
+	 */
+	RowParser(Description desc)
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		this.desc = desc;
+		this.pool = Executors.newFixedThreadPool(threads);
+		this.maxPending = 2 * threads;
+		this.pending = new ArrayDeque<Future<Integer>>();
+		this.pendingRows = new BitSet();
+		this.lines = new ArrayList<Object>();
+		this.lineNumbers = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Takes a line of the file if it is a row statement (or is empty). Any other line must be processed by the caller,
+	 * after calling barrier(), as must a row statement that cannot be parsed in parallel because it comes before the
+	 * size setting or has an invalid row index, so that the same error is reported as by a sequential parse
+	 * 
+	 * @param line			The line, as read from the file
+	 * @param lineNumber	The number of the line in the file
+	 * @exception Exception	On error parsing the pending rows
+	 * @return				A boolean indicating whether the line was taken
+	 */
+	boolean add(String line, int lineNumber) throws Exception
+	{
+		int n = line.length(), i = 0;
+		while(i < n && Character.isWhitespace(line.charAt(i))) i++;
+		if(i == n) return true;
+		if(Character.toLowerCase(line.charAt(i)) != 'r' || desc.maze == null) return false;
+
+		// the row index, skipping spaces as the sequential parse removes them
+		int row = 0, digits = 0;
+		for(i++; i < n && line.charAt(i) != ':'; i++)
+		{
+			char c = line.charAt(i);
+			if(c == ' ') continue;
+			if(c < '0' || c > '9' || ++digits > 9) return false;
+			row = 10 * row + (c - '0');
+		}
+		if(i == n || digits == 0 || row >= desc.height) return false;
+
+		take(line, row, n, lineNumber);
+		return true;
+	}
+
+	/**
+	 * Takes a row statement read as bytes (by the memory-mapped input path), which rowIndex() has found can be
+	 * parsed from its bytes
+	 * 
+	 * @param line			The bytes of the line, which must not change until it has been parsed
+	 * @param row			The row index
+	 * @param lineNumber	The number of the line in the file
+	 * @exception Exception	On error parsing the pending rows
+	 * @return				Nothing
+	 */
+	void add(ByteBuffer line, int row, int lineNumber) throws Exception
+	{
+		take(line, row, line.limit(), lineNumber);
+	}
+
+	/**
+	 * Waits until all the row statements given have been parsed
+	 * 
+	 * @exception Exception	If a row statement is invalid, or on error parsing it
+	 * @return				Nothing
+	 */
+	void barrier() throws Exception
+	{
+		if(!lines.isEmpty()) submit();
+		while(!pending.isEmpty()) complete();
+		pendingRows.clear();
+	}
+
+	/**
+	 * Returns the number of row statements given
+	 * 
+	 * @return	The number of row statements
+	 */
+	long rows()
+	{
+		return rows;
+	}
+
+	/**
+	 * Stops the threads, abandoning any rows still being parsed
+	 * 
+	 * @return	Nothing
+	 */
+	void close()
+	{
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Adds a row statement to the chunk being collected, first completing the pending rows if the row is one of them
+	 * 
+	 * @param line			The line, as a string or as bytes
+	 * @param row			The row index
+	 * @param length		The length of the line
+	 * @param lineNumber	The number of the line in the file
+	 * @exception Exception	On error parsing the pending rows
+	 * @return				Nothing
+	 */
+	private void take(Object line, int row, int length, int lineNumber) throws Exception
+	{
+		if(pendingRows.get(row)) barrier();
+		pendingRows.set(row);
+		lines.add(line);
+		lineNumbers.add(lineNumber);
+		chars += length;
+		rows++;
+		if(chars >= CHUNK_CHARS) submit();
+	}
+
+	/**
+	 * Starts parsing the chunk being collected, first waiting for the oldest chunk if too many are being parsed
+	 * 
+	 * @exception Exception	On error parsing the oldest chunk
+	 * @return				Nothing
+	 */
+	private void submit() throws Exception
+	{
+		if(pending.size() >= maxPending) complete();
+
+		final ArrayList<Object> chunk = lines;
+		final ArrayList<Integer> chunkLines = lineNumbers;
+		pending.add(pool.submit(() -> parse(chunk, chunkLines)));
+
+		lines = new ArrayList<Object>();
+		lineNumbers = new ArrayList<Integer>();
+		chars = 0;
+	}
+
+	/**
+	 * Waits for the oldest chunk to be parsed
+	 * 
+	 * @exception Exception	If a row statement in the chunk is invalid, or on error parsing it
+	 * @return				Nothing
+	 */
+	private void complete() throws Exception
+	{
+		int invalid;
+		try {
+			invalid = pending.poll().get();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof Exception) throw (Exception)cause;
+			throw (Error)cause;
+		}
+		if(invalid > 0) throw(new Exception("Line " + invalid + ": invalid syntax"));
+	}
+
+	/**
+	 * Parses a chunk of row statements into the maze
+	 * 
+	 * @param chunk			The lines of the chunk
+	 * @param chunkLines	The line number of each line
+	 * @exception Exception	On error parsing a row
+	 * @return				The number of the first line that is not a valid row statement, or 0
+	 */
+	private Integer parse(ArrayList<Object> chunk, ArrayList<Integer> chunkLines) throws Exception
+	{
+		Stats.Timer timer = Stats.timer("parse-rows");
+		try {
+			for(int i=0; i<chunk.size(); i++)
+			{
+				timer.start();
+				boolean valid;
+				if(chunk.get(i) instanceof ByteBuffer) {
+					ByteBuffer line = (ByteBuffer)chunk.get(i);
+					valid = Description.processRow(desc, Description.rowIndex(line, desc.height), line);
+				} else {
+					String line = Description.normalize((String)chunk.get(i));
+					valid = Description.processRow(desc, line.substring(1));
+				}
+				timer.stop();
+				if(!valid) return chunkLines.get(i);
+			}
+			return 0;
+		} finally {
+			timer.close();
+		}
+	}
+}
\ No newline at end of file
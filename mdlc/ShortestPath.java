@@ -0,0 +1,174 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+/**
+ * Finds the shortest path between two cells of a maze using a breadth-first search.
+ * The search keeps all of its state in primitive arrays: a growable ring-buffer of cell indices as the queue and,
+ * for every tile of the grid that the search reaches, a bitset of visited cells and a 2-bit back-pointer per cell to
+ * rebuild the path. As with the tiles of the grid, the tiles of the search are only created once it reaches them, so
+ * a search across a large, mostly empty canvas takes memory only for the cells around the paths it follows. Cells are
+ * indexed by longs, so that canvases of more than 2^31 cells can be searched
+ */
+class ShortestPath
+{
+	/**
+	 * The row and column offsets of the four moves: left, up, right, down
+	 */
+	private static final int rowOffset[] = { 0, -1, 0, 1 };
+	private static final int colOffset[] = { -1, 0, 1, 0 };
+
+	/**
+	 * The size of the tiles of the search, as in the grid
+	 */
+	private static final int TILE_SHIFT = Grid.TILE_SHIFT;
+	private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+	/**
+	 * The number of words of a tile of the search: one visited word per row, followed by two words of moves per row
+	 */
+	private static final int TILE_WORDS = 3 << TILE_SHIFT;
+
+	/**
+	 * Finds the shortest path between two vacant cells of a maze
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param from			The cell to start from
+	 * @param to			The cell to reach
+	 * @return				The coordinates of all cells on the path, from start to end, or null if there is no path
+	 * @exception Exception	If the path has too many cells to be drawn
+	 */
+	protected static Coordinate[] solve(Description desc, Coordinate from, Coordinate to) throws Exception
+	{
+		int w = desc.width, h = desc.height;
+		if(!isOpen(desc, from.row, from.col) || !isOpen(desc, to.row, to.col)) return null;
+
+		int tileCols = (int)(((long)w + TILE_MASK) >> TILE_SHIFT);
+		long tiles[][][] = new long[(int)(((long)h + TILE_MASK) >> TILE_SHIFT)][][];
+
+		long queue[] = new long[1024];
+		int head = 0, size = 0;
+
+		long goal = (long)to.row * w + to.col;
+		tile(tiles, tileCols, from.row, from.col)[from.row & TILE_MASK] |= 1L << from.col;
+		queue[0] = (long)from.row * w + from.col;
+		size = 1;
+
+		boolean found = (queue[0] == goal);
+		while(size > 0 && !found)
+		{
+			long cell = queue[head];
+			head = (head + 1) & (queue.length - 1);
+			size--;
+
+			int r = (int)(cell / w), c = (int)(cell - (long)r * w);
+			for(int m=0; m<4; m++)
+			{
+				int nr = r + rowOffset[m], nc = c + colOffset[m];
+				if(!isOpen(desc, nr, nc)) continue;
+
+				long tile[] = tile(tiles, tileCols, nr, nc);
+				int row = nr & TILE_MASK;
+				if((tile[row] & (1L << nc)) != 0) continue;
+				tile[row] |= 1L << nc;
+				tile[(1 << TILE_SHIFT) + (row << 1) + ((nc & TILE_MASK) >>> 5)] |= (long)m << ((nc & 31) << 1);		// the move that first reached the cell
+
+				long next = (long)nr * w + nc;
+				if(next == goal)
+				{
+					found = true;
+					break;
+				}
+
+				if(size == queue.length)
+				{
+					// grow the ring-buffer, unrolling it so that the head is at the start
+					long larger[] = new long[queue.length * 2];
+					System.arraycopy(queue, head, larger, 0, queue.length - head);
+					System.arraycopy(queue, 0, larger, queue.length - head, head);
+					queue = larger;
+					head = 0;
+				}
+				queue[(head + size) & (queue.length - 1)] = next;
+				size++;
+			}
+		}
+
+		if(!found) return null;
+
+		// walk the back-pointers from the goal to the start
+		long length = 1;
+		for(int r=to.row, c=to.col; r != from.row || c != from.col; length++)
+		{
+			int m = move(tiles, tileCols, r, c);
+			r -= rowOffset[m];
+			c -= colOffset[m];
+		}
+		if(length > Integer.MAX_VALUE - 8) throw(new Exception("The shortest path has too many cells (" + length + ") to be drawn"));
+
+		Coordinate path[] = new Coordinate[(int)length];
+		for(int i=path.length-1, r=to.row, c=to.col; i>=0; i--)
+		{
+			path[i] = new Coordinate(r, c);
+			if(i == 0) break;
+			int m = move(tiles, tileCols, r, c);
+			r -= rowOffset[m];
+			c -= colOffset[m];
+		}
+
+		return path;
+	}
+
+	/**
+	 * Returns the tile of the search holding a cell, creating it if the search has not reached it yet
+	 * 
+	 * @param tiles		The tiles of the search, by row and column of tiles
+	 * @param tileCols	The number of columns of tiles
+	 * @param r			The row-index of the cell
+	 * @param c			The column-index of the cell
+	 * @return			The words of the tile
+	 */
+	private static long[] tile(long tiles[][][], int tileCols, int r, int c)
+	{
+		int tr = r >> TILE_SHIFT, tc = c >> TILE_SHIFT;
+		if(tiles[tr] == null) tiles[tr] = new long[tileCols][];
+		if(tiles[tr][tc] == null) tiles[tr][tc] = new long[TILE_WORDS];
+		return tiles[tr][tc];
+	}
+
+	/**
+	 * Determines the move by which the search first reached a given cell
+	 * 
+	 * @param tiles		The tiles of the search
+	 * @param tileCols	The number of columns of tiles
+	 * @param r			The row-index of the cell
+	 * @param c			The column-index of the cell
+	 * @return			The move (0-3)
+	 */
+	private static int move(long tiles[][][], int tileCols, int r, int c)
+	{
+		long tile[] = tile(tiles, tileCols, r, c);
+		return (int)((tile[(1 << TILE_SHIFT) + ((r & TILE_MASK) << 1) + ((c & TILE_MASK) >>> 5)] >>> ((c & 31) << 1)) & 3);
+	}
+
+	/**
+	 * Determines whether a cell lies inside the maze and is vacant
+	 * 
+	 * @param desc	A description object describing the maze
+	 * @param r		The row-index of the cell
+	 * @param c		The column-index of the cell
+	 * @return		A boolean indicating whether the cell can be walked on
+	 */
+	private static boolean isOpen(Description desc, int r, int c)
+	{
+		return(r >= 0 && r < desc.height && c >= 0 && c < desc.width && desc.maze.isPath(r, c));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import javax.imageio.ImageIO;
+import mdlg.Stats;
+
+/**
+ * The sprite images read during a run, shared by all the maze files compiled, so that a batch compile decodes
+ * each distinct sprite once.
+ * 
+ * A sprite is keyed on the canonical path and the modification time of its file, so that an edited sprite is
+ * read again. It is kept converted to the type of the images drawn by the compiler, along with a copy scaled to
+ * each unit it has been used with, and the sprites least recently used are dropped once the images kept take up
+ * more than MAX_BYTES
+ */
+class SpriteCache
+{
+	/**
+	 * The maximum number of bytes of images kept
+	 */
+	private static final long MAX_BYTES = 64L << 20;
+
+	/**
+	 * A sprite read from a file
+	 */
+	private static class Entry
+	{
+		/**
+		 * The image, converted to the type of the images drawn
+		 */
+		final BufferedImage image;
+
+		/**
+		 * The image scaled to each unit it has been used with
+		 */
+		final HashMap<Integer, BufferedImage> scaled;
+
+		/**
+		 * The number of bytes taken up by the images of this entry
+		 */
+		long bytes;
+
+		/**
+		 * Constructor to create an entry for an image
+		 * 
+		 * @param image	The image, converted to the type of the images drawn
+		 */
+		Entry(BufferedImage image)
+		{
+			this.image = image;
+			this.scaled = new HashMap<Integer, BufferedImage>();
+			this.bytes = 4L * image.getWidth() * image.getHeight();
+		}
+	}
+
+	/**
+	 * The sprites kept, by canonical path and modification time, from the least to the most recently used
+	 */
+	private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * The number of bytes taken up by all the images kept
+	 */
+	private static long bytes = 0;
+
+	/**
+	 * Returns a sprite scaled to the size of a cell, reading the image file only if it has not been read
+	 * (or has changed) since it was last used
+	 * 
+	 * @param path				The path to the image file
+	 * @param unit				The size of each cell (in pixels)
+	 * @return					The sprite, or null if the file is not an image in a supported format
+	 * @exception IOException	On input error
+	 */
+	static BufferedImage get(String path, int unit) throws IOException
+	{
+		File file = new File(path).getCanonicalFile();
+		String key = file.getPath() + "\t" + file.lastModified();
+
+		Entry entry;
+		synchronized(SpriteCache.class)
+		{
+			entry = entries.get(key);
+		}
+
+		if(entry == null)
+		{
+			// decode outside the lock, so that other files can be compiled meanwhile
+			BufferedImage image = ImageIO.read(file);
+			if(image == null) return null;
+			Stats.count("sprites-decoded", 1);
+
+			BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			draw(converted, image);
+
+			synchronized(SpriteCache.class)
+			{
+				entry = entries.get(key);
+				if(entry == null)
+				{
+					entry = new Entry(converted);
+					entries.put(key, entry);
+					bytes += entry.bytes;
+				}
+			}
+		} else {
+			Stats.count("sprite-cache-hits", 1);
+		}
+
+		synchronized(SpriteCache.class)
+		{
+			BufferedImage sprite = entry.scaled.get(unit);
+			if(sprite == null)
+			{
+				sprite = new BufferedImage(unit, unit, BufferedImage.TYPE_INT_ARGB);
+				draw(sprite, entry.image);
+				entry.scaled.put(unit, sprite);
+				if(entries.get(key) == entry)
+				{
+					entry.bytes += 4L * unit * unit;
+					bytes += 4L * unit * unit;
+				}
+			}
+			evict();
+			return sprite;
+		}
+	}
+
+	/**
+	 * Draws an image over the whole of another, replacing its pixels (including their transparency)
+	 * 
+	 * @param target	The image to draw into
+	 * @param image		The image to draw, scaled to the size of the target
+	 * @return			Nothing
+	 */
+	private static void draw(BufferedImage target, BufferedImage image)
+	{
+		Graphics2D graphics = target.createGraphics();
+		graphics.setComposite(AlphaComposite.Src);
+		graphics.drawImage(image, 0, 0, target.getWidth(), target.getHeight(), null);
+		graphics.dispose();
+	}
+
+	/**
+	 * Drops the sprites least recently used until the images kept take up at most MAX_BYTES
+	 * 
+	 * @return	Nothing
+	 */
+	private static void evict()
+	{
+		Iterator<Entry> it = entries.values().iterator();
+		while(bytes > MAX_BYTES && it.hasNext())
+		{
+			bytes -= it.next().bytes;
+			it.remove();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a maze as Java/Python/C source code. Each output mode gets its own emitter
+ * whose tokens are encoded once, so that every row can be formatted into a single
+ * reusable buffer and streamed straight to the output file
+ */
+class TextEmitter
+{
+	/**
+	 * The bytes written before the first row
+	 */
+	private final byte prologue[];
+
+	/**
+	 * The bytes written at the start of every row
+	 */
+	private final byte rowOpen[];
+
+	/**
+	 * The bytes written between two consecutive cells of a row
+	 */
+	private final byte separator[];
+
+	/**
+	 * The bytes written at the end of every row except the last one
+	 */
+	private final byte rowClose[];
+
+	/**
+	 * The bytes written at the end of the last row
+	 */
+	private final byte lastRowClose[];
+
+	/**
+	 * The bytes written after the last row
+	 */
+	private final byte epilogue[];
+
+	/**
+	 * The encoded placeholder of each cell-state, indexed by the cell-state constants of the description
+	 */
+	private final byte tokens[][];
+
+	/**
+	 * Constructor to initialize an emitter with the encoded pieces of its output
+	 * 
+	 * @param prologue		The text written before the first row
+	 * @param rowOpen		The text written at the start of every row
+	 * @param separator		The text written between two cells
+	 * @param rowClose		The text written at the end of every row except the last one
+	 * @param lastRowClose	The text written at the end of the last row
+	 * @param epilogue		The text written after the last row
+	 * @param tokens		The placeholders for path, wall, visited and current-position cells
+	 */
+	private TextEmitter(String prologue, String rowOpen, String separator, String rowClose, String lastRowClose, String epilogue, String tokens[])
+	{
+		this.prologue = encode(prologue);
+		this.rowOpen = encode(rowOpen);
+		this.separator = encode(separator);
+		this.rowClose = encode(rowClose);
+		this.lastRowClose = encode(lastRowClose);
+		this.epilogue = encode(epilogue);
+
+		this.tokens = new byte[tokens.length][];
+		for(int i=0; i<tokens.length; i++) this.tokens[i] = encode(tokens[i]);
+	}
+
+	/**
+	 * Creates the emitter for a given text output mode
+	 * 
+	 * @param mode	The output mode
+	 * @param desc	A description object supplying the placeholders
+	 * @return		The emitter for that mode, or null if the mode does not produce code
+	 * @exception Exception	If the placeholders cannot be represented in that mode
+	 */
+	protected static TextEmitter forMode(Mode mode, Description desc) throws Exception
+	{
+		switch(mode)
+		{
+			case JAVA_INT:
+				return new TextEmitter("int maze[][] = {\n", "\t{ ", ", ", " },\n", " }\n", "};", intTokens(desc));
+
+			case JAVA_CHAR:
+				return new TextEmitter("char maze[][] = {\n", "\t{ ", ", ", " },\n", " }\n", "};", charTokens(desc, "'"));
+
+			case JAVA_BOOLEAN:
+				return new TextEmitter("boolean maze[][] = {\n", "\t{ ", ", ", " },\n", " }\n", "};", booleanTokens("true", "false"));
+
+			case PYTHON_INT:
+				return new TextEmitter("maze = [\n", "\t[ ", ", ", " \t],\n", " \t]\n", "];", intTokens(desc));
+
+			case PYTHON_CHAR:
+				return new TextEmitter("maze = [\n", "\t[ ", ", ", " \t],\n", " \t]\n", "];", charTokens(desc, "\""));
+
+			case PYTHON_BOOLEAN:
+				return new TextEmitter("maze = [\n", "\t[ ", ", ", " \t],\n", " \t]\n", "];", booleanTokens("True", "False"));
+
+			case C_HEADER:
+				BinaryEmitter.checkByteRange(desc);
+				return new TextEmitter("#ifndef MAZE_H\n#define MAZE_H\n\n" +
+										"#define MAZE_HEIGHT " + desc.height + "\n#define MAZE_WIDTH " + desc.width + "\n\n" +
+										"static const unsigned char maze[MAZE_HEIGHT][MAZE_WIDTH] = {\n",
+										"\t{ ", ", ", " },\n", " }\n", "};\n\n#endif\n", intTokens(desc));
+
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Writes the maze as code into a file
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param outputFile	The path to the output file
+	 * @exception IOException	On output error
+	 * @return 				Nothing
+	 */
+	protected void emit(Description desc, String outputFile) throws IOException
+	{
+		OutputStream out = new FileOutputStream(outputFile);
+		try {
+			emit(desc, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the maze as code into a stream, one row at a time
+	 * 
+	 * @param desc			A description object describing the maze
+	 * @param out			The stream to write to; it is not closed
+	 * @exception IOException	On output error
+	 * @return 				Nothing
+	 */
+	protected void emit(Description desc, OutputStream out) throws IOException
+	{
+		int tokenLength = 0;
+		for(int i=0; i<tokens.length; i++) tokenLength = Math.max(tokenLength, tokens[i].length);
+
+		int closeLength = Math.max(rowClose.length, lastRowClose.length);
+		byte row[] = new byte[rowOpen.length + desc.width * (tokenLength + separator.length) + closeLength];
+		byte states[] = new byte[desc.width];
+
+		out.write(prologue);
+		for(int r=0; r<desc.height; r++)
+		{
+			desc.rowStates(r, states);
+			int n = put(row, 0, rowOpen);
+			for(int c=0; c<desc.width; c++)
+			{
+				if(c > 0) n = put(row, n, separator);
+				n = put(row, n, tokens[states[c]]);
+			}
+			n = put(row, n, (r == desc.height-1 ? lastRowClose : rowClose));
+			out.write(row, 0, n);
+		}
+		out.write(epilogue);
+	}
+
+	/**
+	 * Copies a token into the row buffer
+	 * 
+	 * @param row		The row buffer
+	 * @param offset	The position in the buffer to copy to
+	 * @param token		The bytes to copy
+	 * @return			The position in the buffer just after the copied token
+	 */
+	private static int put(byte row[], int offset, byte token[])
+	{
+		System.arraycopy(token, 0, row, offset, token.length);
+		return offset + token.length;
+	}
+
+	/**
+	 * Encodes a piece of text for writing
+	 * 
+	 * @param s	The text
+	 * @return	The encoded bytes
+	 */
+	private static byte[] encode(String s)
+	{
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Builds the placeholders for the integer output modes
+	 * 
+	 * @param desc	A description object supplying the placeholders
+	 * @return		The placeholders for path, wall, visited and current-position cells
+	 */
+	private static String[] intTokens(Description desc)
+	{
+		return new String[] { String.valueOf(desc.pathInt), String.valueOf(desc.wallInt), String.valueOf(desc.visitedInt), String.valueOf(desc.positionInt) };
+	}
+
+	/**
+	 * Builds the placeholders for the character output modes
+	 * 
+	 * @param desc	A description object supplying the placeholders
+	 * @param quote	The quote character of the target language
+	 * @return		The placeholders for path, wall, visited and current-position cells
+	 */
+	private static String[] charTokens(Description desc, String quote)
+	{
+		return new String[] { quote + desc.pathChar + quote, quote + desc.wallChar + quote, quote + desc.visitedChar + quote, quote + desc.positionChar + quote };
+	}
+
+	/**
+	 * Builds the placeholders for the boolean output modes, where only walls are false
+	 * 
+	 * @param t	The literal for true in the target language
+	 * @param f	The literal for false in the target language
+	 * @return	The placeholders for path, wall, visited and current-position cells
+	 */
+	private static String[] booleanTokens(String t, String f)
+	{
+		return new String[] { t, f, t, t };
+	}
+}
\ No newline at end of file
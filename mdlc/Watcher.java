@@ -0,0 +1,242 @@
+/**
+ * Maze Description Language Compiler
+ * Distributed under Artistic License 2.0
+ * 
+ * Compiles mazes given in MDL format to beautiful maze images or Java/Python code
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlc;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recompiles maze files whenever they change, for --watch.
+ * 
+ * The last description and image of every file are kept in memory. When a file changes it is parsed again and
+ * compared with the last description: if only cells changed, the image is redrawn only in the tiles of cells
+ * that contain a change, instead of drawing the whole maze again; any change to the size, unit, colours, sprites
+ * or grid and index settings draws the image in full. The text and binary outputs are always written again
+ */
+class Watcher
+{
+	/**
+	 * The size (in cells) of the square tiles in which an image is redrawn
+	 */
+	private static final int TILE = 32;
+
+	/**
+	 * The time (in milliseconds) to wait for further changes after a file changes, as editors often write a file in
+	 * several steps
+	 */
+	private static final long SETTLE_TIME = 50;
+
+	/**
+	 * The state of a watched maze file
+	 */
+	private static class Entry
+	{
+		/**
+		 * The path to the maze file, as given
+		 */
+		String source;
+
+		/**
+		 * The path to the output file, without the extension
+		 */
+		String output;
+
+		/**
+		 * The last description compiled, or null if the file has not yet been compiled successfully
+		 */
+		Description desc;
+
+		/**
+		 * The image of the last description, or null if it has no image outputs
+		 */
+		BufferedImage image;
+	}
+
+	/**
+	 * Compiles the maze files and then recompiles each of them whenever it changes, until the program is stopped
+	 * 
+	 * @param sources		The paths to the maze files
+	 * @exception Exception	On error watching the directories of the files
+	 * @return				Nothing
+	 */
+	static void watch(String sources[]) throws Exception
+	{
+		WatchService service = FileSystems.getDefault().newWatchService();
+		HashMap<Path, Entry> entries = new HashMap<Path, Entry>();
+		Set<Path> directories = new LinkedHashSet<Path>();
+
+		for(int i=0; i<sources.length; i++)
+		{
+			Entry entry = new Entry();
+			entry.source = sources[i];
+			entry.output = sources[i].substring(0, sources[i].lastIndexOf("."));
+
+			Path path = Paths.get(sources[i]).toAbsolutePath().normalize();
+			entries.put(path, entry);
+			if(directories.add(path.getParent()))
+				path.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+			compile(entry);
+		}
+		System.out.println("Watching " + sources.length + " file(s) for changes, press Ctrl+C to stop");
+
+		while(true)
+		{
+			Set<Entry> changed = new LinkedHashSet<Entry>();
+			WatchKey key = service.take();
+			while(key != null)
+			{
+				Path directory = (Path)key.watchable();
+				for(WatchEvent<?> event : key.pollEvents())
+				{
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						changed.addAll(entries.values());
+					} else {
+						Entry entry = entries.get(directory.resolve((Path)event.context()));
+						if(entry != null) changed.add(entry);
+					}
+				}
+				key.reset();
+				key = service.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+			}
+
+			for(Entry entry : changed) compile(entry);
+		}
+	}
+
+	/**
+	 * Compiles a maze file again, redrawing only the parts of its image that have changed. If the file cannot be
+	 * compiled, the error is reported and the last outputs are kept
+	 * 
+	 * @param entry	The state of the file
+	 * @return		Nothing
+	 */
+	private static void compile(Entry entry)
+	{
+		long start = System.nanoTime();
+		try {
+			Description desc = Description.readFile(entry.source);
+			boolean hasImage = false;
+			for(Mode mode : desc.outputModes)
+				hasImage |= mode.isImage();
+
+			String result;
+			if(!hasImage) {
+				entry.image = null;
+				result = "maze generated successfully";
+			} else if(entry.image == null || !sameAppearance(entry.desc, desc)) {
+				entry.image = Generator.render(desc);
+				result = "maze generated successfully";
+			} else {
+				int cells = redrawChanges(entry.image, entry.desc, desc);
+				result = "maze updated, " + cells + " cell(s) redrawn";
+			}
+
+			Generator.generateMaze(desc, entry.output, entry.image);
+			entry.desc = desc;
+			System.out.println(entry.source + ": " + result + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+		} catch(Exception e) {
+			// the image may have been partly redrawn, so draw it in full next time
+			entry.image = null;
+			System.out.println(entry.source + ": an error occurred during maze generation, the last outputs are kept:\n" + e.toString());
+		}
+	}
+
+	/**
+	 * Determines whether two descriptions are drawn with the same size, unit, colours, sprites and settings,
+	 * so that an image of one can be turned into an image of the other by redrawing the cells that differ
+	 * 
+	 * @param a	The first description
+	 * @param b	The second description
+	 * @return	A boolean indicating whether only the cells of the descriptions can differ
+	 */
+	private static boolean sameAppearance(Description a, Description b)
+	{
+		return(a.width == b.width && a.height == b.height && a.squareSize == b.squareSize &&
+				a.showGrid == b.showGrid && a.showIndices == b.showIndices &&
+				a.pathColor.equals(b.pathColor) && a.wallColor.equals(b.wallColor) &&
+				a.gridColor.equals(b.gridColor) && a.positionColor.equals(b.positionColor) &&
+				a.visitedSprite == b.visitedSprite && a.positionSprite == b.positionSprite &&
+				Arrays.equals(a.outputModes, b.outputModes));
+	}
+
+	/**
+	 * Determines whether two current positions are the same
+	 * 
+	 * @param p	The first position, or null
+	 * @param q	The second position, or null
+	 * @return	A boolean indicating whether both are null or both are the same cell
+	 */
+	private static boolean samePosition(Coordinate p, Coordinate q)
+	{
+		if(p == null || q == null) return(p == q);
+		return(p.row == q.row && p.col == q.col);
+	}
+
+	/**
+	 * Redraws the tiles of an image that contain a cell whose type, visited paths or current position has changed
+	 * 
+	 * @param image	The image of the old description
+	 * @param prev	The old description
+	 * @param desc	The new description, with the same appearance as the old one
+	 * @return		The number of cells redrawn
+	 */
+	static int redrawChanges(BufferedImage image, Description prev, Description desc)
+	{
+		int tileRows = (desc.height + TILE - 1) / TILE;
+		int tileCols = (desc.width + TILE - 1) / TILE;
+		boolean dirty[][] = new boolean[tileRows][tileCols];
+
+		for(int r=0; r<desc.height; r++)
+		{
+			for(int c=0; c<desc.width; c++)
+			{
+				if(prev.maze.isPath(r, c) != desc.maze.isPath(r, c) || !Objects.equals(prev.maze.visits(r, c), desc.maze.visits(r, c)) ||
+					!Objects.equals(prev.maze.colors(r, c), desc.maze.colors(r, c)))
+				{
+					dirty[r / TILE][c / TILE] = true;
+				}
+			}
+		}
+
+		for(Coordinate p : new Coordinate[] { prev.currentPosition, desc.currentPosition })
+		{
+			if(p != null && p.row >= 0 && p.row < desc.height && p.col >= 0 && p.col < desc.width)
+				dirty[p.row / TILE][p.col / TILE] |= !samePosition(prev.currentPosition, desc.currentPosition);
+		}
+
+		int cells = 0;
+		for(int tr=0; tr<tileRows; tr++)
+		{
+			for(int tc=0; tc<tileCols; tc++)
+			{
+				if(!dirty[tr][tc]) continue;
+				int r0 = tr * TILE, c0 = tc * TILE;
+				int r1 = Math.min(r0 + TILE, desc.height), c1 = Math.min(c0 + TILE, desc.width);
+				Generator.redraw(image, desc, r0, c0, r1, c1);
+				cells += (r1 - r0) * (c1 - c0);
+			}
+		}
+		return cells;
+	}
+}
\ No newline at end of file
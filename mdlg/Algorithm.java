@@ -0,0 +1,77 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The maze generation algorithms, selected with the algorithm setting of the configuration file
+ */
+enum Algorithm
+{
+	RECURSIVE_DIVISION, ELLER, WILSON, KRUSKAL, GROWING_TREE;
+
+	/**
+	 * Returns the name of the algorithm as used in configuration files
+	 * 
+	 * @return	The name of the algorithm
+	 */
+	String getName()
+	{
+		return name().toLowerCase().replace('_', '-');
+	}
+
+	/**
+	 * Finds an algorithm by the name used in configuration files
+	 * 
+	 * @param name			The name of the algorithm
+	 * @return				The algorithm
+	 * @exception Exception	If there is no algorithm by that name
+	 */
+	static Algorithm fromName(String name) throws Exception
+	{
+		for(Algorithm a : values()) if(a.getName().equals(name)) return a;
+
+		StringBuilder sb = new StringBuilder();
+		for(Algorithm a : values()) sb.append(sb.length() == 0 ? "" : ", ").append(a.getName());
+		throw(new Exception("Unknown algorithm '" + name + "', expected one of: " + sb));
+	}
+
+	/**
+	 * Generates a maze held entirely in memory. Mazes generated by Eller's algorithm are collected row by row.
+	 * 
+	 * @param width			The width of the maze in number of cells
+	 * @param height		The height of the maze in number of cells
+	 * @param random		The source of randomness
+	 * @param choice		The cell-choice policy of the growing-tree algorithm
+	 * @return 				The generated maze as a boolean matrix, or null if the dimensions are invalid
+	 */
+	boolean[][] generate(int width, int height, Random random, GrowingTreeMazeGenerator.CellChoice choice)
+	{
+		switch(this)
+		{
+			case ELLER:
+				final boolean maze[][] = new boolean[Math.max(height, 0)][];
+				try {
+					final int row[] = { 0 };
+					if(!EllerMazeGenerator.generateMaze(width, height, random, r -> maze[row[0]++] = r.clone())) return null;
+				} catch(IOException e) {
+					throw(new IllegalStateException(e));		// not thrown when writing to memory
+				}
+				return maze;
+			case WILSON:			return WilsonMazeGenerator.generateMaze(width, height, random);
+			case KRUSKAL:			return KruskalMazeGenerator.generateMaze(width, height, random);
+			case GROWING_TREE:		return GrowingTreeMazeGenerator.generateMaze(width, height, random, choice);
+			default:				return RandomMazeGenerator.generateMaze(width, height, random);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+/**
+ * Records the passages carved between the cells of a perfect maze. As in EllerMazeGenerator, cells lie on odd rows
+ * and columns of the maze and the walls between them on even ones; cells are numbered row by row, and the openings
+ * to the right of and below every cell are kept as two bits of a single byte array
+ */
+class CellPassages
+{
+	/**
+	 * The bit set when the wall to the right of a cell is open
+	 */
+	private static final byte RIGHT = 1;
+
+	/**
+	 * The bit set when the wall below a cell is open
+	 */
+	private static final byte DOWN = 2;
+
+	/**
+	 * The number of columns of cells
+	 */
+	final int cols;
+
+	/**
+	 * The number of rows of cells
+	 */
+	final int rows;
+
+	/**
+	 * The open walls to the right of and below each cell
+	 */
+	private final byte open[];
+
+	/**
+	 * Constructor to create a maze with all walls closed
+	 * 
+	 * @param width		The width of the maze in number of cells
+	 * @param height	The height of the maze in number of cells
+	 */
+	CellPassages(int width, int height)
+	{
+		this.cols = (width - 1) / 2;
+		this.rows = (height - 1) / 2;
+		this.open = new byte[cols * rows];
+	}
+
+	/**
+	 * Returns the number of cells
+	 * 
+	 * @return	The number of cells
+	 */
+	int size()
+	{
+		return open.length;
+	}
+
+	/**
+	 * Returns the neighbour of a cell in a given direction
+	 * 
+	 * @param cell	The index of the cell
+	 * @param dir	The direction: 0 for up, 1 for right, 2 for down and 3 for left
+	 * @return		The index of the neighbouring cell, or -1 if it lies outside the maze
+	 */
+	int neighbour(int cell, int dir)
+	{
+		int c = cell % cols;
+		switch(dir)
+		{
+			case 0:		return(cell >= cols ? cell - cols : -1);
+			case 1:		return(c < cols-1 ? cell + 1 : -1);
+			case 2:		return(cell + cols < open.length ? cell + cols : -1);
+			default:	return(c > 0 ? cell - 1 : -1);
+		}
+	}
+
+	/**
+	 * Opens the wall between two neighbouring cells
+	 * 
+	 * @param a		The index of the first cell
+	 * @param b		The index of the second cell
+	 * @return		Nothing
+	 */
+	void carve(int a, int b)
+	{
+		if(b < a)
+		{
+			int t = a;
+			a = b;
+			b = t;
+		}
+		open[a] |= (b == a + cols ? DOWN : RIGHT);
+	}
+
+	/**
+	 * Converts the passages to a maze, with the entrance above the first cell of the first row of cells and the
+	 * exit below the last cell of the last row of cells, in the same layout as EllerMazeGenerator
+	 * 
+	 * @param width		The width of the maze in number of cells
+	 * @param height	The height of the maze in number of cells
+	 * @return			The maze as a boolean matrix with true representing vacant cells
+	 */
+	boolean[][] toMaze(int width, int height)
+	{
+		boolean maze[][] = new boolean[height][width];
+		for(int r=0; r<rows; r++)
+		{
+			boolean cellRow[] = maze[2*r + 1], wallRow[] = maze[2*r + 2];
+			for(int c=0, cell=r*cols; c<cols; c++, cell++)
+			{
+				cellRow[2*c + 1] = true;
+				if((open[cell] & RIGHT) != 0) cellRow[2*c + 2] = true;
+				if((open[cell] & DOWN) != 0) wallRow[2*c + 1] = true;
+			}
+		}
+
+		maze[0][1] = true;
+		for(int r=2*rows; r<height; r++) maze[r][2*(cols-1) + 1] = true;
+		return maze;
+	}
+}
\ No newline at end of file
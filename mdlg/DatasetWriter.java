@@ -0,0 +1,215 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes one shard of a dataset (--dataset): a header describing the records, followed by one fixed-size record per
+ * maze holding its seed, its solution and metadata, and the bits of its cells and of its solution path.
+ * 
+ * The file starts with the magic string MDLDATA followed by a byte holding the version of the format (1), a 32-bit
+ * little-endian length, and a JSON header of that length (padded with spaces and a newline so that the records begin
+ * on a 64-byte boundary) giving the size of the mazes, the number and size of the records, and the name, type and
+ * offset of each field. All numbers are little-endian. The bits of the cells (set for vacant cells) and of the
+ * solution (set for the cells on the shortest path) are in row-major order, as 64-bit words whose bit i stands for
+ * cell (64 * word + i), i.e. bytes whose least significant bit comes first
+ */
+class DatasetWriter
+{
+	/**
+	 * The magic string at the start of the file, with the version of the format
+	 */
+	private static final byte MAGIC[] = { 'M', 'D', 'L', 'D', 'A', 'T', 'A', 1 };
+
+	/**
+	 * The size of the fields of a record before the bits of the cells
+	 */
+	private static final int FIXED_BYTES = 32;
+
+	/**
+	 * The number of characters reserved in the header for the number of records, which is filled in once known
+	 */
+	private static final int COUNT_WIDTH = 20;
+
+	/**
+	 * The file of the shard, and the stream the records are written to
+	 */
+	private final FileOutputStream file;
+	private final BufferedOutputStream out;
+
+	/**
+	 * The position in the file of the number of records in the header
+	 */
+	private final int countOffset;
+
+	/**
+	 * The number of records written
+	 */
+	private long records;
+
+	/**
+	 * Constructor to create the file of a shard and write its header
+	 * 
+	 * @param fileName			The name of the file
+	 * @param width				The width of the mazes
+	 * @param height			The height of the mazes
+	 * @param algorithm			A description of the algorithm generating the mazes, given in the header
+	 * @exception IOException	On output error
+	 */
+	DatasetWriter(String fileName, int width, int height, String algorithm) throws IOException
+	{
+		int bits = gridBytes(width, height);
+		StringBuffer json = new StringBuffer("{\"format\": \"mdl-dataset\", \"version\": 1, \"generator\": \"MDLG " + MDLG.VERSION + "\", ");
+		json.append("\"algorithm\": \"" + algorithm + "\", \"width\": " + width + ", \"height\": " + height + ", ");
+		json.append("\"byte_order\": \"little\", \"bit_order\": \"row-major, least significant bit first\", ");
+		json.append("\"record_bytes\": " + recordBytes(width, height) + ", \"records\": ");
+		int count = json.length();
+		for(int i=0; i<COUNT_WIDTH; i++) json.append(' ');
+		json.append(", \"fields\": [");
+		json.append("{\"name\": \"seed\", \"type\": \"int64\", \"offset\": 0}, ");
+		json.append("{\"name\": \"entrance\", \"type\": \"int32\", \"offset\": 8}, ");
+		json.append("{\"name\": \"exit\", \"type\": \"int32\", \"offset\": 12}, ");
+		json.append("{\"name\": \"solution_length\", \"type\": \"int32\", \"offset\": 16}, ");
+		json.append("{\"name\": \"dead_ends\", \"type\": \"int32\", \"offset\": 20}, ");
+		json.append("{\"name\": \"vacant_cells\", \"type\": \"int32\", \"offset\": 24}, ");
+		json.append("{\"name\": \"grid\", \"type\": \"bits\", \"offset\": " + FIXED_BYTES + ", \"bytes\": " + bits + "}, ");
+		json.append("{\"name\": \"solution\", \"type\": \"bits\", \"offset\": " + (FIXED_BYTES + bits) + ", \"bytes\": " + bits + "}]}");
+
+		int prefix = MAGIC.length + 4;
+		while((prefix + json.length() + 1) % 64 != 0) json.append(' ');
+		json.append('\n');
+		byte text[] = json.toString().getBytes(StandardCharsets.US_ASCII);
+
+		this.file = new FileOutputStream(fileName);
+		this.out = new BufferedOutputStream(file, 1 << 16);
+		this.countOffset = prefix + count;
+		this.records = 0;
+
+		out.write(MAGIC);
+		out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(text.length).array());
+		out.write(text);
+	}
+
+	/**
+	 * Returns the name of the file of a shard
+	 * 
+	 * @param prefix	The path and name of the dataset, without the number of the shard and the extension
+	 * @param shard		The number of the shard
+	 * @return			The name of the file
+	 */
+	static String fileName(String prefix, int shard)
+	{
+		return String.format("%s-%05d.mdd", prefix, shard);
+	}
+
+	/**
+	 * Returns the size of a record
+	 * 
+	 * @param width		The width of the mazes
+	 * @param height	The height of the mazes
+	 * @return			The number of bytes of each record
+	 */
+	static int recordBytes(int width, int height)
+	{
+		return FIXED_BYTES + 2 * gridBytes(width, height);
+	}
+
+	/**
+	 * Builds the record of a maze
+	 * 
+	 * @param seed		The seed from which the maze was generated
+	 * @param maze		The maze as a boolean matrix with true representing vacant cells
+	 * @param solution	The solution and metadata of the maze
+	 * @return			The record
+	 */
+	static byte[] record(long seed, boolean maze[][], MazeSolution solution)
+	{
+		int h = maze.length, w = maze[0].length;
+		ByteBuffer record = ByteBuffer.allocate(recordBytes(w, h)).order(ByteOrder.LITTLE_ENDIAN);
+		record.putLong(seed);
+		record.putInt(solution.entrance);
+		record.putInt(solution.exit);
+		record.putInt(solution.length);
+		record.putInt(solution.deadEnds);
+		record.putInt(solution.vacantCells);
+		record.position(FIXED_BYTES);
+
+		// the cells, packed into words as the solution path already is
+		long word = 0;
+		int bit = 0;
+		for(int r=0; r<h; r++)
+		{
+			for(int c=0; c<w; c++)
+			{
+				if(maze[r][c]) word |= 1L << bit;
+				if(++bit == 64)
+				{
+					record.putLong(word);
+					word = 0;
+					bit = 0;
+				}
+			}
+		}
+		if(bit > 0) record.putLong(word);
+
+		for(int i=0; i<solution.path.length; i++) record.putLong(solution.path[i]);
+		return record.array();
+	}
+
+	/**
+	 * Writes a record
+	 * 
+	 * @param record			The record, as built by record()
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	void add(byte record[]) throws IOException
+	{
+		out.write(record);
+		records++;
+	}
+
+	/**
+	 * Fills in the number of records in the header and closes the file
+	 * 
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	void close() throws IOException
+	{
+		try {
+			out.flush();
+			String count = String.valueOf(records);
+			while(count.length() < COUNT_WIDTH) count = " " + count;
+			file.getChannel().write(ByteBuffer.wrap(count.getBytes(StandardCharsets.US_ASCII)), countOffset);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Returns the size of the bits of the cells of a maze, in whole words
+	 * 
+	 * @param width		The width of the maze
+	 * @param height	The height of the maze
+	 * @return			The number of bytes
+	 */
+	private static int gridBytes(int width, int height)
+	{
+		return (int)((((long)width * height + 63) >>> 6) << 3);
+	}
+}
\ No newline at end of file
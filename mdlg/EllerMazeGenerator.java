@@ -0,0 +1,98 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates perfect mazes one row at a time using Eller's algorithm. Only the current row is kept in memory,
+ * so the height of the maze is unbounded and every finished row is handed straight to a writer.
+ * 
+ * Cells lie on odd rows and columns and the walls between them on even ones. The cells of a row that are
+ * connected through the rows above form a set, and each set is stored as a circular doubly-linked list of
+ * columns (in the arrays left and right) kept in increasing order, so that two neighbouring cells belong
+ * to the same set exactly when one follows the other in its list
+ */
+public class EllerMazeGenerator
+{
+	/**
+	 * Generates a maze and writes it row by row. The entrance is above the first cell of the first row of cells,
+	 * and the exit below the last cell of the last row of cells
+	 * 
+	 * @param width				The width of the maze in number of cells
+	 * @param height			The height of the maze in number of cells
+	 * @param random			The source of randomness
+	 * @param out				The writer receiving the rows
+	 * @return					A boolean indicating whether the dimensions were valid
+	 * @exception IOException	On output error
+	 */
+	public static boolean generateMaze(int width, int height, Random random, MazeRowWriter out) throws IOException
+	{
+		if(width < 3 || height < 3) return false;
+
+		int cols = (width - 1) / 2, rows = (height - 1) / 2;
+		int left[] = new int[cols], right[] = new int[cols];
+		for(int c=0; c<cols; c++) left[c] = right[c] = c;
+
+		boolean cellRow[] = new boolean[width], wallRow[] = new boolean[width];
+		int exitCol = 2 * (cols - 1) + 1;
+
+		wallRow[1] = true;					// the entrance
+		out.writeRow(wallRow);
+
+		for(int r=0; r<rows; r++)
+		{
+			boolean last = (r == rows - 1);
+			Arrays.fill(wallRow, false);
+
+			for(int c=0; c<cols; c++)
+			{
+				cellRow[2*c + 1] = true;
+
+				// join with the cell to the right if it belongs to another set
+				boolean join = false;
+				if(c < cols-1 && right[c] != c+1 && (last || random.nextBoolean()))
+				{
+					left[right[c]] = left[c+1];
+					right[left[c+1]] = right[c];
+					right[c] = c+1;
+					left[c+1] = c;
+					join = true;
+				}
+				cellRow[2*c + 2] = join;
+
+				if(last) continue;
+
+				// open the wall below unless another cell of the same set does so, in which case this cell leaves its set
+				if(left[c] != c && random.nextBoolean())
+				{
+					left[right[c]] = left[c];
+					right[left[c]] = right[c];
+					left[c] = right[c] = c;
+				} else {
+					wallRow[2*c + 1] = true;
+				}
+			}
+
+			out.writeRow(cellRow);
+			if(!last) out.writeRow(wallRow);
+		}
+
+		// the remaining rows are wall, apart from the corridor leading to the exit
+		Arrays.fill(wallRow, false);
+		wallRow[exitCol] = true;
+		for(int r=2*rows; r<height; r++) out.writeRow(wallRow);
+
+		return true;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.util.Random;
+
+/**
+ * Generates perfect mazes using the growing-tree algorithm. A list of active cells (an int array) starts with one
+ * random cell; at each step a cell is chosen from the list and joined to a random unvisited neighbour, which is
+ * added to the list, or removed from the list if it has none. The texture of the maze depends on which cell is chosen
+ */
+public class GrowingTreeMazeGenerator
+{
+	/**
+	 * The policies for choosing the next cell from the list of active cells
+	 */
+	public enum CellChoice
+	{
+		/**
+		 * Always the newest cell, giving long winding corridors (as in a recursive backtracker)
+		 */
+		NEWEST,
+
+		/**
+		 * A random cell, giving many short dead-ends (as in Prim's algorithm)
+		 */
+		RANDOM,
+
+		/**
+		 * The newest or a random cell with equal probability
+		 */
+		MIXED
+	}
+
+	/**
+	 * Generates a maze
+	 * 
+	 * @param width		The width of the maze in number of cells
+	 * @param height	The height of the maze in number of cells
+	 * @param random	The source of randomness
+	 * @param choice	The policy for choosing the next cell
+	 * @return 			The generated maze as a boolean matrix, or null if the dimensions are invalid
+	 */
+	public static boolean[][] generateMaze(int width, int height, Random random, CellChoice choice)
+	{
+		if(width < 3 || height < 3) return null;
+
+		CellPassages p = new CellPassages(width, height);
+		int n = p.size();
+		boolean visited[] = new boolean[n];
+		int active[] = new int[n];
+		int candidates[] = new int[4];
+
+		int first = random.nextInt(n);
+		visited[first] = true;
+		active[0] = first;
+		int count = 1;
+
+		while(count > 0)
+		{
+			boolean newest = (choice == CellChoice.NEWEST || (choice == CellChoice.MIXED && random.nextBoolean()));
+			int index = (newest ? count - 1 : random.nextInt(count));
+			int cell = active[index];
+
+			int k = 0;
+			for(int d=0; d<4; d++)
+			{
+				int next = p.neighbour(cell, d);
+				if(next >= 0 && !visited[next]) candidates[k++] = next;
+			}
+
+			if(k == 0)
+			{
+				// remove the cell by moving the newest one into its place
+				active[index] = active[--count];
+				continue;
+			}
+
+			int next = candidates[random.nextInt(k)];
+			p.carve(cell, next);
+			visited[next] = true;
+			active[count++] = next;
+		}
+
+		return p.toMaze(width, height);
+	}
+}
\ No newline at end of file
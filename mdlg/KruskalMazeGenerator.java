@@ -0,0 +1,87 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.util.Random;
+
+/**
+ * Generates perfect mazes using randomised Kruskal's algorithm. Every wall between two cells is numbered
+ * (twice the index of the cell to its left or above, plus one for a wall below), the numbers are shuffled in
+ * an int array, and each wall is opened if the cells on either side are not yet connected, as found by a
+ * union-find held in a second int array
+ */
+public class KruskalMazeGenerator
+{
+	/**
+	 * Generates a maze
+	 * 
+	 * @param width		The width of the maze in number of cells
+	 * @param height	The height of the maze in number of cells
+	 * @param random	The source of randomness
+	 * @return 			The generated maze as a boolean matrix, or null if the dimensions are invalid
+	 */
+	public static boolean[][] generateMaze(int width, int height, Random random)
+	{
+		if(width < 3 || height < 3) return null;
+
+		CellPassages p = new CellPassages(width, height);
+		int n = p.size();
+
+		// list the walls between neighbouring cells
+		int walls[] = new int[2 * n];
+		int count = 0;
+		for(int cell=0; cell<n; cell++)
+		{
+			if(p.neighbour(cell, 1) >= 0) walls[count++] = 2 * cell;
+			if(p.neighbour(cell, 2) >= 0) walls[count++] = 2 * cell + 1;
+		}
+
+		int parent[] = new int[n];
+		for(int i=0; i<n; i++) parent[i] = i;
+
+		// visit the walls in random order (shuffling as we go) until all the cells are connected
+		int joined = 0;
+		for(int i=0; i<count && joined < n-1; i++)
+		{
+			int j = i + random.nextInt(count - i);
+			int wall = walls[j];
+			walls[j] = walls[i];
+
+			int a = wall >>> 1;
+			int b = p.neighbour(a, (wall & 1) == 0 ? 1 : 2);
+			int ra = find(parent, a), rb = find(parent, b);
+			if(ra == rb) continue;
+
+			parent[ra] = rb;
+			p.carve(a, b);
+			joined++;
+		}
+
+		return p.toMaze(width, height);
+	}
+
+	/**
+	 * Finds the representative of the set containing a cell, halving the path on the way
+	 * 
+	 * @param parent	The parent of each cell in the union-find forest
+	 * @param cell		The index of the cell
+	 * @return			The index of the representative cell
+	 */
+	private static int find(int parent[], int cell)
+	{
+		while(parent[cell] != cell)
+		{
+			parent[cell] = parent[parent[cell]];
+			cell = parent[cell];
+		}
+		return cell;
+	}
+}
\ No newline at end of file
@@ -11,6 +11,17 @@
 package mdlg;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
 
 /**
  * This is the main class handling the user-parameters, reading configuration files
@@ -29,7 +40,22 @@ public class MDLG
 	 */
 	private static final String INFO = "Maze Description Language Generator - v" + VERSION +
 										"\nby Akash Nag. This software is open-source and is distributed under Artistic License 2.0." +
-										"\nUsage:\n\t java -jar mdlg.jar <config-file> <output-files-in-mdl-format>";
+										"\nUsage:\n\t java -jar mdlg.jar [options] <config-file> <output-files-in-mdl-format>" +
+										"\n\t java -jar mdlg.jar [options] --archive=<prefix> --count=<n> <config-file>" +
+										"\n\t java -jar mdlg.jar [options] --dataset=<prefix> --count=<n> <config-file>" +
+										"\nOptions:" +
+										"\n\t--verify\t\tcheck that every maze can be solved and has no unreachable regions; mazes that fail are not written" +
+										"\n\t--verify=perfect\talso check that every maze is perfect (has no loops)" +
+										"\n\t--stats\t\t\tprint the time spent in each phase and counters of the work done" +
+										"\n\t--stats=json\t\tprint the same report as JSON" +
+										"\n\t--off-heap[=<min-cells>]\tgenerate mazes (of at least min-cells cells) outside the Java heap and stream them to the output files; recursive-division only" +
+										"\n\t--off-heap-dir=<directory>\tkeep mazes generated outside the heap in memory-mapped files in the directory, instead of in direct memory" +
+										"\n\t--compact\t\twrite the algorithm, seed and size of each maze (a generated setting) instead of its rows; MDLC generates the maze again when compiling it" +
+										"\n\t--archive=<prefix>\twrite the mazes into ZIP files named <prefix>-00000.zip, <prefix>-00001.zip, ... (shards), instead of one file each" +
+										"\n\t--dataset=<prefix>\tsolve each maze and write the maze, its solution and metadata as a fixed-size binary record into files named <prefix>-00000.mdd, ... (shards)" +
+										"\n\t--count=<n>\t\tthe number of mazes to write into the archive or dataset" +
+										"\n\t--shard-size=<n>\tthe number of mazes in each shard (10000 by default); mazes are generated on all processors" +
+										"\n\t--dedup\t\t\tgenerate a maze again (from another seed) whenever it is the same as a maze already generated in the batch";
 										
 	/**
 	 * The width of the maze (in number of cells) that will be generated
@@ -41,37 +67,717 @@ public class MDLG
 	 */
 	private static int height;
 
+	/**
+	 * The algorithm used to generate the mazes
+	 */
+	private static Algorithm algorithm = Algorithm.RECURSIVE_DIVISION;
+
+	/**
+	 * The cell-choice policy used by the growing-tree algorithm
+	 */
+	private static GrowingTreeMazeGenerator.CellChoice cellChoice = GrowingTreeMazeGenerator.CellChoice.NEWEST;
+
+	/**
+	 * The seed of the random number generator, or null to generate different mazes on every run
+	 */
+	private static Long seed;
+
+	/**
+	 * Defines whether each generated maze is verified before it is written
+	 */
+	private static boolean verify;
+
+	/**
+	 * Defines whether verification also requires the maze to be perfect
+	 */
+	private static boolean verifyPerfect;
+
+	/**
+	 * The number of cells from which mazes are generated outside the Java heap, or -1 to always generate them on the heap
+	 */
+	private static long offHeapCells = -1;
+
+	/**
+	 * The directory of the memory-mapped files holding mazes generated outside the heap, or null to use direct memory
+	 */
+	private static File offHeapDirectory;
+
+	/**
+	 * Defines whether mazes are written in compact form, as a generated setting instead of row statements
+	 */
+	private static boolean compact;
+
+	/**
+	 * The path and name of the archive that the mazes are written into (without the number of the shard and the
+	 * extension), or null to write each maze into a file of its own
+	 */
+	private static String archive;
+
+	/**
+	 * The path and name of the dataset that the mazes, their solutions and metadata are written into (without the
+	 * number of the shard and the extension), or null
+	 */
+	private static String dataset;
+
+	/**
+	 * The number of mazes written into the archive or dataset
+	 */
+	private static long archiveCount = -1;
+
+	/**
+	 * The number of mazes in each shard of the archive or dataset
+	 */
+	private static int shardSize = 10000;
+
+	/**
+	 * Defines whether duplicate mazes are generated again
+	 */
+	private static boolean dedup;
+
+	/**
+	 * The hashes of the mazes generated in the batch, if duplicates are generated again
+	 */
+	private static MazeHashSet hashes;
+
+	/**
+	 * The number of times a maze is generated before giving up, if it keeps being a duplicate
+	 */
+	private static final int DEDUP_ATTEMPTS = 100;
+
+	/**
+	 * The bounds that the mazes must meet (given in the configuration file), or null if there are none
+	 */
+	private static MazeConstraints constraints;
+
+	/**
+	 * The pool on which candidate mazes are generated in parallel when the mazes must meet constraints, or null to
+	 * generate them one after another
+	 */
+	private static ExecutorService speculation;
+
+	/**
+	 * The number of candidates generated for a maze before giving up, if none of them meets the constraints
+	 */
+	private static final int CONSTRAINT_ATTEMPTS = 10000;
+
 	/**
      * This is the main method, and it processes the command-line arguments
      * 
-     * @param args 			The name of the configuration file followed by one or more output file names
+     * @param args 			Any options, followed by the name of the configuration file and one or more output file names
      * @return 				Nothing
      * @exception Exception On input error or error in the syntax of the configuration file.
      * @see 				Exception
      */
 	public static void main(String args[]) throws Exception
 	{
-		if(args.length < 2)
+		int k = 0;
+		boolean json = false;
+		while(k < args.length && args[k].startsWith("--"))
+		{
+			if(args[k].equals("--verify")) {
+				verify = true;
+			} else if(args[k].equals("--verify=perfect")) {
+				verify = true;
+				verifyPerfect = true;
+			} else if(args[k].equals("--stats")) {
+				Stats.enabled = true;
+			} else if(args[k].equals("--stats=json")) {
+				Stats.enabled = true;
+				json = true;
+			} else if(args[k].equals("--off-heap")) {
+				offHeapCells = 0;
+			} else if(args[k].startsWith("--off-heap=")) {
+				offHeapCells = Long.parseLong(args[k].substring("--off-heap=".length()));
+			} else if(args[k].startsWith("--off-heap-dir=")) {
+				offHeapDirectory = new File(args[k].substring("--off-heap-dir=".length()));
+			} else if(args[k].equals("--compact")) {
+				compact = true;
+			} else if(args[k].startsWith("--archive=")) {
+				archive = args[k].substring("--archive=".length());
+			} else if(args[k].startsWith("--dataset=")) {
+				dataset = args[k].substring("--dataset=".length());
+			} else if(args[k].startsWith("--count=")) {
+				archiveCount = Long.parseLong(args[k].substring("--count=".length()));
+			} else if(args[k].startsWith("--shard-size=")) {
+				shardSize = Integer.parseInt(args[k].substring("--shard-size=".length()));
+			} else if(args[k].equals("--dedup")) {
+				dedup = true;
+			} else {
+				printUsage();
+				return;
+			}
+			k++;
+		}
+
+		boolean batch = (archive != null || dataset != null);
+		if(!batch ? args.length - k < 2 : (archive != null && dataset != null) || args.length - k != 1 || archiveCount < 0 || shardSize <= 0)
 		{
 			printUsage();
 		} else {
 			try {
-				String config = readConfiguration(args[0]);
-				for(int i=1; i<args.length; i++)
+				Stats.Phase phase = Stats.begin("read-config");
+				String config = readConfiguration(args[k]);
+				phase.end();
+				int n = (batch ? 0 : args.length - k - 1), failed = 0;
+				boolean offHeap = (dataset == null && offHeapCells >= 0 && (long)width * height >= offHeapCells);
+				if(offHeap && algorithm != Algorithm.RECURSIVE_DIVISION)
+				{
+					System.out.println("Note: only mazes generated by recursive division can be generated outside the heap");
+					offHeap = false;
+				}
+				if(offHeap && constraints != null)
+				{
+					System.out.println("Note: mazes that must meet constraints are checked in memory, and cannot be generated outside the heap");
+					offHeap = false;
+				}
+				boolean streamed = (algorithm == Algorithm.ELLER || offHeap);
+				if(compact || dataset != null || constraints != null) streamed = false;
+				boolean unverified = (dataset == null && (compact ? algorithm == Algorithm.ELLER : streamed));
+				if(verify && unverified) System.out.println("Note: mazes generated with Eller's algorithm or outside the heap are streamed to the output file and cannot be verified");
+
+				Random random = (seed == null ? new Random() : new Random(seed));
+				if(dedup) hashes = new MazeHashSet(batch ? archiveCount : n);
+				if(constraints != null && !batch && Runtime.getRuntime().availableProcessors() > 1)
+					speculation = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+				if(archive != null)
+				{
+					failed = generateArchive(config, random, streamed, offHeap);
+					if(verify && !unverified) System.out.println((archiveCount - failed) + "/" + archiveCount + " mazes passed verification");
+					Stats.report(json);
+					return;
+				}
+
+				if(dataset != null)
+				{
+					failed = generateDataset(random);
+					if(verify) System.out.println((archiveCount - failed) + "/" + archiveCount + " mazes passed verification");
+					Stats.report(json);
+					return;
+				}
+
+				for(int i=1; i<=n; i++)
 				{
-					String output = args[i];
-					boolean maze[][] = RandomMazeGenerator.generateMaze(width, height);
-					if(maze == null) throw(new Exception("Invalid dimensions!"));
+					String output = args[k+i];
+					if(compact)
+					{
+						// every maze gets a seed of its own, from which MDLC generates it again
+						long mazeSeed = random.nextLong();
+						boolean check = (verify && algorithm != Algorithm.ELLER);
+						if(check || dedup || constraints != null)
+						{
+							long seeds[] = { mazeSeed };
+							boolean maze[][] = generateUnique(random::nextLong, seeds);
+							mazeSeed = seeds[0];
+							String failure = (check ? verifyMaze(maze) : null);
+							if(failure != null)
+							{
+								failed++;
+								System.out.println(i + "/" + n + ": maze failed verification (" + failure + "), " + output + " not written");
+								continue;
+							}
+						}
+
+						phase = Stats.begin("write");
+						writeCompactFile(config, compactSetting(mazeSeed), output);
+						phase.end();
+						count(output);
+						System.out.println(i + "/" + n + ": maze generated successfully");
+						continue;
+					}
+
+					if(streamed)
+					{
+						// a duplicate is only known once it has been written, and is then written over
+						for(int attempt=1; ; attempt++)
+						{
+							phase = Stats.begin("generate-and-write");
+							MazeFileWriter writer = new MazeFileWriter(output, config);
+							MazeHash hash = (dedup ? new MazeHash(writer) : null);
+							try {
+								generateStreamed(random, (hash == null ? writer : hash), offHeap);
+							} finally {
+								writer.close();
+							}
+							phase.end();
+							if(hash == null || !isDuplicate(hash, attempt)) break;
+						}
+						count(output);
+						System.out.println(i + "/" + n + ": maze generated successfully");
+						continue;
+					}
+
+					boolean maze[][];
+					if(constraints == null) {
+						maze = generate(random);
+						for(int attempt=1; isDuplicate(maze, attempt); attempt++) maze = generate(random);
+					} else {
+						// the candidates are generated from seeds, drawn from the seed of the maze
+						long seeds[] = { random.nextLong() };
+						maze = generateUnique(random::nextLong, seeds);
+					}
+
+					String failure = (verify ? verifyMaze(maze) : null);
+					if(failure != null)
+					{
+						failed++;
+						System.out.println(i + "/" + n + ": maze failed verification (" + failure + "), " + output + " not written");
+						continue;
+					}
+
+					phase = Stats.begin("write");
 					writeMazeToFile(maze, config, output);
-					System.out.println(i + "/" + (args.length-1) + ": maze generated successfully");
+					phase.end();
+					count(output);
+					System.out.println(i + "/" + n + ": maze generated successfully");
 				}
+				if(verify && !unverified) System.out.println((n - failed) + "/" + n + " mazes passed verification");
+				Stats.report(json);
 			} catch(Exception e) {
 				System.out.println("An error occurred during maze generation:\n" + e.toString());
 				e.printStackTrace();
+			} finally {
+				if(speculation != null) speculation.shutdownNow();
 			}
 		}
 	}
 
+	/**
+	 * Generates the mazes of an archive, writing the shards in parallel. Each shard is given a seed of its own, from
+	 * which the seeds of its mazes are drawn, so a seeded run gives the same archive whatever the number of threads,
+	 * unless --dedup finds duplicates (which of two duplicates is generated again depends on which thread finishes first)
+	 * 
+	 * @param config		The list of configurations about the mazes
+	 * @param random		The source of randomness
+	 * @param streamed		Whether the mazes are written row by row as they are generated
+	 * @param offHeap		Whether the mazes are generated outside the heap
+	 * @exception Exception	On output error, or if the dimensions are invalid
+	 * @return				The number of mazes that failed verification, which were left out
+	 */
+	private static int generateArchive(final String config, Random random, final boolean streamed, final boolean offHeap) throws Exception
+	{
+		int shards = (int)((archiveCount + shardSize - 1) / shardSize);
+		long shardSeeds[] = new long[shards];
+		for(int s=0; s<shards; s++) shardSeeds[s] = random.nextLong();
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(shards, Runtime.getRuntime().availableProcessors())));
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for(int s=0; s<shards; s++)
+			{
+				final int shard = s;
+				results.add(pool.submit(() -> generateShard(config, shard, shardSeeds[shard], streamed, offHeap)));
+			}
+
+			int failed = 0;
+			for(int s=0; s<shards; s++)
+			{
+				try {
+					failed += results.get(s).get();
+				} catch(ExecutionException e) {
+					Throwable cause = e.getCause();
+					if(cause instanceof Exception) throw (Exception)cause;
+					throw (Error)cause;
+				}
+				System.out.println((s+1) + "/" + shards + ": shard " + ShardWriter.fileName(archive, s) + " written");
+			}
+			return failed;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Generates the mazes of a shard and writes them into its file
+	 * 
+	 * @param config		The list of configurations about the mazes
+	 * @param shard			The number of the shard
+	 * @param shardSeed		The seed from which the seeds of the mazes are drawn
+	 * @param streamed		Whether the mazes are written row by row as they are generated
+	 * @param offHeap		Whether the mazes are generated outside the heap
+	 * @exception Exception	On output error, or if the dimensions are invalid
+	 * @return				The number of mazes that failed verification, which were left out
+	 */
+	private static int generateShard(String config, int shard, long shardSeed, boolean streamed, boolean offHeap) throws Exception
+	{
+		long first = (long)shard * shardSize, last = Math.min(first + shardSize, archiveCount);
+		Random random = new Random(shardSeed);
+		String fileName = ShardWriter.fileName(archive, shard);
+		ShardWriter writer = new ShardWriter(fileName);
+		int failed = 0;
+		try {
+			for(long i=first; i<last; i++)
+			{
+				byte data[] = generateEntry(config, random, streamed, offHeap);
+				if(data == null)
+				{
+					failed++;
+					continue;
+				}
+
+				Stats.Phase phase = Stats.begin("write");
+				writer.add(String.format("maze-%09d.maze", i), data);
+				phase.end();
+				Stats.count("mazes", 1);
+				Stats.count("cells", (long)width * height);
+			}
+		} finally {
+			writer.close();
+		}
+		Stats.count("shards", 1);
+		if(Stats.active()) Stats.count("bytes-written", new File(fileName).length());
+		return failed;
+	}
+
+	/**
+	 * Generates the records of a dataset. The mazes are generated and solved on a work-stealing pool of one thread per
+	 * processor, a few mazes per thread ahead of the records being written, and their records are written in order by
+	 * this thread. The seeds of the mazes are drawn in order, so a seeded run gives the same dataset whatever the
+	 * number of threads, unless --dedup finds duplicates (which of two duplicates is generated again depends on which
+	 * thread finishes first)
+	 * 
+	 * @param random		The source of randomness
+	 * @exception Exception	On output error, or if the dimensions are invalid
+	 * @return				The number of mazes that failed verification, which were left out
+	 */
+	private static int generateDataset(Random random) throws Exception
+	{
+		int shards = (int)((archiveCount + shardSize - 1) / shardSize);
+		String name = algorithm.getName() + (algorithm == Algorithm.GROWING_TREE ? ", cell-choice=" + cellChoice.name().toLowerCase() : "");
+		ForkJoinPool pool = new ForkJoinPool();
+		int window = 4 * pool.getParallelism(), failed = 0;
+
+		try {
+			for(int s=0; s<shards; s++)
+			{
+				long first = (long)s * shardSize, last = Math.min(first + shardSize, archiveCount);
+				String fileName = DatasetWriter.fileName(dataset, s);
+				DatasetWriter writer = new DatasetWriter(fileName, width, height, name);
+				ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+				try {
+					for(long i=first; i<last; i++)
+					{
+						final long mazeSeed = random.nextLong();
+						if(pending.size() >= window) failed += writeRecord(writer, pending.poll());
+						pending.add(pool.submit(() -> datasetRecord(mazeSeed)));
+					}
+					while(!pending.isEmpty()) failed += writeRecord(writer, pending.poll());
+				} finally {
+					writer.close();
+				}
+				Stats.count("shards", 1);
+				if(Stats.active()) Stats.count("bytes-written", new File(fileName).length());
+				System.out.println((s+1) + "/" + shards + ": shard " + fileName + " written");
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return failed;
+	}
+
+	/**
+	 * Generates, verifies (if --verify is given) and solves a maze, and builds its record
+	 * 
+	 * @param mazeSeed		The seed from which the maze is generated
+	 * @exception Exception	If the dimensions are invalid
+	 * @return				The record, or null if the maze failed verification
+	 */
+	private static byte[] datasetRecord(long mazeSeed) throws Exception
+	{
+		// the seeds to generate a duplicate again from are drawn from the seed of the maze, not from the seeds of the others
+		long seeds[] = { mazeSeed };
+		boolean maze[][] = generateUnique(new Random(mazeSeed)::nextLong, seeds);
+		if(verify && verifyMaze(maze) != null) return null;
+
+		Stats.Phase phase = Stats.begin("solve");
+		MazeSolution solution = MazeSolution.solve(maze);
+		phase.end();
+
+		phase = Stats.begin("encode");
+		byte record[] = DatasetWriter.record(seeds[0], maze, solution);
+		phase.end();
+		return record;
+	}
+
+	/**
+	 * Waits for the record of a maze and writes it
+	 * 
+	 * @param writer		The shard to write the record into
+	 * @param result		The record, being built
+	 * @exception Exception	On output error, or on error generating the maze
+	 * @return				1 if the maze failed verification and was left out, 0 otherwise
+	 */
+	private static int writeRecord(DatasetWriter writer, Future<byte[]> result) throws Exception
+	{
+		byte record[];
+		try {
+			record = result.get();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof Exception) throw (Exception)cause;
+			throw (Error)cause;
+		}
+		if(record == null) return 1;
+
+		Stats.Phase phase = Stats.begin("write");
+		writer.add(record);
+		phase.end();
+		Stats.count("mazes", 1);
+		Stats.count("cells", (long)width * height);
+		return 0;
+	}
+
+	/**
+	 * Generates a maze into memory, as the contents of an entry of an archive
+	 * 
+	 * @param config		The list of configurations about the maze
+	 * @param random		The source of the seeds of the mazes of the shard, from which the seed of the maze is drawn
+	 * @param streamed		Whether the maze is written row by row as it is generated
+	 * @param offHeap		Whether the maze is generated outside the heap
+	 * @exception Exception	On output error, or if the dimensions are invalid
+	 * @return				The maze in MDL format, or null if it failed verification
+	 */
+	private static byte[] generateEntry(String config, Random random, boolean streamed, boolean offHeap) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Stats.Phase phase;
+		if(compact || !streamed)
+		{
+			long mazeSeed[] = { random.nextLong() };
+			boolean maze[][] = null;
+			boolean check = (verify && (!compact || algorithm != Algorithm.ELLER));
+			if(!compact || check || dedup || constraints != null)
+			{
+				maze = generateUnique(random::nextLong, mazeSeed);
+				if(check && verifyMaze(maze) != null) return null;
+			}
+
+			phase = Stats.begin("format");
+			if(compact) {
+				out.write((config + compactSetting(mazeSeed[0])).getBytes(StandardCharsets.UTF_8));
+			} else {
+				MazeFileWriter writer = new MazeFileWriter(out, config);
+				for(int i=0; i<height; i++) writer.writeRow(maze[i]);
+				writer.close();
+			}
+			phase.end();
+		} else {
+			for(int attempt=1; ; attempt++)
+			{
+				phase = Stats.begin("generate-and-write");
+				MazeFileWriter writer = new MazeFileWriter(out, config);
+				MazeHash hash = (dedup ? new MazeHash(writer) : null);
+				generateStreamed(new Random(random.nextLong()), (hash == null ? writer : hash), offHeap);
+				writer.close();
+				phase.end();
+				if(hash == null || !isDuplicate(hash, attempt)) break;
+				out.reset();
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Generates a maze into memory
+	 * 
+	 * @param random		The source of randomness
+	 * @exception Exception	If the dimensions are invalid
+	 * @return				The maze as a boolean matrix with true representing vacant cells
+	 */
+	private static boolean[][] generate(Random random) throws Exception
+	{
+		Stats.Phase phase = Stats.begin("generate");
+		boolean maze[][] = algorithm.generate(width, height, random, cellChoice);
+		phase.end();
+		if(maze == null) throw(new Exception("Invalid dimensions!"));
+		return maze;
+	}
+
+	/**
+	 * Generates a maze from a seed into memory and, if duplicates are generated again (--dedup), generates it again
+	 * from the next seed for as long as it is the same as a maze already generated
+	 * 
+	 * @param nextSeed		The source of the seeds to generate the maze again from
+	 * @param mazeSeed		The seed from which the maze is first generated; it is replaced by the seed of the maze returned
+	 * @exception Exception	If the dimensions are invalid, or if no new maze is found
+	 * @return				The maze as a boolean matrix with true representing vacant cells
+	 */
+	private static boolean[][] generateUnique(LongSupplier nextSeed, long mazeSeed[]) throws Exception
+	{
+		boolean maze[][] = generateAccepted(mazeSeed);
+		for(int attempt=1; isDuplicate(maze, attempt); attempt++)
+		{
+			mazeSeed[0] = nextSeed.getAsLong();
+			maze = generateAccepted(mazeSeed);
+		}
+		return maze;
+	}
+
+	/**
+	 * Generates a maze from a seed into memory and, if the mazes must meet constraints, keeps generating candidates
+	 * until one meets them. The first candidate is generated from the seed of the maze, and the others from seeds
+	 * drawn from it, so the maze accepted is the first candidate to meet the constraints, and does not depend on the
+	 * number of candidates generated at once. When there are several processors and only one maze is generated at a
+	 * time, one candidate per processor is generated in parallel, and the rest are abandoned once an earlier one is
+	 * accepted
+	 * 
+	 * @param mazeSeed		The seed of the maze; it is replaced by the seed of the candidate accepted
+	 * @exception Exception	If the dimensions are invalid, or if no candidate meets the constraints
+	 * @return				The maze as a boolean matrix with true representing vacant cells
+	 */
+	private static boolean[][] generateAccepted(long mazeSeed[]) throws Exception
+	{
+		if(constraints == null) return generate(new Random(mazeSeed[0]));
+
+		Random candidateSeeds = new Random(mazeSeed[0]);
+		long seed = mazeSeed[0];
+		int round = (speculation == null ? 1 : Runtime.getRuntime().availableProcessors());
+		for(int attempt=0; attempt<CONSTRAINT_ATTEMPTS; attempt+=round)
+		{
+			long seeds[] = new long[round];
+			for(int i=0; i<round; i++)
+			{
+				seeds[i] = seed;
+				seed = candidateSeeds.nextLong();
+			}
+
+			if(speculation == null)
+			{
+				boolean maze[][] = candidate(seeds[0]);
+				if(maze != null)
+				{
+					mazeSeed[0] = seeds[0];
+					return maze;
+				}
+				continue;
+			}
+
+			List<Future<boolean[][]>> candidates = new ArrayList<Future<boolean[][]>>();
+			for(int i=0; i<round; i++)
+			{
+				final long candidateSeed = seeds[i];
+				candidates.add(speculation.submit(() -> candidate(candidateSeed)));
+			}
+			try {
+				for(int i=0; i<round; i++)
+				{
+					boolean maze[][];
+					try {
+						maze = candidates.get(i).get();
+					} catch(ExecutionException e) {
+						Throwable cause = e.getCause();
+						if(cause instanceof Exception) throw (Exception)cause;
+						throw (Error)cause;
+					}
+					if(maze != null)
+					{
+						mazeSeed[0] = seeds[i];
+						return maze;
+					}
+				}
+			} finally {
+				for(Future<boolean[][]> c : candidates) c.cancel(false);
+			}
+		}
+		throw(new Exception("None of " + CONSTRAINT_ATTEMPTS + " mazes generated met the constraints"));
+	}
+
+	/**
+	 * Generates a candidate maze and checks it against the constraints
+	 * 
+	 * @param candidateSeed	The seed from which the candidate is generated
+	 * @exception Exception	If the dimensions are invalid
+	 * @return				The candidate as a boolean matrix with true representing vacant cells, or null if it was rejected
+	 */
+	private static boolean[][] candidate(long candidateSeed) throws Exception
+	{
+		boolean maze[][] = generate(new Random(candidateSeed));
+		Stats.Phase phase = Stats.begin("constrain");
+		boolean accepted = constraints.accept(maze);
+		phase.end();
+		if(accepted) return maze;
+		Stats.count("rejected", 1);
+		return null;
+	}
+
+	/**
+	 * Generates a maze, with Eller's algorithm or outside the heap, writing its rows as they are generated
+	 * 
+	 * @param random		The source of randomness
+	 * @param writer		The writer receiving the rows
+	 * @param offHeap		Whether the maze is generated outside the heap
+	 * @exception Exception	On output error, or if the dimensions are invalid
+	 * @return				Nothing
+	 */
+	private static void generateStreamed(Random random, MazeRowWriter writer, boolean offHeap) throws Exception
+	{
+		boolean valid = (offHeap ? RandomMazeGenerator.generateMaze(width, height, random, writer, offHeapDirectory) :
+								EllerMazeGenerator.generateMaze(width, height, random, writer));
+		if(!valid) throw(new Exception("Invalid dimensions!"));
+	}
+
+	/**
+	 * Verifies a maze
+	 * 
+	 * @param maze	The maze as a boolean matrix with true representing vacant cells
+	 * @return		The reason the maze failed verification, or null if it passed
+	 */
+	private static String verifyMaze(boolean maze[][])
+	{
+		Stats.Phase phase = Stats.begin("verify");
+		String failure = MazeVerifier.verify(maze, verifyPerfect);
+		phase.end();
+		return failure;
+	}
+
+	/**
+	 * Determines whether a maze is the same as a maze already generated in the batch, if duplicates are generated
+	 * again (--dedup), and otherwise adds it to the mazes generated
+	 * 
+	 * @param maze			The maze as a boolean matrix with true representing vacant cells
+	 * @param attempt		The number of times the maze has been generated
+	 * @exception Exception	If the maze is a duplicate and has been generated too many times
+	 * @return				A boolean indicating whether the maze is a duplicate and has to be generated again
+	 */
+	private static boolean isDuplicate(boolean maze[][], int attempt) throws Exception
+	{
+		if(hashes == null) return false;
+		Stats.Phase phase = Stats.begin("hash");
+		MazeHash hash = MazeHash.of(maze);
+		phase.end();
+		return isDuplicate(hash, attempt);
+	}
+
+	/**
+	 * Determines whether a maze is the same as a maze already generated in the batch, and otherwise adds it to the
+	 * mazes generated
+	 * 
+	 * @param hash			The hash of the maze
+	 * @param attempt		The number of times the maze has been generated
+	 * @exception Exception	If the maze is a duplicate and has been generated too many times
+	 * @return				A boolean indicating whether the maze is a duplicate and has to be generated again
+	 */
+	private static boolean isDuplicate(MazeHash hash, int attempt) throws Exception
+	{
+		if(hashes.add(hash)) return false;
+		Stats.count("duplicates", 1);
+		if(attempt >= DEDUP_ATTEMPTS)
+			throw(new Exception("Every maze generated in " + DEDUP_ATTEMPTS + " attempts was a duplicate; the batch may hold more mazes than there are mazes of this size"));
+		return true;
+	}
+
+	/**
+	 * Adds a written maze to the counters of the --stats report
+	 * 
+	 * @param outputFile	The name of the output file
+	 * @return				Nothing
+	 */
+	private static void count(String outputFile)
+	{
+		Stats.count("mazes", 1);
+		Stats.count("cells", (long)width * height);
+		if(Stats.active()) Stats.count("bytes-written", new File(outputFile).length());
+	}
+
 	/**
 	 * Displays the version information and the list of parameters 
 	 * to be passed to the program at command-line
@@ -87,29 +793,49 @@ public class MDLG
 	/**
 	 * Reads the configuration file passed as the first parameter to the program.
 	 * The configuration file contains settings that will be common to all generated mazes.
+	 * Settings meant only for the generator (the algorithm, cell-choice, seed and constraints) are not copied to the generated mazes.
 	 * 
 	 * @param fileName			Name of the configuration file
 	 * @return 					A string containing a new-line-separated list of configurations
-	 * @exception IOException	On input error
-	 * @see 					IOException
+	 * @exception Exception		On input error or on encountering an invalid generator setting
+	 * @see 					Exception
 	 */
-	private static String readConfiguration(String fileName) throws IOException
+	private static String readConfiguration(String fileName) throws Exception
 	{
 		StringBuffer sb = new StringBuffer();
 		BufferedReader br = new BufferedReader(new FileReader(fileName));
-		String s = null;
-		while((s=br.readLine())!=null)
-		{
-			String line = s.toLowerCase().trim();
-			if(line.startsWith("[size:") && line.endsWith("]"))
+		try {
+			String s = null;
+			while((s=br.readLine())!=null)
 			{
-				int x[] = paramsAsInt(extract(line, "[size:", "]"), ",");
-				width = x[0];
-				height = x[1];
+				String line = s.toLowerCase().trim();
+				if(line.startsWith("[size:") && line.endsWith("]"))
+				{
+					int x[] = paramsAsInt(extract(line, "[size:", "]"), ",");
+					width = x[0];
+					height = x[1];
+				} else if(line.startsWith("[algorithm:") && line.endsWith("]")) {
+					algorithm = Algorithm.fromName(extract(line, "[algorithm:", "]").trim());
+					continue;
+				} else if(line.startsWith("[cell-choice:") && line.endsWith("]")) {
+					String choice = extract(line, "[cell-choice:", "]").trim();
+					if(!choice.equals("newest") && !choice.equals("random") && !choice.equals("mixed"))
+						throw(new Exception("Unknown cell-choice '" + choice + "', expected one of: newest, random, mixed"));
+					cellChoice = GrowingTreeMazeGenerator.CellChoice.valueOf(choice.toUpperCase());
+					continue;
+				} else if(MazeConstraints.isConstraint(line)) {
+					if(constraints == null) constraints = new MazeConstraints();
+					constraints.parse(line);
+					continue;
+				} else if(line.startsWith("[seed:") && line.endsWith("]")) {
+					seed = Long.parseLong(extract(line, "[seed:", "]").trim());
+					continue;
+				}
+				sb.append(s + "\n");
 			}
-			sb.append(s + "\n");
+		} finally {
+			br.close();
 		}
-		br.close();
 		return sb.toString();
 	}
 
@@ -124,34 +850,96 @@ public class MDLG
 	 */
 	private static void writeMazeToFile(boolean maze[][], String config, String outputFile) throws IOException
 	{
-		BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile));
-		bw.write(config);
-		bw.write(mazeToString(maze));
-		bw.close();
+		MazeFileWriter writer = new MazeFileWriter(outputFile, config);
+		try {
+			for(int i=0; i<height; i++) writer.writeRow(maze[i]);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Builds the generated setting describing a maze in compact form: the algorithm, the seed of the maze, its size
+	 * (as width x height), the cell-choice policy for the growing-tree algorithm, and the version of the generator
+	 * 
+	 * @param mazeSeed	The seed from which the maze is generated
+	 * @return			The setting, as a line of a MDL file
+	 */
+	private static String compactSetting(long mazeSeed)
+	{
+		return "[generated:" + algorithm.getName() + ",seed=" + mazeSeed + ",size=" + width + "x" + height +
+				(algorithm == Algorithm.GROWING_TREE ? ",cell-choice=" + cellChoice.name().toLowerCase() : "") +
+				",version=" + VERSION + "]\n";
+	}
+
+	/**
+	 * Writes a maze in compact form: the configuration followed by the generated setting
+	 * 
+	 * @param config			The list of configurations about the maze
+	 * @param setting			The generated setting
+	 * @param outputFile		The name of the output file
+	 * @return 					Nothing
+	 * @exception IOException	On output error
+	 */
+	private static void writeCompactFile(String config, String setting, String outputFile) throws IOException
+	{
+		Writer out = new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8");
+		try {
+			out.write(config);
+			out.write(setting);
+		} finally {
+			out.close();
+		}
 	}
 
 	/**
-	 * Prepares a generated maze for writing to a file by converting it from boolean to a string in MDL format
+	 * Generates a maze given in compact form, as described by the value of its generated setting, exactly as MDLG
+	 * would have generated it with the same algorithm and seed. This is how MDLC expands compact maze files
 	 * 
-	 * @param maze		The generated maze
-	 * @return 			A string representation of the maze in MDL format
+	 * @param setting		The value of the generated setting, e.g. recursive-division,seed=42,size=31x31,version=1.0
+	 * @param writer		The writer receiving each row of the maze, from top to bottom
+	 * @exception Exception	On an invalid setting, an unknown algorithm or generator version, or error writing a row
+	 * @return				Nothing
 	 */
-	private static String mazeToString(boolean maze[][])
+	public static void generateMaze(String setting, MazeRowWriter writer) throws Exception
 	{
-		StringBuffer sb = new StringBuffer(height * width);
-		for(int i=0; i<height; i++)
+		String a[] = setting.toLowerCase().replace(" ", "").split(",");
+		Algorithm algo = Algorithm.fromName(a[0]);
+		GrowingTreeMazeGenerator.CellChoice choice = GrowingTreeMazeGenerator.CellChoice.NEWEST;
+		Long mazeSeed = null;
+		int w = -1, h = -1;
+
+		for(int i=1; i<a.length; i++)
 		{
-			sb.append("r" + i + ":");
-			for(int j=0; j<width; j++)
-			{
-				if(maze[i][j])
-					sb.append("p");
-				else
-					sb.append("w");
+			int p = a[i].indexOf("=");
+			if(p < 0) throw(new Exception("Invalid generated setting: " + setting));
+			String key = a[i].substring(0, p), value = a[i].substring(p+1);
+			if(key.equals("seed")) {
+				mazeSeed = Long.parseLong(value);
+			} else if(key.equals("size")) {
+				int x[] = paramsAsInt(value, "x");
+				w = x[0];
+				h = x[1];
+			} else if(key.equals("cell-choice")) {
+				choice = GrowingTreeMazeGenerator.CellChoice.valueOf(value.toUpperCase());
+			} else if(key.equals("version")) {
+				if(!value.equals(VERSION)) throw(new Exception("Maze was generated by MDLG version '" + value + "', cannot generate it again with version '" + VERSION + "'"));
+			} else {
+				throw(new Exception("Unknown key '" + key + "' in generated setting"));
 			}
-			sb.append(";\n");
 		}
-		return sb.toString();
+		if(mazeSeed == null || w < 0) throw(new Exception("Generated setting must give the seed and size of the maze"));
+
+		Random random = new Random(mazeSeed);
+		if(algo == Algorithm.ELLER)
+		{
+			if(!EllerMazeGenerator.generateMaze(w, h, random, writer)) throw(new Exception("Invalid dimensions!"));
+			return;
+		}
+
+		boolean maze[][] = algo.generate(w, h, random, choice);
+		if(maze == null) throw(new Exception("Invalid dimensions!"));
+		for(int i=0; i<maze.length; i++) writer.writeRow(maze[i]);
 	}
 
 	/**
@@ -0,0 +1,104 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+/**
+ * The bounds that the mazes of a batch must meet (given by the min-solution-length, max-solution-length,
+ * min-dead-end-ratio and max-dead-end-ratio settings), measured as by MazeSolution: the solution length is the number
+ * of cells on the shortest path from the entrance to the exit, and the dead-end ratio the number of dead ends over
+ * the number of vacant cells.
+ * 
+ * A maze is checked against the cheapest bounds first: the dead ends are counted in one pass over the cells, and only
+ * then is the shortest path searched for, by a breadth-first search that gives up as soon as it is longer than the
+ * maximum length. Both are done by the methods MazeSolution measures mazes with
+ */
+public class MazeConstraints
+{
+	/**
+	 * The bounds of the solution length
+	 */
+	private int minSolutionLength = 0, maxSolutionLength = Integer.MAX_VALUE;
+
+	/**
+	 * The bounds of the dead-end ratio
+	 */
+	private double minDeadEndRatio = 0, maxDeadEndRatio = 1;
+
+	/**
+	 * The names of the settings giving the constraints
+	 */
+	private static final String NAMES[] = { "min-solution-length", "max-solution-length", "min-dead-end-ratio", "max-dead-end-ratio" };
+
+	/**
+	 * Determines whether a line of the configuration file gives a constraint
+	 * 
+	 * @param line	The line, in lower case and trimmed
+	 * @return		A boolean indicating whether the line is a constraint
+	 */
+	public static boolean isConstraint(String line)
+	{
+		for(int i=0; i<NAMES.length; i++) if(line.startsWith("[" + NAMES[i] + ":") && line.endsWith("]")) return true;
+		return false;
+	}
+
+	/**
+	 * Reads a constraint from a line of the configuration file
+	 * 
+	 * @param line			The line, in lower case and trimmed
+	 * @exception Exception	If the value of the constraint is invalid, or contradicts the other bound
+	 * @return				Nothing
+	 */
+	public void parse(String line) throws Exception
+	{
+		String name = line.substring(1, line.indexOf(':'));
+		String value = line.substring(line.indexOf(':') + 1, line.length() - 1).trim();
+		try {
+			switch(name)
+			{
+				case "min-solution-length":		minSolutionLength = Integer.parseInt(value); break;
+				case "max-solution-length":		maxSolutionLength = Integer.parseInt(value); break;
+				case "min-dead-end-ratio":		minDeadEndRatio = Double.parseDouble(value); break;
+				default:						maxDeadEndRatio = Double.parseDouble(value); break;
+			}
+		} catch(NumberFormatException e) {
+			throw(new Exception("Invalid value '" + value + "' for " + name));
+		}
+		if(minSolutionLength > maxSolutionLength || minDeadEndRatio > maxDeadEndRatio)
+			throw(new Exception("The minimum " + name.substring(4) + " is greater than the maximum"));
+	}
+
+	/**
+	 * Determines whether a maze meets the constraints
+	 * 
+	 * @param maze	The maze as a boolean matrix with true representing vacant cells
+	 * @return		A boolean indicating whether the maze is accepted
+	 */
+	public boolean accept(boolean maze[][])
+	{
+		int entrance = MazeSolution.entrance(maze), exit = MazeSolution.exit(maze);
+
+		if(minDeadEndRatio > 0 || maxDeadEndRatio < 1)
+		{
+			int cells[] = MazeSolution.countCells(maze, entrance, exit);
+			double ratio = (cells[0] == 0 ? 0 : (double)cells[1] / cells[0]);
+			if(ratio < minDeadEndRatio || ratio > maxDeadEndRatio) return false;
+		}
+
+		if(minSolutionLength > 0 || maxSolutionLength < Integer.MAX_VALUE)
+		{
+			int length = 0;
+			if(entrance >= 0 && exit >= 0)
+				length = MazeSolution.search(maze, entrance, exit, new int[maze.length * maze[0].length], maxSolutionLength);
+			if(length < minSolutionLength || length > maxSolutionLength) return false;
+		}
+		return true;
+	}
+}
\ No newline at end of file
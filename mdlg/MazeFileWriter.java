@@ -0,0 +1,99 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a maze in MDL format, one row statement at a time, formatting every row into a single reusable buffer
+ */
+class MazeFileWriter implements MazeRowWriter
+{
+	/**
+	 * The stream the file is written to
+	 */
+	private final OutputStream out;
+
+	/**
+	 * The buffer each row statement is formatted into
+	 */
+	private byte line[];
+
+	/**
+	 * The index of the next row to be written
+	 */
+	private int rowIndex;
+
+	/**
+	 * Constructor to create the output file and write the configuration to it
+	 * 
+	 * @param outputFile		The name of the output file
+	 * @param config			The list of configurations about the maze
+	 * @exception IOException	On output error
+	 */
+	public MazeFileWriter(String outputFile, String config) throws IOException
+	{
+		this(new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16), config);
+	}
+
+	/**
+	 * Constructor to write a maze to a stream, such as one holding the maze in memory until it is added to an archive
+	 * 
+	 * @param out				The stream to write to; it is closed by close()
+	 * @param config			The list of configurations about the maze
+	 * @exception IOException	On output error
+	 */
+	public MazeFileWriter(OutputStream out, String config) throws IOException
+	{
+		this.out = out;
+		this.out.write(config.getBytes(StandardCharsets.UTF_8));
+		this.line = new byte[0];
+		this.rowIndex = 0;
+	}
+
+	/**
+	 * Writes the next row of the maze as a statement of the form r<index>:<data>;
+	 * 
+	 * @param row				The cells of the row, with true representing vacant cells
+	 * @exception IOException	On output error
+	 */
+	@Override
+	public void writeRow(boolean row[]) throws IOException
+	{
+		byte prefix[] = ("r" + rowIndex + ":").getBytes(StandardCharsets.US_ASCII);
+		int n = prefix.length + row.length + 2;
+		if(line.length < n) line = new byte[n + 16];
+
+		System.arraycopy(prefix, 0, line, 0, prefix.length);
+		int k = prefix.length;
+		for(int j=0; j<row.length; j++) line[k++] = (byte)(row[j] ? 'p' : 'w');
+		line[k++] = ';';
+		line[k++] = '\n';
+
+		out.write(line, 0, k);
+		rowIndex++;
+	}
+
+	/**
+	 * Flushes and closes the output file
+	 * 
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
\ No newline at end of file
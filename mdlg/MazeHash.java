@@ -0,0 +1,153 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.IOException;
+
+/**
+ * Computes a 128-bit hash of the cells of a maze, row by row, for detecting duplicate mazes in a batch (--dedup).
+ * 
+ * Each row is packed into words of 64 cells, which are mixed into two independent 64-bit lanes (in the manner of
+ * MurmurHash3), each lane ending the row with its length, so that the hash of a maze streamed to its output file can
+ * be computed as its rows are written, without holding the maze in memory. Two different mazes have the same hash
+ * with a probability of about 2^-128
+ */
+public class MazeHash implements MazeRowWriter
+{
+	/**
+	 * The multipliers of the words mixed into the lanes
+	 */
+	private static final long C1 = 0x87c37b91114253d5L, C2 = 0x4cf5ad432745937fL;
+
+	/**
+	 * The writer the rows are passed on to, or null
+	 */
+	private final MazeRowWriter next;
+
+	/**
+	 * The two lanes of the hash
+	 */
+	private long h1, h2;
+
+	/**
+	 * The number of rows hashed
+	 */
+	private int rows;
+
+	/**
+	 * Constructor to hash the rows of a maze, passing them on to another writer
+	 * 
+	 * @param next	The writer the rows are passed on to, or null
+	 */
+	public MazeHash(MazeRowWriter next)
+	{
+		this.next = next;
+		this.h1 = 0x9e3779b97f4a7c15L;
+		this.h2 = 0xc2b2ae3d27d4eb4fL;
+		this.rows = 0;
+	}
+
+	/**
+	 * Hashes a maze
+	 * 
+	 * @param maze	The maze as a boolean matrix with true representing vacant cells
+	 * @return		The hash of the maze
+	 */
+	public static MazeHash of(boolean maze[][])
+	{
+		MazeHash hash = new MazeHash(null);
+		for(int i=0; i<maze.length; i++) hash.add(maze[i]);
+		return hash;
+	}
+
+	/**
+	 * Hashes the next row of the maze and passes it on
+	 * 
+	 * @param row				The cells of the row, with true representing vacant cells
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	@Override
+	public void writeRow(boolean row[]) throws IOException
+	{
+		add(row);
+		if(next != null) next.writeRow(row);
+	}
+
+	/**
+	 * Returns the high 64 bits of the hash of the rows hashed so far
+	 * 
+	 * @return	The high 64 bits
+	 */
+	public long high()
+	{
+		return fmix(fmix(h1 ^ rows) + fmix(h2 ^ rows));
+	}
+
+	/**
+	 * Returns the low 64 bits of the hash of the rows hashed so far
+	 * 
+	 * @return	The low 64 bits
+	 */
+	public long low()
+	{
+		return fmix(h2 ^ rows) + high();
+	}
+
+	/**
+	 * Mixes a row into the lanes
+	 * 
+	 * @param row	The cells of the row, with true representing vacant cells
+	 * @return		Nothing
+	 */
+	private void add(boolean row[])
+	{
+		for(int c=0; c<row.length; c+=64)
+		{
+			long word = 0;
+			int end = Math.min(c + 64, row.length);
+			for(int i=c; i<end; i++) word |= (row[i] ? 1L : 0L) << i;
+			mix(word);
+		}
+		mix(row.length);
+		rows++;
+	}
+
+	/**
+	 * Mixes a word into both lanes
+	 * 
+	 * @param word	The word
+	 * @return		Nothing
+	 */
+	private void mix(long word)
+	{
+		h1 ^= Long.rotateLeft(word * C1, 31) * C2;
+		h1 = Long.rotateLeft(h1, 27) * 5 + 0x52dce729;
+		h2 ^= Long.rotateLeft(word * C2, 33) * C1;
+		h2 = Long.rotateLeft(h2, 31) * 5 + 0x38495ab5;
+	}
+
+	/**
+	 * Finalizes a 64-bit value so that every bit of the result depends on every bit of the value
+	 * 
+	 * @param k	The value
+	 * @return	The finalized value
+	 */
+	private static long fmix(long k)
+	{
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+}
\ No newline at end of file
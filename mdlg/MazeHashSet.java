@@ -0,0 +1,138 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+/**
+ * A set of 128-bit maze hashes (see MazeHash) that can be added to by many threads at once, for detecting duplicate
+ * mazes in a batch (--dedup).
+ * 
+ * The hashes are kept in open-addressing tables of longs (two per hash, probed linearly), so every hash takes a fixed
+ * 16 bytes with no object of its own. The set is split into segments by the top bits of the hash, each locked on its
+ * own, so that threads adding hashes seldom wait for each other. The tables are sized for the number of mazes
+ * expected, at most half full, and doubled if more are added
+ */
+class MazeHashSet
+{
+	/**
+	 * The number of segments (as a power of two)
+	 */
+	private static final int SEGMENT_BITS = 6;
+
+	/**
+	 * The segments
+	 */
+	private final Segment segments[];
+
+	/**
+	 * A segment of the set, with a table of its own
+	 */
+	private static class Segment
+	{
+		/**
+		 * The slots, each taking two longs: the high and low bits of a hash, both 0 for an empty slot
+		 */
+		private long slots[];
+
+		/**
+		 * The number of hashes in the segment
+		 */
+		private int size;
+
+		/**
+		 * Constructor to create an empty segment
+		 * 
+		 * @param capacity	The number of slots, as a power of two
+		 */
+		Segment(int capacity)
+		{
+			this.slots = new long[2 * capacity];
+			this.size = 0;
+		}
+
+		/**
+		 * Adds a hash to the segment
+		 * 
+		 * @param high	The high 64 bits of the hash
+		 * @param low	The low 64 bits of the hash, not both 0
+		 * @return		A boolean indicating whether the hash was added (true) or already present (false)
+		 */
+		synchronized boolean add(long high, long low)
+		{
+			if(2 * (size + 1) > slots.length / 2) grow();
+			if(!insert(slots, high, low)) return false;
+			size++;
+			return true;
+		}
+
+		/**
+		 * Doubles the number of slots
+		 * 
+		 * @return	Nothing
+		 */
+		private void grow()
+		{
+			long old[] = slots;
+			slots = new long[2 * old.length];
+			for(int i=0; i<old.length; i+=2) if(old[i] != 0 || old[i+1] != 0) insert(slots, old[i], old[i+1]);
+		}
+
+		/**
+		 * Inserts a hash into a table, unless it is present
+		 * 
+		 * @param table	The slots of the table
+		 * @param high	The high 64 bits of the hash
+		 * @param low	The low 64 bits of the hash
+		 * @return		A boolean indicating whether the hash was inserted (true) or already present (false)
+		 */
+		private static boolean insert(long table[], long high, long low)
+		{
+			int mask = table.length / 2 - 1;
+			for(int i=(int)low & mask; ; i=(i+1) & mask)
+			{
+				long h = table[2*i], l = table[2*i+1];
+				if(h == 0 && l == 0)
+				{
+					table[2*i] = high;
+					table[2*i+1] = low;
+					return true;
+				}
+				if(h == high && l == low) return false;
+			}
+		}
+	}
+
+	/**
+	 * Constructor to create an empty set
+	 * 
+	 * @param expected	The number of hashes expected to be added
+	 */
+	MazeHashSet(long expected)
+	{
+		int capacity = 16;
+		while(capacity < (1 << 30) && (long)capacity << SEGMENT_BITS < 2 * expected) capacity <<= 1;
+
+		this.segments = new Segment[1 << SEGMENT_BITS];
+		for(int i=0; i<segments.length; i++) segments[i] = new Segment(capacity);
+	}
+
+	/**
+	 * Adds the hash of a maze to the set
+	 * 
+	 * @param hash	The hash of the maze
+	 * @return		A boolean indicating whether the hash was added (true) or already present, i.e. the maze is a duplicate (false)
+	 */
+	boolean add(MazeHash hash)
+	{
+		long high = hash.high(), low = hash.low();
+		if(high == 0 && low == 0) low = 1;		// 0 marks the empty slots
+		return segments[(int)(high >>> (64 - SEGMENT_BITS))].add(high, low);
+	}
+}
\ No newline at end of file
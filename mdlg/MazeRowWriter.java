@@ -0,0 +1,27 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of a maze one at a time, from top to bottom, as they are generated
+ */
+public interface MazeRowWriter
+{
+	/**
+	 * Writes the next row of the maze
+	 * 
+	 * @param row				The cells of the row, with true representing vacant cells; the array may be reused once this method returns
+	 * @exception IOException	On output error
+	 */
+	void writeRow(boolean row[]) throws IOException;
+}
\ No newline at end of file
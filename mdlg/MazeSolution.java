@@ -0,0 +1,182 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+/**
+ * Solves a generated maze and measures it, for the records of a dataset (--dataset). The shortest path from the
+ * entrance (the first vacant cell of the first row) to the exit (the last vacant cell of the last row), as found by
+ * MazeVerifier, is found by a breadth-first search over an int array used as a queue, which also holds the parent of
+ * each cell on the way
+ */
+public class MazeSolution
+{
+	/**
+	 * The columns of the entrance (in the first row) and of the exit (in the last row), or -1 if there is none
+	 */
+	public final int entrance, exit;
+
+	/**
+	 * The number of cells on the shortest path, the entrance and exit included, or 0 if the maze cannot be solved
+	 */
+	public final int length;
+
+	/**
+	 * The number of dead ends: vacant cells (other than the entrance and exit) with a single vacant neighbour
+	 */
+	public final int deadEnds;
+
+	/**
+	 * The number of vacant cells
+	 */
+	public final int vacantCells;
+
+	/**
+	 * The cells on the shortest path, as bit (row * width + column) of the array
+	 */
+	public final long path[];
+
+	/**
+	 * Constructor to store the solution of a maze
+	 * 
+	 * @param entrance		The column of the entrance
+	 * @param exit			The column of the exit
+	 * @param length		The number of cells on the shortest path
+	 * @param deadEnds		The number of dead ends
+	 * @param vacantCells	The number of vacant cells
+	 * @param path			The cells on the shortest path
+	 */
+	private MazeSolution(int entrance, int exit, int length, int deadEnds, int vacantCells, long path[])
+	{
+		this.entrance = entrance;
+		this.exit = exit;
+		this.length = length;
+		this.deadEnds = deadEnds;
+		this.vacantCells = vacantCells;
+		this.path = path;
+	}
+
+	/**
+	 * Solves and measures a maze
+	 * 
+	 * @param maze	The maze as a boolean matrix with true representing vacant cells
+	 * @return		The solution, whose length is 0 if the exit cannot be reached from the entrance
+	 */
+	public static MazeSolution solve(boolean maze[][])
+	{
+		int h = maze.length, w = maze[0].length;
+		long path[] = new long[(int)(((long)w * h + 63) >>> 6)];
+
+		int entrance = entrance(maze), exit = exit(maze);
+		int cells[] = countCells(maze, entrance, exit);
+		if(entrance < 0 || exit < 0) return new MazeSolution(entrance, exit, 0, cells[1], cells[0], path);
+
+		int parent[] = new int[w * h];
+		if(search(maze, entrance, exit, parent, Integer.MAX_VALUE) == 0) return new MazeSolution(entrance, exit, 0, cells[1], cells[0], path);
+
+		// walk back from the exit to the entrance
+		int length = 1;
+		int cell = (h-1) * w + exit;
+		path[cell >>> 6] |= 1L << cell;
+		while(cell != entrance)
+		{
+			cell = parent[cell] - 1;
+			path[cell >>> 6] |= 1L << cell;
+			length++;
+		}
+		return new MazeSolution(entrance, exit, length, cells[1], cells[0], path);
+	}
+
+	/**
+	 * Finds the entrance of a maze
+	 * 
+	 * @param maze	The maze as a boolean matrix with true representing vacant cells
+	 * @return		The column of the first vacant cell of the first row, or -1 if there is none
+	 */
+	static int entrance(boolean maze[][])
+	{
+		for(int c=0; c<maze[0].length; c++) if(maze[0][c]) return c;
+		return -1;
+	}
+
+	/**
+	 * Finds the exit of a maze
+	 * 
+	 * @param maze	The maze as a boolean matrix with true representing vacant cells
+	 * @return		The column of the last vacant cell of the last row, or -1 if there is none
+	 */
+	static int exit(boolean maze[][])
+	{
+		for(int c=maze[0].length-1; c>=0; c--) if(maze[maze.length-1][c]) return c;
+		return -1;
+	}
+
+	/**
+	 * Counts the vacant cells and the dead ends of a maze in one pass over its cells
+	 * 
+	 * @param maze		The maze as a boolean matrix with true representing vacant cells
+	 * @param entrance	The column of the entrance in the first row, or -1
+	 * @param exit		The column of the exit in the last row, or -1
+	 * @return			The number of vacant cells and the number of dead ends
+	 */
+	static int[] countCells(boolean maze[][], int entrance, int exit)
+	{
+		int h = maze.length, w = maze[0].length;
+		int vacantCells = 0, deadEnds = 0;
+		for(int r=0; r<h; r++)
+		{
+			for(int c=0; c<w; c++)
+			{
+				if(!maze[r][c]) continue;
+				vacantCells++;
+				int neighbours = (r > 0 && maze[r-1][c] ? 1 : 0) + (r < h-1 && maze[r+1][c] ? 1 : 0) +
+								(c > 0 && maze[r][c-1] ? 1 : 0) + (c < w-1 && maze[r][c+1] ? 1 : 0);
+				if(neighbours == 1 && !(r == 0 && c == entrance) && !(r == h-1 && c == exit)) deadEnds++;
+			}
+		}
+		return new int[] { vacantCells, deadEnds };
+	}
+
+	/**
+	 * Searches breadth-first, level by level, for the shortest path from the entrance to the exit, giving up as soon
+	 * as it is longer than a maximum length
+	 * 
+	 * @param maze		The maze as a boolean matrix with true representing vacant cells
+	 * @param entrance	The column of the entrance in the first row
+	 * @param exit		The column of the exit in the last row
+	 * @param parent	The parent of each cell reached (plus one, 0 meaning unreached), filled in by the search
+	 * @param maxLength	The maximum length of the path
+	 * @return			The number of cells on the path, 0 if there is none, or maxLength + 1 if it is longer
+	 */
+	static int search(boolean maze[][], int entrance, int exit, int parent[], int maxLength)
+	{
+		int h = maze.length, w = maze[0].length;
+		int queue[] = new int[w * h];
+		int head = 0, tail = 0, target = (h-1) * w + exit;
+		queue[tail++] = entrance;
+		parent[entrance] = entrance + 1;
+
+		for(int length=1; head < tail; length++)
+		{
+			if(length > maxLength) return length;
+			int end = tail;
+			while(head < end)
+			{
+				int cell = queue[head++], r = cell / w, c = cell % w;
+				if(cell == target) return length;
+				if(r > 0 && maze[r-1][c] && parent[cell-w] == 0) { parent[cell-w] = cell + 1; queue[tail++] = cell-w; }
+				if(r < h-1 && maze[r+1][c] && parent[cell+w] == 0) { parent[cell+w] = cell + 1; queue[tail++] = cell+w; }
+				if(c > 0 && maze[r][c-1] && parent[cell-1] == 0) { parent[cell-1] = cell + 1; queue[tail++] = cell-1; }
+				if(c < w-1 && maze[r][c+1] && parent[cell+1] == 0) { parent[cell+1] = cell + 1; queue[tail++] = cell+1; }
+			}
+		}
+		return 0;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+/**
+ * Checks generated mazes before they are written. The check runs a union-find over the vacant cells,
+ * held in a single int array, joining every pair of adjacent vacant cells in one pass over the maze
+ */
+public class MazeVerifier
+{
+	/**
+	 * Verifies that a maze can be solved: it has an entrance in the first row and an exit in the last row,
+	 * and every vacant cell (the entrance and exit included) is reachable from every other one
+	 * 
+	 * @param maze		The maze as a boolean matrix with true representing vacant cells
+	 * @param perfect	Whether the maze must also be perfect, i.e. have exactly one path between any two cells
+	 * @return			null if the maze passes, or the reason why it fails
+	 */
+	public static String verify(boolean maze[][], boolean perfect)
+	{
+		int h = maze.length, w = maze[0].length;
+
+		int entrance = -1, exit = -1;
+		for(int c=0; c<w && entrance < 0; c++) if(maze[0][c]) entrance = c;
+		for(int c=w-1; c>=0 && exit < 0; c--) if(maze[h-1][c]) exit = (h-1) * w + c;
+		if(entrance < 0) return "no entrance in the first row";
+		if(exit < 0) return "no exit in the last row";
+
+		int parent[] = new int[w * h];
+		int components = 0, cycles = 0;
+
+		for(int r=0; r<h; r++)
+		{
+			for(int c=0; c<w; c++)
+			{
+				if(!maze[r][c]) continue;
+				int cell = r * w + c;
+				parent[cell] = cell;
+				components++;
+
+				// join with the vacant neighbours above and to the left, which have already been visited
+				if(c > 0 && maze[r][c-1])
+				{
+					if(union(parent, cell, cell-1)) components--; else cycles++;
+				}
+				if(r > 0 && maze[r-1][c])
+				{
+					if(union(parent, cell, cell-w)) components--; else cycles++;
+				}
+			}
+		}
+
+		if(find(parent, entrance) != find(parent, exit)) return "the exit cannot be reached from the entrance";
+		if(components > 1) return (components - 1) + " vacant region(s) cannot be reached from the entrance";
+		if(perfect && cycles > 0) return "the maze is not perfect: it contains " + cycles + " loop(s)";
+		return null;
+	}
+
+	/**
+	 * Finds the representative of the set containing a cell, halving the path on the way
+	 * 
+	 * @param parent	The parent of each cell in the union-find forest
+	 * @param cell		The index of the cell
+	 * @return			The index of the representative cell
+	 */
+	private static int find(int parent[], int cell)
+	{
+		while(parent[cell] != cell)
+		{
+			parent[cell] = parent[parent[cell]];
+			cell = parent[cell];
+		}
+		return cell;
+	}
+
+	/**
+	 * Joins the sets containing two cells
+	 * 
+	 * @param parent	The parent of each cell in the union-find forest
+	 * @param a			The index of the first cell
+	 * @param b			The index of the second cell
+	 * @return			A boolean indicating whether the cells were in different sets
+	 */
+	private static boolean union(int parent[], int a, int b)
+	{
+		int ra = find(parent, a), rb = find(parent, b);
+		if(ra == rb) return false;
+		parent[ra] = rb;
+		return true;
+	}
+}
\ No newline at end of file
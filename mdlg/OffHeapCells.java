@@ -0,0 +1,242 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stores the cells of a maze outside the Java heap, one bit per cell, so that mazes of billions of cells neither
+ * count against the heap nor are scanned by the garbage collector. It holds the mazes generated outside the heap
+ * (--off-heap), and the cells of the grids of MDLC stored outside the heap.
+ * 
+ * The bits are kept in direct buffers of at most 1 GB each, or in buffers mapped from a temporary file when a
+ * directory is given (in which case the size is limited by the disk rather than by -XX:MaxDirectMemorySize; the file
+ * is deleted as soon as it is mapped). Every row starts on a word of its own, in which bit (column % 64) stands for
+ * a cell. The memory is released once the cells are no longer referenced
+ */
+public class OffHeapCells
+{
+	/**
+	 * The size of each buffer (in bytes), as a power of two
+	 */
+	private static final int CHUNK_SHIFT = 30;
+
+	/**
+	 * The size of the maze
+	 */
+	public final int height, width;
+
+	/**
+	 * The number of words (of 64 cells) taken up by each row
+	 */
+	private final long stride;
+
+	/**
+	 * The buffers holding the cells
+	 */
+	private final ByteBuffer chunks[];
+
+	/**
+	 * Constructor to create a maze in which every cell is blocked
+	 * 
+	 * @param height			The height of the maze
+	 * @param width				The width of the maze
+	 * @param directory			The directory in which to create the file the cells are mapped from, or null to keep them in direct memory
+	 * @exception IOException	On error creating or mapping the file
+	 */
+	public OffHeapCells(int height, int width, File directory) throws IOException
+	{
+		this.height = height;
+		this.width = width;
+		this.stride = ((long)width + 63) >>> 6;
+
+		long bytes = 8 * stride * height;
+		int n = (int)((bytes + (1L << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT);
+		this.chunks = new ByteBuffer[n];
+
+		if(directory == null) {
+			for(int i=0; i<n; i++) chunks[i] = ByteBuffer.allocateDirect(chunkSize(bytes, i)).order(ByteOrder.nativeOrder());
+		} else {
+			File file = File.createTempFile("mdl-", ".grid", directory);
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(bytes);
+				FileChannel channel = raf.getChannel();
+				for(int i=0; i<n; i++)
+				{
+					chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long)i << CHUNK_SHIFT, chunkSize(bytes, i)).order(ByteOrder.nativeOrder());
+				}
+			} finally {
+				raf.close();		// the mappings stay valid
+				if(!file.delete()) file.deleteOnExit();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes taken up by the cells
+	 * 
+	 * @return	The number of bytes
+	 */
+	public long bytes()
+	{
+		return 8 * stride * height;
+	}
+
+	/**
+	 * Determines whether a cell is vacant
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the cell is vacant (true) or blocked (false)
+	 */
+	public boolean get(int r, int c)
+	{
+		long w = word(r, c);
+		return((chunks[chunk(w)].getLong(offset(w)) & (1L << c)) != 0);
+	}
+
+	/**
+	 * Sets a cell as vacant or blocked
+	 * 
+	 * @param r			The row-index of the cell
+	 * @param c			The column-index of the cell
+	 * @param vacant	Whether the cell is vacant
+	 * @return			Nothing
+	 */
+	public void set(int r, int c, boolean vacant)
+	{
+		setBits(r, c, (vacant ? -1L : 0), 1L << c);
+	}
+
+	/**
+	 * Returns the cells in the word of a row holding a cell
+	 * 
+	 * @param r	The row-index of the cells
+	 * @param c	The column-index of any cell of the word
+	 * @return	A word with bit (column % 64) set for each vacant cell
+	 */
+	public long getBits(int r, int c)
+	{
+		long w = word(r, c);
+		return chunks[chunk(w)].getLong(offset(w));
+	}
+
+	/**
+	 * Sets some of the cells in the word of a row holding a cell
+	 * 
+	 * @param r			The row-index of the cells
+	 * @param c			The column-index of any cell of the word
+	 * @param vacant	A word with bit (column % 64) set for each cell to make vacant
+	 * @param mask		A word with bit (column % 64) set for each cell to set, as vacant or blocked
+	 * @return			Nothing
+	 */
+	public void setBits(int r, int c, long vacant, long mask)
+	{
+		long w = word(r, c);
+		ByteBuffer chunk = chunks[chunk(w)];
+		int offset = offset(w);
+		chunk.putLong(offset, (chunk.getLong(offset) & ~mask) | (vacant & mask));
+	}
+
+	/**
+	 * Sets a range of cells of a row as vacant
+	 * 
+	 * @param r		The row-index of the cells
+	 * @param c0	The column-index of the first cell
+	 * @param c1	The column-index after the last cell
+	 * @return		Nothing
+	 */
+	public void fill(int r, int c0, int c1)
+	{
+		for(int c=c0; c<c1; )
+		{
+			int end = (int)Math.min(((long)(c >>> 6) + 1) << 6, c1);
+			long mask = (end - c == 64 ? -1L : ((1L << (end - c)) - 1) << c);
+			long w = word(r, c);
+			ByteBuffer chunk = chunks[chunk(w)];
+			int offset = offset(w);
+			chunk.putLong(offset, chunk.getLong(offset) | mask);
+			c = end;
+		}
+	}
+
+	/**
+	 * Copies the cells of a row into an array
+	 * 
+	 * @param r		The row-index
+	 * @param row	The array to copy the cells into, with true representing vacant cells
+	 * @return		Nothing
+	 */
+	public void readRow(int r, boolean row[])
+	{
+		for(int c=0; c<width; c+=64)
+		{
+			long w = word(r, c);
+			long bits = chunks[chunk(w)].getLong(offset(w));
+			int end = Math.min(c + 64, width);
+			for(int i=c; i<end; i++) row[i] = ((bits & (1L << i)) != 0);
+		}
+	}
+
+	/**
+	 * Returns the size of one of the buffers
+	 * 
+	 * @param bytes	The number of bytes taken up by the cells
+	 * @param i		The index of the buffer
+	 * @return		The size of the buffer
+	 */
+	private static int chunkSize(long bytes, int i)
+	{
+		return(int)Math.min(1L << CHUNK_SHIFT, bytes - ((long)i << CHUNK_SHIFT));
+	}
+
+	/**
+	 * Finds the word holding a cell, checking that the cell lies inside the maze
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	The index of the word
+	 */
+	private long word(int r, int c)
+	{
+		if(r < 0 || r >= height) throw(new ArrayIndexOutOfBoundsException("Index " + r + " out of bounds for length " + height));
+		if(c < 0 || c >= width) throw(new ArrayIndexOutOfBoundsException("Index " + c + " out of bounds for length " + width));
+		return r * stride + (c >>> 6);
+	}
+
+	/**
+	 * Returns the index of the buffer holding a word
+	 * 
+	 * @param w	The index of the word
+	 * @return	The index of the buffer
+	 */
+	private static int chunk(long w)
+	{
+		return(int)(w >>> (CHUNK_SHIFT - 3));
+	}
+
+	/**
+	 * Returns the position of a word in its buffer
+	 * 
+	 * @param w	The index of the word
+	 * @return	The position (in bytes)
+	 */
+	private static int offset(long w)
+	{
+		return(int)((w << 3) & ((1L << CHUNK_SHIFT) - 1));
+	}
+}
\ No newline at end of file
@@ -10,20 +10,43 @@
 
 package mdlg;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
- * This class handles the maze creation process
+ * This class handles the maze creation process. Each maze is generated by an instance of its own, so that mazes may
+ * be generated by several threads at once
  */
 public class RandomMazeGenerator
 {
 	/**
 	 * Stores the generated maze as a boolean matrix with true representing vacant cells and false otherwise
 	 */
-	private static boolean maze[][];
+	private final boolean maze[][];
+
+	/**
+	 * Stores the maze being generated outside the heap instead, or null if it is generated as a boolean matrix
+	 */
+	private final OffHeapCells grid;
 	
 	/**
 	 * A random object used to generate random positions for placing the walls inside a chamber
 	 */
-	private static java.util.Random random;
+	private final java.util.Random random;
+
+	/**
+	 * Constructor to start generating a maze
+	 * 
+	 * @param maze		The maze as a boolean matrix, or null if it is generated outside the heap
+	 * @param grid		The maze outside the heap, or null if it is generated as a boolean matrix
+	 * @param random	The source of randomness
+	 */
+	private RandomMazeGenerator(boolean maze[][], OffHeapCells grid, java.util.Random random)
+	{
+		this.maze = maze;
+		this.grid = grid;
+		this.random = random;
+	}
 
 	/**
 	 * The primary function that starts the maze generation process and calls other maze generation functions
@@ -33,13 +56,25 @@ public class RandomMazeGenerator
 	 * @return 				The generated maze as a boolean matrix
 	 */
 	public static boolean[][] generateMaze(int width, int height)
+	{
+		return generateMaze(width, height, new java.util.Random());
+	}
+
+	/**
+	 * Generates a maze using the given source of randomness, so that a seeded source always gives the same maze
+	 * 
+	 * @param width			The width of the maze in number of cells
+	 * @param height		The height of the maze in number of cells
+	 * @param random		The source of randomness
+	 * @return 				The generated maze as a boolean matrix
+	 */
+	public static boolean[][] generateMaze(int width, int height, java.util.Random random)
 	{
 		// check if dimensions are valid
 		if(width < 3 || height < 3) return null;
 		
 		// create new blank maze with borders all around
-		random = new java.util.Random();
-		maze = new boolean[height][width];
+		boolean maze[][] = new boolean[height][width];
 		for(int i=1; i<height-1; i++)
 		{
 			for(int j=1; j<width-1; j++)
@@ -48,12 +83,75 @@ public class RandomMazeGenerator
 			}
 		}
 
-		mazifyChamber(1, 1, height-2, width-2);
-		createExits(height, width);
+		RandomMazeGenerator generator = new RandomMazeGenerator(maze, null, random);
+		generator.mazifyChamber(1, 1, height-2, width-2);
+		generator.createExits(height, width);
 
 		return maze;
 	}
 
+	/**
+	 * Generates a maze outside the Java heap (one bit per cell, see OffHeapCells) and writes it row by row, so that
+	 * mazes too large for a boolean matrix can be generated. The same source of randomness gives the same maze as
+	 * generateMaze(int, int, Random)
+	 * 
+	 * @param width				The width of the maze in number of cells
+	 * @param height			The height of the maze in number of cells
+	 * @param random			The source of randomness
+	 * @param writer			The writer receiving each row of the maze, from top to bottom
+	 * @param directory			The directory in which to create the file the maze is mapped from, or null to keep it in direct memory
+	 * @return 					A boolean indicating whether the maze was generated, i.e. the dimensions are valid
+	 * @exception IOException	On error creating the grid or writing a row
+	 */
+	public static boolean generateMaze(int width, int height, java.util.Random random, MazeRowWriter writer, File directory) throws IOException
+	{
+		if(width < 3 || height < 3) return false;
+
+		OffHeapCells cells = new OffHeapCells(height, width, directory);
+		Stats.count("off-heap-bytes", cells.bytes());
+		for(int i=1; i<height-1; i++) cells.fill(i, 1, width-1);
+
+		RandomMazeGenerator generator = new RandomMazeGenerator(null, cells, random);
+		generator.mazifyChamber(1, 1, height-2, width-2);
+		generator.createExits(height, width);
+
+		boolean row[] = new boolean[width];
+		for(int i=0; i<height; i++)
+		{
+			cells.readRow(i, row);
+			writer.writeRow(row);
+		}
+		return true;
+	}
+
+	/**
+	 * Determines whether a cell of the maze being generated is vacant
+	 * 
+	 * @param r	The row-index of the cell
+	 * @param c	The column-index of the cell
+	 * @return	A boolean indicating whether the cell is vacant
+	 */
+	private boolean isVacant(int r, int c)
+	{
+		return(grid == null ? maze[r][c] : grid.get(r, c));
+	}
+
+	/**
+	 * Sets a cell of the maze being generated as vacant or blocked
+	 * 
+	 * @param r			The row-index of the cell
+	 * @param c			The column-index of the cell
+	 * @param vacant	Whether the cell is vacant
+	 * @return			Nothing
+	 */
+	private void setVacant(int r, int c, boolean vacant)
+	{
+		if(grid == null)
+			maze[r][c] = vacant;
+		else
+			grid.set(r, c, vacant);
+	}
+
 	/**
 	 * The recursive procedure to generate the maze through recursive-division
 	 * 
@@ -63,7 +161,7 @@ public class RandomMazeGenerator
 	 * @param colEnd	The ending index of the column
 	 * @return 			Nothing
 	 */
-	private static void mazifyChamber(int rowStart, int colStart, int rowEnd, int colEnd)
+	private void mazifyChamber(int rowStart, int colStart, int rowEnd, int colEnd)
 	{
 		int dCol = colEnd - colStart;
 		int dRow = rowEnd - rowStart;
@@ -101,24 +199,24 @@ public class RandomMazeGenerator
 	 * @param hWall	The distance of the horizontal wall from the top of the chamber
 	 * @return 		Nothing
 	 */
-	private static void drawWalls(int rs, int cs, int re, int ce, int vWall, int hWall)
+	private void drawWalls(int rs, int cs, int re, int ce, int vWall, int hWall)
 	{
 		for(int i=rs; i<=re; i++) 
 		{
 			// ensure that wall does not block a hole
-			if(i==rs && maze[i-1][vWall]) continue;
-			if(i==re && maze[i+1][vWall]) continue;
+			if(i==rs && isVacant(i-1, vWall)) continue;
+			if(i==re && isVacant(i+1, vWall)) continue;
 			
-			maze[i][vWall] = false;
+			setVacant(i, vWall, false);
 		}
 
 		for(int i=cs; i<=ce; i++) 
 		{
 			// ensure that wall does not block a hole
-			if(i==cs && maze[hWall][i-1]) continue;
-			if(i==ce && maze[hWall][i+1]) continue;
+			if(i==cs && isVacant(hWall, i-1)) continue;
+			if(i==ce && isVacant(hWall, i+1)) continue;
 			
-			maze[hWall][i] = false;
+			setVacant(hWall, i, false);
 		}
 	}
 
@@ -133,7 +231,7 @@ public class RandomMazeGenerator
 	 * @param hWall	The distance of the horizontal wall from the top of the chamber
 	 * @return 		Nothing
 	 */
-	private static void drawHoles(int rs, int cs, int re, int ce, int v, int h)
+	private void drawHoles(int rs, int cs, int re, int ce, int v, int h)
 	{
 		int sections[][] = {
 				{ rs, v, h-1, v },	// top-vertical
@@ -157,10 +255,10 @@ public class RandomMazeGenerator
 			if(dRow==0)
 			{
 				int row = sections[i][0];
-				maze[row][sections[i][1] + offset] = true; 
+				setVacant(row, sections[i][1] + offset, true);
 			} else {
 				int col = sections[i][1];
-				maze[sections[i][0] + offset][col] = true;
+				setVacant(sections[i][0] + offset, col, true);
 			}
 		}
 	}
@@ -173,22 +271,22 @@ public class RandomMazeGenerator
 	 * @param w The width of the maze in number of cells
 	 * @return 	Nothing
 	 */
-	private static void createExits(int h, int w)
+	private void createExits(int h, int w)
 	{
 		for(int i=1; i<w-1; i++)
 		{
-			if(maze[1][i])
+			if(isVacant(1, i))
 			{
-				maze[0][i] = true;
+				setVacant(0, i, true);
 				break;
 			}
 		}
 
 		for(int i=w-2; i>=1; i--)
 		{
-			if(maze[h-2][i])
+			if(isVacant(h-2, i))
 			{
-				maze[h-1][i] = true;
+				setVacant(h-1, i, true);
 				break;
 			}
 		}
@@ -0,0 +1,92 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes one shard of an archive (MDLG --archive, or the outputs MDLC compiles from such a shard): a ZIP file whose
+ * entries are stored without compression, so that many mazes take up a single file instead of one file each. The
+ * central directory at the end of the file is the index of the shard, and any ZIP tool (or MDLC) can list and extract
+ * its entries
+ */
+public class ShardWriter
+{
+	/**
+	 * The stream the shard is written to
+	 */
+	private final ZipOutputStream out;
+
+	/**
+	 * Constructor to create the file of a shard
+	 * 
+	 * @param fileName			The name of the file
+	 * @exception IOException	On output error
+	 */
+	public ShardWriter(String fileName) throws IOException
+	{
+		this.out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+		this.out.setMethod(ZipOutputStream.STORED);
+	}
+
+	/**
+	 * Returns the name of the file of a shard
+	 * 
+	 * @param prefix	The path and name of the archive, without the number of the shard and the extension
+	 * @param shard		The number of the shard
+	 * @return			The name of the file
+	 */
+	static String fileName(String prefix, int shard)
+	{
+		return String.format("%s-%05d.zip", prefix, shard);
+	}
+
+	/**
+	 * Adds an entry to the shard
+	 * 
+	 * @param name				The name of the entry
+	 * @param data				The contents of the entry
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	public void add(String name, byte data[]) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+
+		// stored entries must give their size and checksum before their data
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(data.length);
+		entry.setCompressedSize(data.length);
+		entry.setCrc(crc.getValue());
+
+		out.putNextEntry(entry);
+		out.write(data);
+		out.closeEntry();
+	}
+
+	/**
+	 * Writes the index of the shard and closes its file
+	 * 
+	 * @exception IOException	On output error
+	 * @return					Nothing
+	 */
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
\ No newline at end of file
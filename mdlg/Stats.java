@@ -0,0 +1,467 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time spent in each phase of a run and counters of the work done, for the --stats report of MDLG and MDLC.
+ * 
+ * A phase (begin/end) is timed when --stats is given and, while a flight recording is running, recorded as a JFR event
+ * named <prefix>.Phase (mdlg.Phase or mdlc.Phase), so that production runs can be profiled without attaching a
+ * profiler; counters are recorded as <prefix>.Counter events at the end of the run. The events are defined at run
+ * time through jdk.jfr.EventFactory, looked up by reflection, so that the tools still build and run on Java 8 versions
+ * without JFR. Timers measure work that is spread over many short calls (such as parsing the rows of a file), and
+ * only do so when --stats is given, so that they cost nothing otherwise.
+ * 
+ * Phases and counters are called from many threads at once, so their entries are added to without locking, and
+ * nothing is kept unless --stats was given or a flight recording has been started (checked at most once a second)
+ */
+public class Stats
+{
+	/**
+	 * Defines whether timers are enabled, i.e. whether --stats was given
+	 */
+	public static boolean enabled;
+
+	/**
+	 * The time between two checks of whether a flight recording has been started, in nanoseconds
+	 */
+	private static final long CHECK_INTERVAL = 1000000000L;
+
+	/**
+	 * An entry of the report, which threads add to without locking
+	 */
+	private static class Entry
+	{
+		/**
+		 * The total time (in nanoseconds) of a phase or timer, or the value of a counter
+		 */
+		final LongAdder total = new LongAdder();
+
+		/**
+		 * The number of calls
+		 */
+		final LongAdder calls = new LongAdder();
+
+		/**
+		 * The position of the entry in the report, in order of first use
+		 */
+		final int order;
+
+		/**
+		 * Constructor to create an empty entry
+		 * 
+		 * @param order	The position of the entry in the report
+		 */
+		Entry(int order)
+		{
+			this.order = order;
+		}
+	}
+
+	/**
+	 * The entries of every phase and timer, and of every counter
+	 */
+	private static final Map<String, Entry> times = new ConcurrentHashMap<String, Entry>();
+	private static final Map<String, Entry> counters = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * The number of entries created
+	 */
+	private static final AtomicInteger entries = new AtomicInteger();
+
+	/**
+	 * A phase that is not recorded, returned when nothing is kept
+	 */
+	private static final Phase NONE = new Phase();
+
+	/**
+	 * Defines whether the JFR events are defined, i.e. whether a flight recording has been started
+	 */
+	private static volatile boolean recording;
+
+	/**
+	 * The time (as given by System.nanoTime) after which to check again whether a flight recording has been started
+	 */
+	private static volatile long nextCheck = System.nanoTime();
+
+	/**
+	 * The prefix of the names of the JFR events, naming the tool
+	 */
+	private static String prefix = "mdlg";
+
+	/**
+	 * The JFR event factories for phases and counters, or null until JFR is in use
+	 */
+	private static Object phaseEvents, counterEvents;
+
+	/**
+	 * The method telling whether JFR is in use (jdk.jfr.FlightRecorder.isInitialized), or null if JFR is not available
+	 */
+	private static Method isInitialized;
+
+	/**
+	 * The methods of jdk.jfr.EventFactory and jdk.jfr.Event used to commit events
+	 */
+	private static Method newEvent, begin, end, commit, set;
+
+	static
+	{
+		try {
+			isInitialized = Class.forName("jdk.jfr.FlightRecorder").getMethod("isInitialized");
+		} catch(Exception e) {
+			isInitialized = null;		// JFR is not available
+		}
+	}
+
+	/**
+	 * Defines the JFR events once a flight recording has been started. Defining them costs a few hundred
+	 * milliseconds, which is not spent on runs that are not being recorded. Whether a recording has been started is
+	 * checked at most once every CHECK_INTERVAL, as the check is a reflective call
+	 * 
+	 * @return	A boolean indicating whether the events are defined
+	 */
+	private static boolean defineEvents()
+	{
+		if(recording) return true;
+		long now = System.nanoTime();
+		if(isInitialized == null || now - nextCheck < 0) return false;
+
+		synchronized(Stats.class)
+		{
+			if(recording || now - nextCheck < 0) return recording;
+			nextCheck = now + CHECK_INTERVAL;
+			if(isInitialized == null || !Boolean.TRUE.equals(invoke(isInitialized, null))) return false;
+			recording = createEvents();
+			return recording;
+		}
+	}
+
+	/**
+	 * Creates the JFR event factories
+	 * 
+	 * @return	A boolean indicating whether the factories were created
+	 */
+	private static boolean createEvents()
+	{
+		try {
+			Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+			Class<?> event = Class.forName("jdk.jfr.Event");
+			Class<?> annotation = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> field = Class.forName("jdk.jfr.ValueDescriptor");
+			Constructor<?> newAnnotation = annotation.getConstructor(Class.class, Object.class);
+			Constructor<?> newField = field.getConstructor(Class.class, String.class);
+			Method create = factory.getMethod("create", List.class, List.class);
+
+			Object category = newAnnotation.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "MDL Suite" });
+			counterEvents = create.invoke(null,
+				Arrays.asList(newAnnotation.newInstance(Class.forName("jdk.jfr.Name"), prefix + ".Counter"),
+								newAnnotation.newInstance(Class.forName("jdk.jfr.Label"), prefix.toUpperCase(Locale.ROOT) + " Counter"), category),
+				Arrays.asList(newField.newInstance(String.class, "counter"), newField.newInstance(long.class, "value")));
+
+			newEvent = factory.getMethod("newEvent");
+			begin = event.getMethod("begin");
+			end = event.getMethod("end");
+			commit = event.getMethod("commit");
+			set = event.getMethod("set", int.class, Object.class);
+
+			phaseEvents = create.invoke(null,
+				Arrays.asList(newAnnotation.newInstance(Class.forName("jdk.jfr.Name"), prefix + ".Phase"),
+								newAnnotation.newInstance(Class.forName("jdk.jfr.Label"), prefix.toUpperCase(Locale.ROOT) + " Phase"), category),
+				Arrays.asList(newField.newInstance(String.class, "phase")));
+		} catch(Exception e) {
+			isInitialized = null;		// JFR cannot be used
+		}
+		return(phaseEvents != null);
+	}
+
+	/**
+	 * A phase that has begun and not yet ended
+	 */
+	public static class Phase
+	{
+		/**
+		 * The name of the phase
+		 */
+		private final String name;
+
+		/**
+		 * The time at which the phase began
+		 */
+		private final long start;
+
+		/**
+		 * The JFR event of the phase, or null
+		 */
+		private final Object event;
+
+		/**
+		 * Constructor to begin a phase
+		 * 
+		 * @param name	The name of the phase
+		 */
+		private Phase(String name)
+		{
+			this.name = name;
+			this.event = (recording ? invoke(newEvent, phaseEvents) : null);
+			if(event != null) invoke(begin, event);
+			this.start = System.nanoTime();
+		}
+
+		/**
+		 * Constructor to create the phase that is not recorded
+		 */
+		private Phase()
+		{
+			this.name = null;
+			this.event = null;
+			this.start = 0;
+		}
+
+		/**
+		 * Ends the phase, adding its time to the report and committing its JFR event
+		 * 
+		 * @return	Nothing
+		 */
+		public void end()
+		{
+			if(name == null) return;
+			add(times, name, System.nanoTime() - start, 1);
+			if(event != null)
+			{
+				invoke(end, event);
+				invoke(set, event, 0, name);
+				invoke(commit, event);
+			}
+		}
+	}
+
+	/**
+	 * Accumulates the time of many short calls into one entry of the report. A timer belongs to a single thread
+	 */
+	public static class Timer
+	{
+		/**
+		 * The name of the entry
+		 */
+		private final String name;
+
+		/**
+		 * The total time (in nanoseconds), the number of calls and the time at which the current call started
+		 */
+		private long total, calls, started;
+
+		/**
+		 * Constructor to create a timer
+		 * 
+		 * @param name	The name of the entry
+		 */
+		private Timer(String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * Starts timing a call
+		 * 
+		 * @return	Nothing
+		 */
+		public void start()
+		{
+			if(enabled) started = System.nanoTime();
+		}
+
+		/**
+		 * Stops timing a call
+		 * 
+		 * @return	Nothing
+		 */
+		public void stop()
+		{
+			if(!enabled) return;
+			total += System.nanoTime() - started;
+			calls++;
+		}
+
+		/**
+		 * Adds the accumulated time to the report
+		 * 
+		 * @return	Nothing
+		 */
+		public void close()
+		{
+			if(enabled && calls > 0) add(times, name, total, calls);
+		}
+	}
+
+	/**
+	 * Sets the prefix of the names of the JFR events, before any phase begins
+	 * 
+	 * @param name	The prefix, such as mdlc
+	 * @return		Nothing
+	 */
+	public static synchronized void setEventPrefix(String name)
+	{
+		prefix = name;
+	}
+
+	/**
+	 * Begins a phase
+	 * 
+	 * @param name	The name of the phase
+	 * @return		The phase, to be ended once it is complete
+	 */
+	public static Phase begin(String name)
+	{
+		return(active() ? new Phase(name) : NONE);
+	}
+
+	/**
+	 * Creates a timer
+	 * 
+	 * @param name	The name of the entry in the report
+	 * @return		The timer, to be closed once all calls are complete
+	 */
+	public static Timer timer(String name)
+	{
+		return new Timer(name);
+	}
+
+	/**
+	 * Adds to a counter
+	 * 
+	 * @param name	The name of the counter
+	 * @param n		The amount to add
+	 * @return		Nothing
+	 */
+	public static void count(String name, long n)
+	{
+		if(active()) add(counters, name, n, 0);
+	}
+
+	/**
+	 * Determines whether phases and counters are kept, so that callers can skip measuring what they count
+	 * 
+	 * @return	A boolean indicating whether --stats was given or a flight recording has been started
+	 */
+	public static boolean active()
+	{
+		return(defineEvents() || enabled);
+	}
+
+	/**
+	 * Commits a JFR event for every counter and, if --stats was given, prints the report
+	 * 
+	 * @param json	Whether the report is printed as JSON rather than as a table
+	 * @return		Nothing
+	 */
+	public static void report(boolean json)
+	{
+		List<Map.Entry<String, long[]>> t = snapshot(times), c = snapshot(counters);
+
+		for(Map.Entry<String, long[]> e : c)
+		{
+			Object event = (defineEvents() ? invoke(newEvent, counterEvents) : null);
+			if(event == null) break;
+			invoke(set, event, 0, e.getKey());
+			invoke(set, event, 1, e.getValue()[0]);
+			invoke(commit, event);
+		}
+		if(!enabled) return;
+
+		StringBuilder sb = new StringBuilder();
+		if(json)
+		{
+			sb.append("{\"phases\":[");
+			for(int i=0; i<t.size(); i++)
+			{
+				long x[] = t.get(i).getValue();
+				sb.append(i > 0 ? "," : "").append("{\"name\":\"").append(t.get(i).getKey()).append("\",\"calls\":").append(x[1]);
+				sb.append(",\"time_ms\":").append(String.format(Locale.ROOT, "%.3f", x[0] / 1e6)).append("}");
+			}
+			sb.append("],\"counters\":{");
+			for(int i=0; i<c.size(); i++)
+				sb.append(i > 0 ? "," : "").append("\"").append(c.get(i).getKey()).append("\":").append(c.get(i).getValue()[0]);
+			sb.append("}}");
+		} else {
+			sb.append(String.format("%-24s %12s %14s%n", "phase", "calls", "time_ms"));
+			for(Map.Entry<String, long[]> e : t)
+				sb.append(String.format(Locale.ROOT, "%-24s %12d %14.3f%n", e.getKey(), e.getValue()[1], e.getValue()[0] / 1e6));
+			sb.append(String.format("%n%-24s %12s%n", "counter", "value"));
+			for(Map.Entry<String, long[]> e : c)
+				sb.append(String.format("%-24s %12d%n", e.getKey(), e.getValue()[0]));
+		}
+		System.out.println(sb.toString().trim());
+	}
+
+	/**
+	 * Adds to an entry of the report
+	 * 
+	 * @param map		The phases or the counters
+	 * @param name		The name of the entry
+	 * @param value		The time or count to add
+	 * @param calls		The number of calls to add
+	 * @return			Nothing
+	 */
+	private static void add(Map<String, Entry> map, String name, long value, long calls)
+	{
+		Entry x = map.get(name);
+		if(x == null) x = map.computeIfAbsent(name, k -> new Entry(entries.getAndIncrement()));
+		x.total.add(value);
+		if(calls != 0) x.calls.add(calls);
+	}
+
+	/**
+	 * Takes the values of the entries of the report
+	 * 
+	 * @param map	The phases or the counters
+	 * @return		The name, total and number of calls of every entry, in order of first use
+	 */
+	private static List<Map.Entry<String, long[]>> snapshot(Map<String, Entry> map)
+	{
+		List<Map.Entry<String, Entry>> list = new ArrayList<Map.Entry<String, Entry>>(map.entrySet());
+		Collections.sort(list, (a, b) -> Integer.compare(a.getValue().order, b.getValue().order));
+
+		List<Map.Entry<String, long[]>> values = new ArrayList<Map.Entry<String, long[]>>();
+		for(Map.Entry<String, Entry> e : list)
+			values.add(new AbstractMap.SimpleEntry<String, long[]>(e.getKey(), new long[] { e.getValue().total.sum(), e.getValue().calls.sum() }));
+		return values;
+	}
+
+	/**
+	 * Calls a JFR method, ignoring any failure as profiling must never stop a run
+	 * 
+	 * @param method	The method
+	 * @param target	The object to call it on
+	 * @param args		The arguments
+	 * @return			The result of the call, or null if it failed
+	 */
+	private static Object invoke(Method method, Object target, Object... args)
+	{
+		try {
+			return method.invoke(target, args);
+		} catch(Exception e) {
+			return null;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+/**
+ * Maze Description Language Generator
+ * Distributed under Artistic License 2.0
+ * 
+ * Generates random mazes in MDL format using the recursive division method
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdlg;
+
+import java.util.Random;
+
+/**
+ * Generates perfect mazes using Wilson's algorithm, which picks every spanning tree of the cells with equal
+ * probability and so has none of the texture of the other algorithms. Each cell outside the tree starts a random
+ * walk that ends on the tree; the walk remembers only the last direction taken from every cell (one byte per cell),
+ * which erases its loops, and is then retraced and added to the tree
+ */
+public class WilsonMazeGenerator
+{
+	/**
+	 * Generates a maze
+	 * 
+	 * @param width		The width of the maze in number of cells
+	 * @param height	The height of the maze in number of cells
+	 * @param random	The source of randomness
+	 * @return 			The generated maze as a boolean matrix, or null if the dimensions are invalid
+	 */
+	public static boolean[][] generateMaze(int width, int height, Random random)
+	{
+		if(width < 3 || height < 3) return null;
+
+		CellPassages p = new CellPassages(width, height);
+		int n = p.size();
+		boolean inTree[] = new boolean[n];
+		byte dir[] = new byte[n];
+
+		inTree[random.nextInt(n)] = true;
+		for(int start=0; start<n; start++)
+		{
+			if(inTree[start]) continue;
+
+			// walk randomly until the tree is hit, overwriting the direction taken whenever a cell is revisited
+			int cell = start;
+			while(!inTree[cell])
+			{
+				int d, next;
+				do {
+					d = random.nextInt(4);
+					next = p.neighbour(cell, d);
+				} while(next < 0);
+				dir[cell] = (byte)d;
+				cell = next;
+			}
+
+			// add the loop-erased walk to the tree
+			cell = start;
+			while(!inTree[cell])
+			{
+				int next = p.neighbour(cell, dir[cell]);
+				p.carve(cell, next);
+				inTree[cell] = true;
+				cell = next;
+			}
+		}
+
+		return p.toMaze(width, height);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import java.util.Arrays;
+
+/**
+ * Solves a maze with an A* search guided by the Manhattan distance to the goal. The open set
+ * is a binary heap held in two parallel int arrays; stale heap entries are skipped when popped
+ */
+public class AStarSolver implements Solver
+{
+	@Override
+	public String getName()
+	{
+		return "astar-manhattan";
+	}
+
+	@Override
+	public Solution solve(Maze maze)
+	{
+		int n = maze.width * maze.height;
+		if(!maze.open[maze.start] || !maze.open[maze.goal]) return new Solution(null, 0);
+
+		int goalRow = maze.goal / maze.width, goalCol = maze.goal % maze.width;
+
+		int cost[] = new int[n];			// the length of the best known path to each cell
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		int parent[] = new int[n];
+		boolean closed[] = new boolean[n];
+
+		int heapCell[] = new int[64], heapKey[] = new int[64];
+		int size = 0;
+		long expanded = 0;
+
+		cost[maze.start] = 0;
+		parent[maze.start] = maze.start;
+		heapCell[0] = maze.start;
+		heapKey[0] = key(0, maze.start, maze.width, goalRow, goalCol);
+		size = 1;
+
+		while(size > 0)
+		{
+			int cell = heapCell[0];
+
+			// pop the root and sift the last entry down
+			size--;
+			int lastCell = heapCell[size], lastKey = heapKey[size];
+			int i = 0;
+			while(true)
+			{
+				int child = 2*i + 1;
+				if(child >= size) break;
+				if(child+1 < size && heapKey[child+1] < heapKey[child]) child++;
+				if(heapKey[child] >= lastKey) break;
+				heapCell[i] = heapCell[child];
+				heapKey[i] = heapKey[child];
+				i = child;
+			}
+			heapCell[i] = lastCell;
+			heapKey[i] = lastKey;
+
+			if(closed[cell]) continue;
+			closed[cell] = true;
+			expanded++;
+			if(cell == maze.goal) return new Solution(Solution.tracePath(parent, maze.start, maze.goal), expanded);
+
+			for(int d=0; d<4; d++)
+			{
+				int next = maze.neighbour(cell, d);
+				if(next < 0 || closed[next] || cost[cell] + 1 >= cost[next]) continue;
+				cost[next] = cost[cell] + 1;
+				parent[next] = cell;
+
+				if(size == heapCell.length)
+				{
+					heapCell = Arrays.copyOf(heapCell, size * 2);
+					heapKey = Arrays.copyOf(heapKey, size * 2);
+				}
+
+				// push and sift up
+				int k = key(cost[next], next, maze.width, goalRow, goalCol);
+				int j = size++;
+				while(j > 0)
+				{
+					int p = (j - 1) / 2;
+					if(heapKey[p] <= k) break;
+					heapCell[j] = heapCell[p];
+					heapKey[j] = heapKey[p];
+					j = p;
+				}
+				heapCell[j] = next;
+				heapKey[j] = k;
+			}
+		}
+
+		return new Solution(null, expanded);
+	}
+
+	/**
+	 * Computes the priority of a cell: its estimated total path length
+	 * 
+	 * @param cost		The length of the path to the cell
+	 * @param cell		The index of the cell
+	 * @param width		The width of the maze
+	 * @param goalRow	The row of the goal
+	 * @param goalCol	The column of the goal
+	 * @return			The path length plus the Manhattan distance from the cell to the goal
+	 */
+	private static int key(int cost, int cell, int width, int goalRow, int goalCol)
+	{
+		int r = cell / width, c = cell - (r * width);
+		return cost + Math.abs(r - goalRow) + Math.abs(c - goalCol);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+/**
+ * Solves a maze with two breadth-first searches, one from the start and one from the goal,
+ * expanding the smaller frontier one level at a time until the two searches meet
+ */
+public class BidirectionalSolver implements Solver
+{
+	@Override
+	public String getName()
+	{
+		return "bidirectional-bfs";
+	}
+
+	@Override
+	public Solution solve(Maze maze)
+	{
+		int n = maze.width * maze.height;
+		if(!maze.open[maze.start] || !maze.open[maze.goal]) return new Solution(null, 0);
+		if(maze.start == maze.goal) return new Solution(new int[] { maze.start }, 1);
+
+		byte side[] = new byte[n];			// 0: unreached, 1: reached from the start, 2: reached from the goal
+		int parent[] = new int[n];
+
+		// both queues share one array: the forward queue grows from the front, the backward queue from the back
+		int queue[] = new int[n];
+		int fHead = 0, fTail = 0, bHead = n, bTail = n;
+		long expanded = 0;
+
+		side[maze.start] = 1;
+		parent[maze.start] = maze.start;
+		queue[fTail++] = maze.start;
+
+		side[maze.goal] = 2;
+		parent[maze.goal] = maze.goal;
+		queue[--bTail] = maze.goal;
+
+		while(fHead < fTail && bTail < bHead)
+		{
+			boolean forward = (fTail - fHead) <= (bHead - bTail);
+			byte own = (byte)(forward ? 1 : 2);
+
+			// expand exactly one level of the chosen frontier
+			int levelEnd = (forward ? fTail : bTail);
+			while(forward ? fHead < levelEnd : bHead > levelEnd)
+			{
+				int cell = (forward ? queue[fHead++] : queue[--bHead]);
+				expanded++;
+
+				for(int d=0; d<4; d++)
+				{
+					int next = maze.neighbour(cell, d);
+					if(next < 0 || side[next] == own) continue;
+					if(side[next] != 0) return new Solution(join(parent, maze, forward ? cell : next, forward ? next : cell), expanded);
+
+					side[next] = own;
+					parent[next] = cell;
+					if(forward) queue[fTail++] = next; else queue[--bTail] = next;
+				}
+			}
+		}
+
+		return new Solution(null, expanded);
+	}
+
+	/**
+	 * Joins the two halves of the path where the searches meet
+	 * 
+	 * @param parent	The cell from which each cell was reached by its own search
+	 * @param maze		The maze being solved
+	 * @param a			The last cell of the half reached from the start
+	 * @param b			The first cell of the half reached from the goal
+	 * @return			The cells on the path, from the start to the goal
+	 */
+	private static int[] join(int parent[], Maze maze, int a, int b)
+	{
+		int head[] = Solution.tracePath(parent, maze.start, a);
+		int tail[] = Solution.tracePath(parent, maze.goal, b);
+
+		int path[] = new int[head.length + tail.length];
+		System.arraycopy(head, 0, path, 0, head.length);
+		for(int i=0; i<tail.length; i++) path[head.length + i] = tail[tail.length-1-i];
+		return path;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import java.util.Arrays;
+
+/**
+ * Solves a maze with a breadth-first search, which always finds a shortest path
+ */
+public class BreadthFirstSolver implements Solver
+{
+	@Override
+	public String getName()
+	{
+		return "bfs";
+	}
+
+	@Override
+	public Solution solve(Maze maze)
+	{
+		int n = maze.width * maze.height;
+		if(!maze.open[maze.start] || !maze.open[maze.goal]) return new Solution(null, 0);
+
+		int parent[] = new int[n];
+		Arrays.fill(parent, -1);
+		int queue[] = new int[n];
+		int head = 0, tail = 0;
+		long expanded = 0;
+
+		parent[maze.start] = maze.start;
+		queue[tail++] = maze.start;
+
+		while(head < tail)
+		{
+			int cell = queue[head++];
+			expanded++;
+			if(cell == maze.goal) return new Solution(Solution.tracePath(parent, maze.start, maze.goal), expanded);
+
+			for(int d=0; d<4; d++)
+			{
+				int next = maze.neighbour(cell, d);
+				if(next < 0 || parent[next] >= 0) continue;
+				parent[next] = cell;
+				queue[tail++] = next;
+			}
+		}
+
+		return new Solution(null, expanded);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import java.util.Arrays;
+
+/**
+ * Solves a maze by dead-end filling: every vacant cell with at most one vacant neighbour (other than
+ * the start and goal) is filled in, repeatedly, until no dead ends remain. In a perfect maze only
+ * the solution is left; otherwise the path is traced through the remaining cells with a breadth-first search
+ */
+public class DeadEndFillingSolver implements Solver
+{
+	@Override
+	public String getName()
+	{
+		return "dead-end-filling";
+	}
+
+	@Override
+	public Solution solve(Maze maze)
+	{
+		int n = maze.width * maze.height;
+		if(!maze.open[maze.start] || !maze.open[maze.goal]) return new Solution(null, 0);
+
+		byte degree[] = new byte[n];
+		boolean filled[] = new boolean[n];
+		int queue[] = new int[n];
+		int head = 0, tail = 0;
+		long expanded = 0;
+
+		// find the initial dead ends in one pass
+		for(int cell=0; cell<n; cell++)
+		{
+			if(!maze.open[cell]) continue;
+			for(int d=0; d<4; d++)
+			{
+				if(maze.neighbour(cell, d) >= 0) degree[cell]++;
+			}
+			if(degree[cell] <= 1 && cell != maze.start && cell != maze.goal) queue[tail++] = cell;
+		}
+
+		// fill them in, following each dead-end corridor back to its junction
+		while(head < tail)
+		{
+			int cell = queue[head++];
+			filled[cell] = true;
+			expanded++;
+
+			for(int d=0; d<4; d++)
+			{
+				int next = maze.neighbour(cell, d);
+				if(next < 0 || filled[next]) continue;
+				if(--degree[next] == 1 && next != maze.start && next != maze.goal) queue[tail++] = next;
+			}
+		}
+
+		// trace the path through the cells that are left
+		int parent[] = new int[n];
+		Arrays.fill(parent, -1);
+		head = 0;
+		tail = 0;
+		parent[maze.start] = maze.start;
+		queue[tail++] = maze.start;
+
+		while(head < tail)
+		{
+			int cell = queue[head++];
+			expanded++;
+			if(cell == maze.goal) return new Solution(Solution.tracePath(parent, maze.start, maze.goal), expanded);
+
+			for(int d=0; d<4; d++)
+			{
+				int next = maze.neighbour(cell, d);
+				if(next < 0 || filled[next] || parent[next] >= 0) continue;
+				parent[next] = cell;
+				queue[tail++] = next;
+			}
+		}
+
+		return new Solution(null, expanded);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This is the main class handling the command-line arguments and running every solver
+ * over a directory of mazes
+ */
+public class MDLS
+{
+	/**
+	 * The current version of the MDL solver
+	 */
+	public static final String VERSION = "1.0";
+
+	/**
+	 * The usage string that will be displayed if the program is invoked
+	 * without parameters or with incorrect parameters
+	 */
+	private static final String INFO = "Maze Description Language Solver - v" + VERSION +
+										"\nby Akash Nag. This software is open-source and is distributed under Artistic License 2.0." +
+										"\nUsage:\n\t java mdls.MDLS [--repeat=<n>] <maze-directory> <output-csv-file>" +
+										"\n\t java mdls.MDLS --analyze[=json] <maze-directory> <output-file>" +
+										"\nNote:\n" +
+										"Every algorithm is run <n> times (default: 1) on each maze and the fastest run is reported." +
+										"\nWith --analyze, the structural metrics of each maze (dead ends, junctions, solution length, corridors, components" +
+										"\nand loops) are written instead, as CSV or JSON, analyzing the mazes on all processors";
+
+	/**
+	 * The header line of the CSV report
+	 */
+	private static final String CSV_HEADER = "file,width,height,algorithm,solved,path_length,nodes_expanded,time_ns,allocated_bytes";
+
+	/**
+	 * All the solvers that are benchmarked
+	 */
+	private static final Solver solvers[] = {
+		new BreadthFirstSolver(),
+		new BidirectionalSolver(),
+		new AStarSolver(),
+		new DeadEndFillingSolver(),
+		new WallFollowerSolver()
+	};
+
+	/**
+     * This is the main method, and it processes the command-line arguments
+     * 
+     * @param args 			An optional repeat count, the directory containing the maze files and the name of the CSV report
+     * @return 				Nothing
+     * @exception Exception On input/output error
+     * @see 				Exception
+     */
+	public static void main(String args[]) throws Exception
+	{
+		int repeat = 1, k = 0;
+		String analyze = null;
+		if(args.length > 0 && args[0].startsWith("--repeat="))
+		{
+			repeat = Integer.parseInt(args[0].substring("--repeat=".length()));
+			k = 1;
+		} else if(args.length > 0 && (args[0].equals("--analyze") || args[0].equals("--analyze=csv") || args[0].equals("--analyze=json"))) {
+			analyze = (args[0].endsWith("json") ? "json" : "csv");
+			k = 1;
+		}
+
+		if(args.length - k != 2 || repeat < 1)
+		{
+			printUsage();
+			return;
+		}
+
+		try {
+			File files[] = new File(args[k]).listFiles((dir, name) -> name.endsWith(".maze"));
+			if(files == null) throw(new Exception("Not a directory: " + args[k]));
+			Arrays.sort(files);
+
+			if(analyze != null)
+			{
+				analyze(files, args[k+1], analyze.equals("json"));
+				System.out.println(files.length + " mazes analyzed");
+				return;
+			}
+
+			BufferedWriter bw = new BufferedWriter(new FileWriter(args[k+1]));
+			bw.write(CSV_HEADER + "\n");
+			for(int i=0; i<files.length; i++)
+			{
+				Maze maze = Maze.load(files[i].getPath());
+				for(int j=0; j<solvers.length; j++) bw.write(benchmark(solvers[j], maze, files[i].getName(), repeat) + "\n");
+				System.out.println((i+1) + "/" + files.length + ": " + files[i].getName() + " solved");
+			}
+			bw.close();
+		} catch(Exception e) {
+			System.out.println("An error occurred while solving:\n" + e.toString());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Analyzes mazes and writes their metrics. The mazes are read and analyzed by a pool of one thread per processor,
+	 * at most two mazes per thread ahead of the metrics being written, which are written in the order of the files
+	 * 
+	 * @param files			The maze files
+	 * @param output		The name of the report
+	 * @param json			Whether the report is written as JSON rather than CSV
+	 * @exception Exception	On input/output error, or if a maze is invalid
+	 * @return				Nothing
+	 */
+	private static void analyze(File files[], String output, boolean json) throws Exception
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		BufferedWriter bw = new BufferedWriter(new FileWriter(output), 1 << 16);
+		int written = 0;
+		try {
+			bw.write(json ? "[" : "file,width,height," + MazeAnalysis.CSV_HEADER);
+			for(int i=0; i<files.length; i++)
+			{
+				final File file = files[i];
+				if(pending.size() >= 2 * threads) writeAnalysis(bw, pending.poll(), (json && written++ > 0 ? ",\n" : "\n"));
+				pending.add(pool.submit(() -> analysis(file, json)));
+			}
+			while(!pending.isEmpty()) writeAnalysis(bw, pending.poll(), (json && written++ > 0 ? ",\n" : "\n"));
+			bw.write(json ? "\n]\n" : "\n");
+		} finally {
+			pool.shutdownNow();
+			bw.close();
+		}
+	}
+
+	/**
+	 * Reads and analyzes a maze
+	 * 
+	 * @param file			The maze file
+	 * @param json			Whether the metrics are formatted as a JSON object rather than a CSV line
+	 * @exception Exception	On input error, or if the maze is invalid
+	 * @return				The metrics of the maze
+	 */
+	private static String analysis(File file, boolean json) throws Exception
+	{
+		Maze maze;
+		try {
+			maze = Maze.load(file.getPath());
+		} catch(Exception e) {
+			throw(new Exception(file.getName() + ": " + e.getMessage(), e));
+		}
+		MazeAnalysis analysis = new MazeAnalysis(maze);
+		String name = file.getName();
+		if(json) return "{\"file\": \"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\", \"width\": " + maze.width + ", \"height\": " + maze.height + ", " + analysis.toJson() + "}";
+		return name + "," + maze.width + "," + maze.height + "," + analysis.toCsv();
+	}
+
+	/**
+	 * Waits for the metrics of a maze and writes them into the report
+	 * 
+	 * @param bw			The report
+	 * @param result		The metrics of the maze, being computed
+	 * @param separator		The separator written before the metrics
+	 * @exception Exception	On output error, or on error analyzing the maze
+	 * @return				Nothing
+	 */
+	private static void writeAnalysis(BufferedWriter bw, Future<String> result, String separator) throws Exception
+	{
+		String line;
+		try {
+			line = result.get();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof Exception) throw (Exception)cause;
+			throw (Error)cause;
+		}
+		bw.write(separator);
+		bw.write(line);
+	}
+
+	/**
+	 * Runs one solver on one maze and measures its time and allocations
+	 * 
+	 * @param solver	The solver to run
+	 * @param maze		The maze to solve
+	 * @param name		The name of the maze file
+	 * @param repeat	The number of times to run the solver
+	 * @return			A line of the CSV report
+	 */
+	private static String benchmark(Solver solver, Maze maze, String name, int repeat)
+	{
+		Solution solution = null;
+		long bestTime = Long.MAX_VALUE, allocated = -1;
+
+		for(int i=0; i<repeat; i++)
+		{
+			long bytes = allocatedBytes();
+			long time = System.nanoTime();
+			solution = solver.solve(maze);
+			time = System.nanoTime() - time;
+			bytes = allocatedBytes() - bytes;
+
+			bestTime = Math.min(bestTime, time);
+			if(bytes >= 0) allocated = bytes;
+		}
+
+		return name + "," + maze.width + "," + maze.height + "," + solver.getName() + "," + solution.isSolved() + "," +
+				(solution.isSolved() ? solution.path.length : 0) + "," + solution.nodesExpanded + "," + bestTime + "," + allocated;
+	}
+
+	/**
+	 * Determines the number of bytes allocated so far by the current thread
+	 * 
+	 * @return	The number of bytes allocated, or -1 if the JVM cannot report it
+	 */
+	private static long allocatedBytes()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/**
+	 * Displays the version information and the list of parameters
+	 * to be passed to the program at command-line
+	 * 
+	 * @param 	Nothing
+	 * @return 	Nothing
+	 */
+	private static void printUsage()
+	{
+		System.out.println(INFO);
+	}
+}
\ No newline at end of file
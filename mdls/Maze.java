@@ -0,0 +1,196 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import mdlc.MazeFile;
+
+/**
+ * A maze prepared for solving: the cells are stored row by row in a flat boolean array,
+ * and every cell is identified by its index (row * width + col) in that array
+ */
+public class Maze
+{
+	/**
+	 * The width of the maze (in number of cells)
+	 */
+	protected final int width;
+
+	/**
+	 * The height of the maze (in number of cells)
+	 */
+	protected final int height;
+
+	/**
+	 * Stores whether each cell is vacant, indexed by cell
+	 */
+	protected final boolean open[];
+
+	/**
+	 * The index of the cell to start from
+	 */
+	protected final int start;
+
+	/**
+	 * The index of the cell to reach
+	 */
+	protected final int goal;
+
+	/**
+	 * Constructor to initialize a maze from a boolean matrix
+	 * 
+	 * @param grid		The maze as a boolean matrix with true representing vacant cells
+	 * @param startRow	The row-index of the cell to start from
+	 * @param startCol	The column-index of the cell to start from
+	 * @param goalRow	The row-index of the cell to reach
+	 * @param goalCol	The column-index of the cell to reach
+	 */
+	public Maze(boolean grid[][], int startRow, int startCol, int goalRow, int goalCol)
+	{
+		this.height = grid.length;
+		this.width = (height == 0 ? 0 : grid[0].length);
+		this.open = new boolean[width * height];
+		for(int r=0; r<height; r++) System.arraycopy(grid[r], 0, open, r * width, width);
+
+		this.start = startRow * width + startCol;
+		this.goal = goalRow * width + goalCol;
+	}
+
+	/**
+	 * Creates a maze from a boolean matrix, such as one generated by MDLG, whose entrance
+	 * and exit are the openings in the first and last rows
+	 * 
+	 * @param grid			The maze as a boolean matrix with true representing vacant cells
+	 * @return				The maze to solve
+	 * @exception Exception	If the first or last row has no opening
+	 */
+	public static Maze fromGrid(boolean grid[][]) throws Exception
+	{
+		int h = grid.length;
+		int entrance = findOpening(grid[0], true);
+		int exit = findOpening(grid[h-1], false);
+		if(entrance < 0 || exit < 0) throw(new Exception("Maze has no entrance or exit"));
+		return new Maze(grid, 0, entrance, h-1, exit);
+	}
+
+	/**
+	 * Reads a maze from a MDL file. The entrance and exit settings are used as the start and goal;
+	 * if they are missing, the openings in the first and last rows are used instead
+	 * 
+	 * @param filename		The MDL-file to read from
+	 * @return				The maze to solve
+	 * @exception Exception	On input error, invalid syntax or if no start or goal can be found
+	 */
+	public static Maze load(String filename) throws Exception
+	{
+		MazeFile file = MazeFile.read(filename);
+		int h = file.getHeight(), w = file.getWidth();
+
+		boolean grid[][] = new boolean[h][w];
+		for(int r=0; r<h; r++)
+		{
+			for(int c=0; c<w; c++) grid[r][c] = file.isPath(r, c);
+		}
+
+		int entrance[] = file.getEntrance(), exit[] = file.getExit();
+		if(entrance == null || exit == null) return fromGrid(grid);
+		return new Maze(grid, entrance[0], entrance[1], exit[0], exit[1]);
+	}
+
+	/**
+	 * Finds the opening in a border row: the first vacant cell from the left, or from the right
+	 * 
+	 * @param row			The cells of the row
+	 * @param fromLeft		Whether to search from the left
+	 * @return				The column of the opening, or -1 if the row has none
+	 */
+	private static int findOpening(boolean row[], boolean fromLeft)
+	{
+		int n = row.length;
+		for(int i=0; i<n; i++)
+		{
+			int c = (fromLeft ? i : n-1-i);
+			if(row[c]) return c;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the width of the maze
+	 * 
+	 * @return	The width of the maze (in number of cells)
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Returns the height of the maze
+	 * 
+	 * @return	The height of the maze (in number of cells)
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns the index of the cell to start from
+	 * 
+	 * @return	The index of the start cell
+	 */
+	public int getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * Returns the index of the cell to reach
+	 * 
+	 * @return	The index of the goal cell
+	 */
+	public int getGoal()
+	{
+		return goal;
+	}
+
+	/**
+	 * Determines whether a cell is vacant
+	 * 
+	 * @param cell	The index of the cell
+	 * @return		A boolean indicating whether the cell can be walked on
+	 */
+	public boolean isOpen(int cell)
+	{
+		return open[cell];
+	}
+
+	/**
+	 * Finds the neighbour of a cell in a given direction
+	 * 
+	 * @param cell	The index of the cell
+	 * @param dir	The direction: 0 for up, 1 for right, 2 for down, 3 for left
+	 * @return		The index of the neighbouring cell, or -1 if it lies outside the maze or is a wall
+	 */
+	protected int neighbour(int cell, int dir)
+	{
+		int r = cell / width, c = cell - (r * width);
+		int n;
+		switch(dir)
+		{
+			case 0:		if(r == 0) return -1; n = cell - width; break;
+			case 1:		if(c == width-1) return -1; n = cell + 1; break;
+			case 2:		if(r == height-1) return -1; n = cell + width; break;
+			default:	if(c == 0) return -1; n = cell - 1; break;
+		}
+		return(open[n] ? n : -1);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,321 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import java.util.Arrays;
+
+/**
+ * The structural metrics of a maze, for telling easy mazes from hard ones. They are computed in a single pass over
+ * the cells, which counts the neighbours of every cell, measures the straight corridors and joins neighbouring cells
+ * into connected components (with a union-find over an int array), followed by one breadth-first search from the
+ * start to the goal
+ */
+public class MazeAnalysis
+{
+	/**
+	 * The columns of the CSV report, in the order of toCsv()
+	 */
+	static final String CSV_HEADER = "vacant_cells,dead_ends,junctions,degree_0,degree_1,degree_2,degree_3,degree_4," +
+										"solution_length,branching_0,branching_1,branching_2,branching_3,branching_4," +
+										"longest_corridor,components,cyclomatic_number";
+
+	/**
+	 * The number of vacant cells
+	 */
+	protected final int vacantCells;
+
+	/**
+	 * The number of dead ends: vacant cells (other than the start and goal) with a single vacant neighbour
+	 */
+	protected final int deadEnds;
+
+	/**
+	 * The number of junctions: vacant cells with three or four vacant neighbours
+	 */
+	protected final int junctions;
+
+	/**
+	 * The number of vacant cells with 0, 1, 2, 3 and 4 vacant neighbours
+	 */
+	protected final int degrees[];
+
+	/**
+	 * The number of cells on the shortest path from the start to the goal, both included, or 0 if there is none
+	 */
+	protected final int solutionLength;
+
+	/**
+	 * The number of cells on the shortest path (the goal excepted) from which 0, 1, 2, 3 and 4 ways lead on, other
+	 * than the way the cell was entered by
+	 */
+	protected final int branching[];
+
+	/**
+	 * The number of cells of the longest straight run of vacant cells, across or down
+	 */
+	protected final int longestCorridor;
+
+	/**
+	 * The number of connected regions of vacant cells
+	 */
+	protected final int components;
+
+	/**
+	 * The number of independent loops: the number of pairs of neighbouring vacant cells, less the number of vacant
+	 * cells, plus the number of components (0 for a perfect maze)
+	 */
+	protected final long cyclomaticNumber;
+
+	/**
+	 * Constructor to analyze a maze
+	 * 
+	 * @param maze	The maze to analyze
+	 */
+	public MazeAnalysis(Maze maze)
+	{
+		int w = maze.width, h = maze.height, n = w * h;
+		boolean open[] = maze.open;
+		int set[] = new int[n];
+		int column[] = new int[w];
+		int degrees[] = new int[5];
+		int vacant = 0, deadEnds = 0, longest = 0, components = 0;
+		long edges = 0;
+
+		for(int r=0, cell=0; r<h; r++)
+		{
+			int run = 0;
+			for(int c=0; c<w; c++, cell++)
+			{
+				if(!open[cell])
+				{
+					run = 0;
+					column[c] = 0;
+					continue;
+				}
+				vacant++;
+				longest = Math.max(longest, Math.max(++run, ++column[c]));
+
+				boolean up = (r > 0 && open[cell-w]), left = (c > 0 && open[cell-1]);
+				int degree = (up ? 1 : 0) + (left ? 1 : 0) + (r < h-1 && open[cell+w] ? 1 : 0) + (c < w-1 && open[cell+1] ? 1 : 0);
+				degrees[degree]++;
+				if(degree == 1 && cell != maze.start && cell != maze.goal) deadEnds++;
+
+				// join the cell to the components of the cells above and to its left
+				set[cell] = cell;
+				components++;
+				if(up)
+				{
+					edges++;
+					if(union(set, cell, cell-w)) components--;
+				}
+				if(left)
+				{
+					edges++;
+					if(union(set, cell, cell-1)) components--;
+				}
+			}
+		}
+
+		this.vacantCells = vacant;
+		this.deadEnds = deadEnds;
+		this.junctions = degrees[3] + degrees[4];
+		this.degrees = degrees;
+		this.longestCorridor = longest;
+		this.components = components;
+		this.cyclomaticNumber = edges - vacant + components;
+
+		// breadth-first search from the start, reusing the sets as the parent of each cell reached (plus one, 0 meaning unreached)
+		this.branching = new int[5];
+		int parent[] = set;
+		Arrays.fill(parent, 0);
+		int length = 0;
+		if(open[maze.start] && open[maze.goal])
+		{
+			int queue[] = new int[n];
+			int head = 0, tail = 0;
+			queue[tail++] = maze.start;
+			parent[maze.start] = maze.start + 1;
+			while(head < tail && parent[maze.goal] == 0)
+			{
+				int cell = queue[head++];
+				for(int d=0; d<4; d++)
+				{
+					int next = maze.neighbour(cell, d);
+					if(next >= 0 && parent[next] == 0)
+					{
+						parent[next] = cell + 1;
+						queue[tail++] = next;
+					}
+				}
+			}
+
+			// walk back from the goal, counting the ways on from each cell before it
+			if(parent[maze.goal] != 0)
+			{
+				length = 1;
+				for(int cell=maze.goal; cell != maze.start; length++)
+				{
+					cell = parent[cell] - 1;
+					int ways = 0;
+					for(int d=0; d<4; d++) if(maze.neighbour(cell, d) >= 0) ways++;
+					branching[cell == maze.start ? ways : ways - 1]++;
+				}
+			}
+		}
+		this.solutionLength = length;
+	}
+
+	/**
+	 * Joins the components of two cells
+	 * 
+	 * @param set	The parent of each cell in its component, roots being their own parent
+	 * @param a		The index of the first cell
+	 * @param b		The index of the second cell
+	 * @return		A boolean indicating whether the cells were in different components (true) or the same (false)
+	 */
+	private static boolean union(int set[], int a, int b)
+	{
+		a = find(set, a);
+		b = find(set, b);
+		if(a == b) return false;
+		set[Math.max(a, b)] = Math.min(a, b);
+		return true;
+	}
+
+	/**
+	 * Finds the root of the component of a cell, halving the path to it on the way
+	 * 
+	 * @param set	The parent of each cell in its component
+	 * @param a		The index of the cell
+	 * @return		The index of the root
+	 */
+	private static int find(int set[], int a)
+	{
+		while(set[a] != a)
+		{
+			set[a] = set[set[a]];
+			a = set[a];
+		}
+		return a;
+	}
+
+	/**
+	 * Returns the number of dead ends
+	 * 
+	 * @return	The number of vacant cells (other than the start and goal) with a single vacant neighbour
+	 */
+	public int getDeadEnds()
+	{
+		return deadEnds;
+	}
+
+	/**
+	 * Returns the number of junctions
+	 * 
+	 * @return	The number of vacant cells with three or four vacant neighbours
+	 */
+	public int getJunctions()
+	{
+		return junctions;
+	}
+
+	/**
+	 * Returns the histogram of the number of vacant neighbours of the vacant cells
+	 * 
+	 * @return	The number of vacant cells with 0, 1, 2, 3 and 4 vacant neighbours
+	 */
+	public int[] getDegrees()
+	{
+		return degrees.clone();
+	}
+
+	/**
+	 * Returns the length of the solution
+	 * 
+	 * @return	The number of cells on the shortest path from the start to the goal, or 0 if there is none
+	 */
+	public int getSolutionLength()
+	{
+		return solutionLength;
+	}
+
+	/**
+	 * Returns the histogram of the branching factor along the solution
+	 * 
+	 * @return	The number of cells on the shortest path (the goal excepted) from which 0, 1, 2, 3 and 4 ways lead on
+	 */
+	public int[] getBranching()
+	{
+		return branching.clone();
+	}
+
+	/**
+	 * Returns the length of the longest corridor
+	 * 
+	 * @return	The number of cells of the longest straight run of vacant cells
+	 */
+	public int getLongestCorridor()
+	{
+		return longestCorridor;
+	}
+
+	/**
+	 * Returns the number of connected components
+	 * 
+	 * @return	The number of connected regions of vacant cells
+	 */
+	public int getComponents()
+	{
+		return components;
+	}
+
+	/**
+	 * Returns the cyclomatic number
+	 * 
+	 * @return	The number of independent loops
+	 */
+	public long getCyclomaticNumber()
+	{
+		return cyclomaticNumber;
+	}
+
+	/**
+	 * Formats the metrics as the fields of a line of the CSV report
+	 * 
+	 * @return	The metrics, in the order of CSV_HEADER
+	 */
+	String toCsv()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(vacantCells).append(',').append(deadEnds).append(',').append(junctions);
+		for(int i=0; i<degrees.length; i++) sb.append(',').append(degrees[i]);
+		sb.append(',').append(solutionLength);
+		for(int i=0; i<branching.length; i++) sb.append(',').append(branching[i]);
+		sb.append(',').append(longestCorridor).append(',').append(components).append(',').append(cyclomaticNumber);
+		return sb.toString();
+	}
+
+	/**
+	 * Formats the metrics as the members of a JSON object
+	 * 
+	 * @return	The metrics, without the enclosing braces
+	 */
+	String toJson()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("\"vacant_cells\": ").append(vacantCells).append(", \"dead_ends\": ").append(deadEnds);
+		sb.append(", \"junctions\": ").append(junctions).append(", \"degrees\": ").append(Arrays.toString(degrees));
+		sb.append(", \"solution_length\": ").append(solutionLength).append(", \"branching\": ").append(Arrays.toString(branching));
+		sb.append(", \"longest_corridor\": ").append(longestCorridor).append(", \"components\": ").append(components);
+		sb.append(", \"cyclomatic_number\": ").append(cyclomaticNumber);
+		return sb.toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+/**
+ * The result of solving a maze
+ */
+public class Solution
+{
+	/**
+	 * The indices of the cells on the path from the start to the goal, or null if no path was found
+	 */
+	protected final int path[];
+
+	/**
+	 * The number of cells the algorithm expanded (or filled) while searching
+	 */
+	protected final long nodesExpanded;
+
+	/**
+	 * Constructor to initialize a solution
+	 * 
+	 * @param path			The cells on the path, or null if no path was found
+	 * @param nodesExpanded	The number of cells expanded while searching
+	 */
+	public Solution(int path[], long nodesExpanded)
+	{
+		this.path = path;
+		this.nodesExpanded = nodesExpanded;
+	}
+
+	/**
+	 * Determines whether a path was found
+	 * 
+	 * @return	A boolean indicating whether the maze was solved
+	 */
+	public boolean isSolved()
+	{
+		return(path != null);
+	}
+
+	/**
+	 * Returns the path found
+	 * 
+	 * @return	The indices of the cells on the path from the start to the goal, or null
+	 */
+	public int[] getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * Returns the number of cells expanded while searching
+	 * 
+	 * @return	The number of nodes expanded
+	 */
+	public long getNodesExpanded()
+	{
+		return nodesExpanded;
+	}
+
+	/**
+	 * Rebuilds a path by following back-pointers from the goal to the start
+	 * 
+	 * @param parent	The cell from which each cell was first reached
+	 * @param start		The index of the start cell
+	 * @param goal		The index of the goal cell
+	 * @return			The cells on the path, from the start to the goal
+	 */
+	protected static int[] tracePath(int parent[], int start, int goal)
+	{
+		int length = 1;
+		for(int cell = goal; cell != start; cell = parent[cell]) length++;
+
+		int path[] = new int[length];
+		int cell = goal;
+		for(int i=length-1; i>=0; i--)
+		{
+			path[i] = cell;
+			cell = (i > 0 ? parent[cell] : cell);
+		}
+		return path;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+/**
+ * The common interface of all maze solving algorithms
+ */
+public interface Solver
+{
+	/**
+	 * Returns the name of the algorithm, as written in benchmark reports
+	 * 
+	 * @return	The name of the algorithm
+	 */
+	String getName();
+
+	/**
+	 * Finds a path from the start to the goal of a maze
+	 * 
+	 * @param maze	The maze to solve
+	 * @return		The path found (if any) along with the number of nodes expanded
+	 */
+	Solution solve(Maze maze);
+}
\ No newline at end of file
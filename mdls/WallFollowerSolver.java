@@ -0,0 +1,79 @@
+/**
+ * Maze Description Language Solver
+ * Distributed under Artistic License 2.0
+ * 
+ * Solves mazes given in MDL format and benchmarks maze solving algorithms
+ * 
+ * @author	Akash Nag
+ * @version	1.0
+ */
+
+package mdls;
+
+import java.util.Arrays;
+
+/**
+ * Solves a maze by keeping the left hand on the wall. Loops walked along the way are cut out of the
+ * reported path. The walk gives up after four steps per cell, by which time it has gone all the way
+ * round the wall followed from the start without meeting the goal
+ */
+public class WallFollowerSolver implements Solver
+{
+	@Override
+	public String getName()
+	{
+		return "wall-follower";
+	}
+
+	@Override
+	public Solution solve(Maze maze)
+	{
+		int n = maze.width * maze.height;
+		if(!maze.open[maze.start] || !maze.open[maze.goal]) return new Solution(null, 0);
+
+		int path[] = new int[64];
+		int index[] = new int[n];			// the position of each cell on the path walked so far, or -1
+		Arrays.fill(index, -1);
+		int length = 0;
+		long expanded = 0;
+
+		int cell = maze.start, heading = 0;
+		path[length++] = cell;
+		index[cell] = 0;
+
+		long limit = 4L * n + 4;			// each cell can be entered at most once per heading on a single lap
+		while(cell != maze.goal && expanded < limit)
+		{
+			expanded++;
+
+			// try left, straight, right and back, in that order
+			int next = -1;
+			for(int turn=3; turn<7; turn++)
+			{
+				int d = (heading + turn) & 3;
+				next = maze.neighbour(cell, d);
+				if(next >= 0)
+				{
+					heading = d;
+					break;
+				}
+			}
+			if(next < 0) return new Solution(null, expanded);		// the start is enclosed
+
+			cell = next;
+			if(index[cell] >= 0)
+			{
+				// cut out the loop
+				for(int i=index[cell]+1; i<length; i++) index[path[i]] = -1;
+				length = index[cell] + 1;
+			} else {
+				if(length == path.length) path = Arrays.copyOf(path, length * 2);
+				index[cell] = length;
+				path[length++] = cell;
+			}
+		}
+
+		if(cell != maze.goal) return new Solution(null, expanded);
+		return new Solution(Arrays.copyOf(path, length), expanded);
+	}
+}
\ No newline at end of file
@@ -1,10 +1,23 @@
 package testmdlsuite;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Stack;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import mdlg.EllerMazeGenerator;
+import mdlg.GrowingTreeMazeGenerator;
+import mdlg.KruskalMazeGenerator;
+import mdlg.MDLG;
+import mdlg.MazeConstraints;
+import mdlg.MazeHash;
+import mdlg.MazeSolution;
+import mdlg.MazeVerifier;
 import mdlg.RandomMazeGenerator;
+import mdlg.WilsonMazeGenerator;
 
 public class TestMDLG
 {
@@ -106,6 +119,247 @@ public class TestMDLG
 		assertArrayEquals(a, s);
     }
     
+    @Test
+    public void IfMazesPassVerification()
+    {
+		int height = 20, width = 20, n = 10000;
+		for(int i=0; i<n; i++)
+		{
+			boolean m[][] = RandomMazeGenerator.generateMaze(width, height);
+			assertEquals(null, MazeVerifier.verify(m, false));
+		}
+    }
+
+    @Test
+    public void IfVerifierRejectsBrokenMazes()
+    {
+		boolean unreachable[][] = {
+			{ false, true, false, false },
+			{ false, true, false, false },
+			{ false, false, true, false },
+			{ false, false, true, false }
+		};
+		assertNotNull(MazeVerifier.verify(unreachable, false));
+
+		boolean loop[][] = {
+			{ false, true, false, false },
+			{ false, true, true, false },
+			{ false, true, true, false },
+			{ false, false, true, false }
+		};
+		assertEquals(null, MazeVerifier.verify(loop, false));
+		assertNotNull(MazeVerifier.verify(loop, true));
+    }
+
+    @Test
+    public void IfOtherAlgorithmsGeneratePerfectMazes() throws Exception
+    {
+		int height = 21, width = 20, n = 1000;
+		Random random = new Random();
+		for(int i=0; i<n; i++)
+		{
+			final List<boolean[]> rows = new ArrayList<>();
+			assertTrue(EllerMazeGenerator.generateMaze(width, height, random, r -> rows.add(r.clone())));
+			assertEquals(null, MazeVerifier.verify(rows.toArray(new boolean[0][]), true));
+
+			assertEquals(null, MazeVerifier.verify(WilsonMazeGenerator.generateMaze(width, height, random), true));
+			assertEquals(null, MazeVerifier.verify(KruskalMazeGenerator.generateMaze(width, height, random), true));
+			for(GrowingTreeMazeGenerator.CellChoice c : GrowingTreeMazeGenerator.CellChoice.values())
+				assertEquals(null, MazeVerifier.verify(GrowingTreeMazeGenerator.generateMaze(width, height, random, c), true));
+		}
+    }
+
+    @Test
+    public void IfSeededMazesAreRepeatable()
+    {
+		int height = 30, width = 30;
+		assertArrayEquals(RandomMazeGenerator.generateMaze(width, height, new Random(42)), RandomMazeGenerator.generateMaze(width, height, new Random(42)));
+		assertArrayEquals(WilsonMazeGenerator.generateMaze(width, height, new Random(42)), WilsonMazeGenerator.generateMaze(width, height, new Random(42)));
+		assertArrayEquals(KruskalMazeGenerator.generateMaze(width, height, new Random(42)), KruskalMazeGenerator.generateMaze(width, height, new Random(42)));
+    }
+
+    @Test
+    public void IfOffHeapMazesMatchHeapMazes() throws Exception
+    {
+		int sizes[][] = { { 3, 3 }, { 64, 65 }, { 131, 200 } };
+		for(int size[] : sizes)
+		{
+			final List<boolean[]> rows = new ArrayList<>();
+			assertTrue(RandomMazeGenerator.generateMaze(size[0], size[1], new Random(42), r -> rows.add(r.clone()), null));
+			assertArrayEquals(RandomMazeGenerator.generateMaze(size[0], size[1], new Random(42)), rows.toArray(new boolean[0][]));
+		}
+		assertFalse(RandomMazeGenerator.generateMaze(2, 2, new Random(42), r -> fail(), null));
+    }
+
+    @Test
+    public void IfMazesGeneratedConcurrentlyMatchSequentialMazes() throws Exception
+    {
+		final boolean mazes[][][] = new boolean[8][][];
+		Thread threads[] = new Thread[mazes.length];
+		for(int i=0; i<threads.length; i++)
+		{
+			final int seed = i;
+			threads[i] = new Thread(() -> mazes[seed] = RandomMazeGenerator.generateMaze(101, 101, new Random(seed)));
+			threads[i].start();
+		}
+		for(int i=0; i<threads.length; i++)
+		{
+			threads[i].join();
+			assertArrayEquals(RandomMazeGenerator.generateMaze(101, 101, new Random(i)), mazes[i]);
+		}
+    }
+
+    @Test
+    public void IfMazeSolutionFindsShortestPathAndDeadEnds()
+    {
+		String rows[] = { "wpwwww", "wppppw", "wwwpww", "wpppww", "wpwwww" };
+		boolean maze[][] = new boolean[rows.length][];
+		for(int i=0; i<rows.length; i++)
+		{
+			maze[i] = new boolean[rows[i].length()];
+			for(int j=0; j<maze[i].length; j++) maze[i][j] = (rows[i].charAt(j) == 'p');
+		}
+
+		MazeSolution solution = MazeSolution.solve(maze);
+		assertEquals(1, solution.entrance);
+		assertEquals(1, solution.exit);
+		assertEquals(9, solution.length);
+		assertEquals(1, solution.deadEnds);
+		assertEquals(10, solution.vacantCells);
+
+		int cells[][] = { {0,1}, {1,1}, {1,2}, {1,3}, {2,3}, {3,3}, {3,2}, {3,1}, {4,1} };
+		int bits = 0;
+		for(long word : solution.path) bits += Long.bitCount(word);
+		assertEquals(cells.length, bits);
+		for(int cell[] : cells)
+		{
+			int k = cell[0] * 6 + cell[1];
+			assertTrue((solution.path[k >>> 6] & (1L << k)) != 0);
+		}
+
+		maze[2][3] = false;
+		assertEquals(0, MazeSolution.solve(maze).length);
+    }
+
+    @Test
+    public void IfCompactMazesExpandToTheGeneratedMazes() throws Exception
+    {
+		final List<boolean[]> rows = new ArrayList<>();
+		MDLG.generateMaze("wilson,seed=42,size=21x31,version=" + MDLG.VERSION, r -> rows.add(r.clone()));
+		assertArrayEquals(WilsonMazeGenerator.generateMaze(21, 31, new Random(42)), rows.toArray(new boolean[0][]));
+
+		try {
+			MDLG.generateMaze("wilson,seed=42,size=21x31,version=0.0", r -> fail());
+			fail();
+		} catch(Exception e) {
+			assertTrue(e.getMessage().contains("version"));
+		}
+    }
+
+    @Test
+    public void IfMazeHashesTellMazesApart() throws Exception
+    {
+		boolean maze[][] = WilsonMazeGenerator.generateMaze(131, 41, new Random(42));
+		MazeHash hash = MazeHash.of(maze);
+		MazeHash streamed = new MazeHash(null);
+		for(boolean row[] : maze) streamed.writeRow(row);
+		assertEquals(hash.high(), streamed.high());
+		assertEquals(hash.low(), streamed.low());
+
+		HashSet<String> hashes = new HashSet<>();
+		for(int r=0; r<maze.length; r++)
+		{
+			for(int c=0; c<maze[r].length; c+=7)
+			{
+				maze[r][c] = !maze[r][c];
+				MazeHash h = MazeHash.of(maze);
+				assertTrue(hashes.add(h.high() + ":" + h.low()));
+				maze[r][c] = !maze[r][c];
+			}
+		}
+
+		// the same cells in rows of another length
+		boolean wide[][] = new boolean[1][16], tall[][] = new boolean[2][8];
+		assertTrue(MazeHash.of(wide).high() != MazeHash.of(tall).high());
+    }
+
+    @Test
+    public void IfConstraintsAcceptOnlyMazesInsideTheirBounds() throws Exception
+    {
+		Random random = new Random(42);
+		boolean mazes[][][] = new boolean[60][][];
+		int lengths[] = new int[mazes.length];
+		double ratios[] = new double[mazes.length];
+		for(int i=0; i<mazes.length; i++)
+		{
+			mazes[i] = (i % 2 == 0 ? WilsonMazeGenerator.generateMaze(21, 21, random) : RandomMazeGenerator.generateMaze(21, 21, random));
+			MazeSolution solution = MazeSolution.solve(mazes[i]);
+			lengths[i] = solution.length;
+			ratios[i] = (double)solution.deadEnds / solution.vacantCells;
+		}
+
+		// bounds in the middle of the measured lengths and ratios, so that some mazes fall on each side of them
+		int sortedLengths[] = lengths.clone();
+		double sortedRatios[] = ratios.clone();
+		Arrays.sort(sortedLengths);
+		Arrays.sort(sortedRatios);
+		int minLength = sortedLengths[15], maxLength = sortedLengths[45];
+		double minRatio = sortedRatios[15], maxRatio = sortedRatios[45];
+
+		MazeConstraints lengthOnly = new MazeConstraints(), ratioOnly = new MazeConstraints(), both = new MazeConstraints();
+		for(String line : new String[] { "[min-solution-length:" + minLength + "]", "[max-solution-length:" + maxLength + "]" })
+		{
+			assertTrue(MazeConstraints.isConstraint(line));
+			lengthOnly.parse(line);
+			both.parse(line);
+		}
+		for(String line : new String[] { "[min-dead-end-ratio:" + minRatio + "]", "[max-dead-end-ratio:" + maxRatio + "]" })
+		{
+			assertTrue(MazeConstraints.isConstraint(line));
+			ratioOnly.parse(line);
+			both.parse(line);
+		}
+
+		int accepted = 0, rejected = 0;
+		for(int i=0; i<mazes.length; i++)
+		{
+			boolean inLength = lengths[i] >= minLength && lengths[i] <= maxLength;
+			boolean inRatio = ratios[i] >= minRatio && ratios[i] <= maxRatio;
+			assertEquals(inLength, lengthOnly.accept(mazes[i]));
+			assertEquals(inRatio, ratioOnly.accept(mazes[i]));
+			assertEquals(inLength && inRatio, both.accept(mazes[i]));
+			if(both.accept(mazes[i])) accepted++; else rejected++;
+		}
+		assertTrue(accepted > 0 && rejected > 0);
+		assertTrue(new MazeConstraints().accept(mazes[0]));
+
+		String contradictions[][] = {
+			{ "[min-solution-length:50]", "[max-solution-length:10]" },
+			{ "[max-solution-length:10]", "[min-solution-length:50]" },
+			{ "[min-dead-end-ratio:0.5]", "[max-dead-end-ratio:0.25]" },
+			{ "[max-dead-end-ratio:0.25]", "[min-dead-end-ratio:0.5]" },
+		};
+		for(String lines[] : contradictions)
+		{
+			MazeConstraints constraints = new MazeConstraints();
+			constraints.parse(lines[0]);
+			try {
+				constraints.parse(lines[1]);
+				fail();
+			} catch(Exception e) {
+				assertTrue(e.getMessage().contains("greater than the maximum"));
+			}
+		}
+
+		try {
+			new MazeConstraints().parse("[max-solution-length:ten]");
+			fail();
+		} catch(Exception e) {
+			assertTrue(e.getMessage().contains("Invalid value"));
+		}
+		assertFalse(MazeConstraints.isConstraint("[solution-length:10]"));
+    }
+
     /**
      * To find the column for the maze entrance
      * @param maze	The generated maze
@@ -182,4 +436,4 @@ public class TestMDLG
 		
 		return false;
     }
-}
+}
\ No newline at end of file
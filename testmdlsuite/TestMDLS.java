@@ -0,0 +1,127 @@
+package testmdlsuite;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Random;
+import mdlg.MazeSolution;
+import mdlg.RandomMazeGenerator;
+import mdlg.WilsonMazeGenerator;
+import mdls.*;
+
+public class TestMDLS
+{
+    private final Solver shortestPathSolvers[] = {
+		new BidirectionalSolver(),
+		new AStarSolver(),
+		new DeadEndFillingSolver()
+    };
+
+    @Test
+    public void IfSolversAgreeOnShortestPath() throws Exception
+    {
+		int height = 20, width = 20, n = 1000;
+		Solver bfs = new BreadthFirstSolver();
+
+		for(int i=0; i<n; i++)
+		{
+			Maze maze = Maze.fromGrid(RandomMazeGenerator.generateMaze(width, height));
+			Solution expected = bfs.solve(maze);
+			assertTrue(isValidPath(maze, expected.getPath()));
+
+			for(int j=0; j<shortestPathSolvers.length; j++)
+			{
+				Solution s = shortestPathSolvers[j].solve(maze);
+				assertTrue(isValidPath(maze, s.getPath()));
+				assertEquals(expected.getPath().length, s.getPath().length);
+			}
+		}
+    }
+
+    @Test
+    public void IfWallFollowerSolvesGeneratedMazes() throws Exception
+    {
+		int height = 20, width = 20, n = 1000;
+		Solver solver = new WallFollowerSolver();
+
+		for(int i=0; i<n; i++)
+		{
+			Maze maze = Maze.fromGrid(RandomMazeGenerator.generateMaze(width, height));
+			assertTrue(isValidPath(maze, solver.solve(maze).getPath()));
+		}
+    }
+
+    @Test
+    public void IfEnclosedGoalIsUnsolvable()
+    {
+		boolean m[][] = {
+			{ true, true, false },
+			{ false, false, false },
+			{ false, true, true }
+		};
+		Maze maze = new Maze(m, 0, 0, 2, 2);
+
+		assertFalse(new BreadthFirstSolver().solve(maze).isSolved());
+		for(int j=0; j<shortestPathSolvers.length; j++) assertFalse(shortestPathSolvers[j].solve(maze).isSolved());
+		assertFalse(new WallFollowerSolver().solve(maze).isSolved());
+    }
+
+    @Test
+    public void IfAnalysisMeasuresPerfectMazes() throws Exception
+    {
+		Random random = new Random(42);
+		for(int i=0; i<100; i++)
+		{
+			boolean grid[][] = WilsonMazeGenerator.generateMaze(31, 21, random);
+			MazeAnalysis analysis = new MazeAnalysis(Maze.fromGrid(grid));
+			MazeSolution solution = MazeSolution.solve(grid);
+			assertEquals(1, analysis.getComponents());
+			assertEquals(0, analysis.getCyclomaticNumber());
+			assertEquals(solution.length, analysis.getSolutionLength());
+			assertEquals(solution.deadEnds, analysis.getDeadEnds());
+			assertEquals(solution.length - 1, Arrays.stream(analysis.getBranching()).sum());
+		}
+    }
+
+    @Test
+    public void IfAnalysisCountsLoopsAndComponents()
+    {
+		boolean m[][] = {
+			{ true, true, true, false, true },
+			{ true, false, true, false, true },
+			{ true, true, true, false, false },
+			{ false, true, false, false, true }
+		};
+		MazeAnalysis analysis = new MazeAnalysis(new Maze(m, 0, 0, 3, 1));
+		assertEquals(3, analysis.getComponents());
+		assertEquals(1, analysis.getCyclomaticNumber());
+		assertEquals(5, analysis.getSolutionLength());
+		assertEquals(3, analysis.getLongestCorridor());
+		assertEquals(1, analysis.getJunctions());
+		assertArrayEquals(new int[] { 1, 3, 7, 1, 0 }, analysis.getDegrees());
+		assertArrayEquals(new int[] { 0, 2, 2, 0, 0 }, analysis.getBranching());
+		assertEquals(2, analysis.getDeadEnds());
+    }
+
+    /**
+     * To check that a path leads from the start to the goal through adjacent vacant cells
+     * @param maze	The maze that was solved
+     * @param path	The cells on the path
+     * @return		True if the path is a valid solution, false otherwise
+     */
+    private boolean isValidPath(Maze maze, int path[])
+    {
+		if(path == null || path[0] != maze.getStart() || path[path.length-1] != maze.getGoal()) return false;
+
+		for(int i=0; i<path.length; i++)
+		{
+			if(!maze.isOpen(path[i])) return false;
+			if(i > 0)
+			{
+				int d = Math.abs(path[i] - path[i-1]);
+				if(d != 1 && d != maze.getWidth()) return false;
+			}
+		}
+		return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,331 @@
+package mdlc;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TestMDLC
+{
+    @Test
+    public void IfParallelRowsParseAsSequentialRows() throws Exception
+    {
+		int size = 1201;		// over 1 MB of row statements, so that they are parsed in more than one chunk
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder("[version:1.0]\n[size:" + size + "," + size + "]\n");
+		for(int r=0; r<size; r++)
+		{
+			if(r % 100 == 7) sb.append("\r\n");
+			sb.append(r % 50 == 3 ? " R" + r + " : " : "r" + r + ":").append(row(random, size)).append(";\n");
+			if(r % 97 == 5) sb.append("r" + (r / 2) + ":" + row(random, size) + ";\n");		// a row given again
+			if(r == 30) sb.append("p1:c(10,3)rrrrdddd;\nr12:" + row(random, size) + ";\n");		// rows mixed with paths
+		}
+		String rows = sb.toString();
+
+		Object desc = assertSameParse(rows);
+		assertTrue(desc instanceof Description);
+
+		// a row without its semicolon, a row outside the maze, and a row before the size of the maze
+		assertTrue(assertSameParse(rows.replace(";\nr900:", "\nr900:")) instanceof String);
+		assertTrue(assertSameParse(rows.replace("\nr900:", "\nr" + size + ":")) instanceof String);
+		assertTrue(assertSameParse("[version:1.0]\nr0:wpw;\n[size:3,3]\nr1:ppp;\n") instanceof String);
+    }
+
+    @Test
+    public void IfRowsSetTheCellsTheyName() throws Exception
+    {
+		int height = 4, width = 200;
+		Random random = new Random(7);
+		StringBuilder sb = new StringBuilder();
+		for(int i=0; i<63; i++) sb.append('p');
+		sb.append('x');
+		for(int i=0; i<63; i++) sb.append('w');
+		String rows[] = { sb.append("pww").toString(), row(random, width), row(random, width), row(random, width) };
+
+		// rows given again with characters other than p and w, which leave their cells as they were, around the tile borders
+		String again[] = new String[height];
+		for(int r=1; r<height; r++)
+		{
+			char cells[] = row(random, width).toCharArray();
+			for(int c=0; c<width; c++) if(c % 64 == 63 || c % 64 == 0 || random.nextInt(4) == 0) cells[c] = "x-.0".charAt(random.nextInt(4));
+			again[r] = new String(cells, 0, width - r);
+		}
+
+		StringBuilder text = new StringBuilder("[version:1.0]\n[size:" + height + "," + width + "]\n");
+		for(int r=0; r<height; r++) text.append("r" + r + ":" + rows[r] + ";\n");
+		for(int r=1; r<height; r++) text.append("r" + r + ":" + again[r] + ";\n");
+
+		// the cells as set one by one, as every row statement has always been read
+		boolean expected[][] = new boolean[height][width];
+		for(int r=0; r<height; r++)
+		{
+			for(String row : new String[] { rows[r], again[r] })
+			{
+				for(int c=0; row != null && c<row.length(); c++)
+				{
+					if(row.charAt(c) == 'p') expected[r][c] = true;
+					else if(row.charAt(c) == 'w') expected[r][c] = false;
+				}
+			}
+		}
+
+		for(long offHeapCells : new long[] { -1, 0 })
+		{
+			Description.offHeapCells = offHeapCells;
+			try {
+				for(boolean mapped : new boolean[] { false, true })
+				{
+					Object desc = parse(text.toString(), false, mapped);
+					assertTrue(String.valueOf(desc), desc instanceof Description);
+					Grid maze = ((Description)desc).maze;
+					assertEquals(offHeapCells >= 0, maze instanceof OffHeapGrid);
+					for(int r=0; r<height; r++)
+					{
+						for(int c=0; c<width; c++) assertEquals("cell " + r + "," + c, expected[r][c], maze.isPath(r, c));
+					}
+
+					// a cell past the last column, even within the last tile, is an error
+					String error = String.valueOf(parse(text + "r2:" + rows[2] + "p;\n", false, mapped));
+					assertEquals("Line " + (2 * height + 2) + ": invalid syntax", error);
+				}
+			} finally {
+				Description.offHeapCells = -1;
+			}
+		}
+    }
+
+    @Test
+    public void IfShortestPathsAreShortest() throws Exception
+    {
+		int height = 150, width = 200;
+		Random random = new Random(3);
+		for(int n=0; n<20; n++)
+		{
+			StringBuilder text = new StringBuilder("[version:1.0]\n[size:" + height + "," + width + "]\n");
+			for(int r=0; r<height; r++)
+			{
+				char cells[] = new char[width];
+				for(int c=0; c<width; c++) cells[c] = (random.nextInt(10) < 7 ? 'p' : 'w');
+				text.append("r" + r + ":" + new String(cells) + ";\n");
+			}
+			Description desc = (Description)parse(text.toString(), false, false);
+			Coordinate from = new Coordinate(random.nextInt(height), random.nextInt(width));
+			Coordinate to = new Coordinate(random.nextInt(height), random.nextInt(width));
+			desc.maze.set(from.row, from.col, SquareType.PATH);
+			desc.maze.set(to.row, to.col, SquareType.PATH);
+
+			// the distances from the start, by a plain breadth-first search
+			int distance[][] = new int[height][width];
+			ArrayList<int[]> queue = new ArrayList<>();
+			queue.add(new int[] { from.row, from.col });
+			distance[from.row][from.col] = 1;
+			for(int i=0; i<queue.size(); i++)
+			{
+				int r = queue.get(i)[0], c = queue.get(i)[1];
+				int next[][] = { { r-1, c }, { r+1, c }, { r, c-1 }, { r, c+1 } };
+				for(int x[] : next)
+				{
+					if(x[0] < 0 || x[0] >= height || x[1] < 0 || x[1] >= width || distance[x[0]][x[1]] != 0 || !desc.maze.isPath(x[0], x[1])) continue;
+					distance[x[0]][x[1]] = distance[r][c] + 1;
+					queue.add(x);
+				}
+			}
+
+			Coordinate path[] = ShortestPath.solve(desc, from, to);
+			if(distance[to.row][to.col] == 0)
+			{
+				assertNull(path);
+				continue;
+			}
+			assertEquals(distance[to.row][to.col], path.length);
+			assertTrue(path[0].row == from.row && path[0].col == from.col);
+			assertTrue(path[path.length-1].row == to.row && path[path.length-1].col == to.col);
+			for(int i=0; i<path.length; i++)
+			{
+				assertTrue(desc.maze.isPath(path[i].row, path[i].col));
+				if(i > 0) assertTrue(path[i].isAdjacent(path[i-1]));
+			}
+		}
+    }
+
+    @Test
+    public void IfMappedLinesMatchBufferedReaderLines() throws Exception
+    {
+		StringBuilder longRow = new StringBuilder("r2:");
+		for(int i=0; i<700; i++) longRow.append(i % 3 == 0 ? 'p' : 'w');
+		String text = "[version:1.0]\r\n\r\n[size:3,3]\n\nr0: wpw;\r\rr1:ppp;\r\n" + longRow + ";\r\n\n[unit:5]\rr2:wpw;";
+
+		// a final line with and without its line break, and a file ending with a blank line
+		for(String t : new String[] { text, text + "\r\n", text + "\n\r\n" })
+		{
+			File file = File.createTempFile("mdl-", ".maze");
+			try {
+				Files.write(file.toPath(), t.getBytes(StandardCharsets.UTF_8));
+				List<String> expected = new ArrayList<>();
+				BufferedReader br = new BufferedReader(new FileReader(file));
+				for(String line=br.readLine(); line != null; line=br.readLine()) expected.add(line);
+				br.close();
+
+				// regions so small that lines, and "\r\n" breaks, cross from one region into the next
+				for(int regionSize : new int[] { 1, 2, 3, 5, 16, 64, 1 << 20 })
+				{
+					List<String> actual = new ArrayList<>();
+					MappedLineReader mapped = new MappedLineReader(file.getPath(), regionSize);
+					for(ByteBuffer line=mapped.next(); line != null; line=mapped.next()) actual.add(MappedLineReader.decode(line));
+					mapped.close();
+					assertEquals("region size " + regionSize, expected, actual);
+				}
+			} finally {
+				file.delete();
+			}
+		}
+    }
+
+    @Test
+    public void IfRedrawnImagesMatchFullRenders() throws Exception
+    {
+		int height = 40, width = 45;
+		for(int unit : new int[] { 2, 25 })
+		{
+			for(boolean indices : new boolean[] { false, true })
+			{
+				Random random = new Random(unit);
+				String rows[] = new String[height];
+				StringBuilder text = new StringBuilder("[version:1.0]\n[output-mode:png]\n[size:" + height + "," + width + "]\n");
+				text.append("[unit:" + unit + "]\n[show-grid:true]\n[show-indices:" + indices + "]\n");
+				for(int r=0; r<height; r++)
+				{
+					rows[r] = row(random, width);
+					text.append("r" + r + ":" + rows[r] + ";\n");
+				}
+
+				Description prev = (Description)parse(text.toString(), false, false);
+				BufferedImage tiled = Generator.render(prev), exact = Generator.render(prev);
+				int position[] = null;
+				for(int i=0; i<30; i++)
+				{
+					// a cell changed, a visited path added or the current position moved, often across a tile border
+					int r = (i % 2 == 0 ? 31 + random.nextInt(2) : random.nextInt(height - 1));
+					int c = (i % 3 == 0 ? 30 + random.nextInt(3) : random.nextInt(width - 2));
+					List<Rectangle> edits = new ArrayList<>();
+					switch(random.nextInt(3))
+					{
+						case 0:
+							char cells[] = rows[r].toCharArray();
+							cells[c] = (cells[c] == 'p' ? 'w' : 'p');
+							rows[r] = new String(cells);
+							text.append("r" + r + ":" + rows[r] + ";\n");
+							edits.add(new Rectangle(c, r, 1, 1));
+							break;
+						case 1:
+							text.append("vc:rgb(255:0:0), c(" + r + "," + c + ") > c(" + r + "," + (c+1) + ") > c(" + (r+1) + "," + (c+1) + ");\n");
+							edits.add(new Rectangle(c, r, 2, 2));
+							break;
+						default:
+							text.append("[current-position:c(" + r + "," + c + ")]\n");
+							if(position != null) edits.add(new Rectangle(position[1], position[0], 1, 1));
+							edits.add(new Rectangle(c, r, 1, 1));
+							position = new int[] { r, c };
+							break;
+					}
+
+					Description desc = (Description)parse(text.toString(), false, false);
+					Watcher.redrawChanges(tiled, prev, desc);
+					for(Rectangle e : edits) Generator.redraw(exact, desc, e.y, e.x, e.y + e.height, e.x + e.width);
+
+					int expected[] = pixels(Generator.render(desc));
+					assertArrayEquals(expected, pixels(tiled));
+					assertArrayEquals(expected, pixels(exact));
+					prev = desc;
+				}
+			}
+		}
+    }
+
+    /**
+     * Checks that a file parses to the same maze, or fails with the same error, whether its rows are parsed in
+     * parallel or not, and whether it is memory-mapped or not
+     * @param text	The contents of the file
+     * @return		The description parsed sequentially, or the error message
+     */
+    private Object assertSameParse(String text) throws Exception
+    {
+		Object expected = null;
+		for(boolean mapped : new boolean[] { false, true })
+		{
+			expected = parse(text, false, mapped);
+			Object actual = parse(text, true, mapped);
+			if(expected instanceof String)
+			{
+				assertEquals(expected, actual);
+				continue;
+			}
+			assertTrue(String.valueOf(actual), actual instanceof Description);
+
+			Description a = (Description)expected, b = (Description)actual;
+			assertEquals(a.height, b.height);
+			assertEquals(a.width, b.width);
+			for(int r=0; r<a.height; r++)
+			{
+				for(int c=0; c<a.width; c++) assertEquals("cell " + r + "," + c, a.maze.isPath(r, c), b.maze.isPath(r, c));
+			}
+		}
+		return expected;
+    }
+
+    /**
+     * Reads a maze from the given contents of a file
+     * @param text			The contents of the file
+     * @param parallelRows	Whether the row statements are parsed in parallel
+     * @param mappedInput	Whether the file is memory-mapped
+     * @return				The description read, or the error message
+     */
+    private Object parse(String text, boolean parallelRows, boolean mappedInput) throws Exception
+    {
+		File file = File.createTempFile("mdl-", ".maze");
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		Description.parallelRows = parallelRows;
+		Description.mappedInput = mappedInput;
+		try {
+			return Description.readFile(file.getPath());
+		} catch(Exception e) {
+			return e.getMessage();
+		} finally {
+			Description.parallelRows = false;
+			Description.mappedInput = false;
+			file.delete();
+		}
+    }
+
+    /**
+     * Returns the cells of a random row statement
+     * @param random	The source of randomness
+     * @param width		The number of cells
+     * @return			The cells, as p and w
+     */
+    private String row(Random random, int width)
+    {
+		char cells[] = new char[width];
+		for(int i=0; i<width; i++) cells[i] = (random.nextBoolean() ? 'p' : 'w');
+		return new String(cells);
+    }
+
+    /**
+     * Returns the pixels of an image
+     * @param image	The image
+     * @return		The pixels, row by row
+     */
+    private int[] pixels(BufferedImage image)
+    {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
\ No newline at end of file